@@ -0,0 +1,57 @@
+package benchmarks;
+
+import ast.Program;
+import java_cup.runtime.Symbol;
+
+import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Access to the generated Lexer and Parser. They live in the unnamed package, which JMH benchmarks
+ * (and any named package) cannot refer to, so they are reached through method handles.
+ */
+public class Frontend {
+    private static final MethodHandle NEW_LEXER;
+    private static final MethodHandle NEXT_TOKEN;
+    private static final MethodHandle NEW_PARSER;
+    private static final MethodHandle PARSE;
+
+    static {
+        try {
+            var lexerClass = Class.forName("Lexer");
+            var parserClass = Class.forName("Parser");
+            var lookup = MethodHandles.lookup();
+
+            // The generated Lexer class and its constructor are package private
+            var lexerConstructor = lexerClass.getDeclaredConstructor(Reader.class);
+            lexerConstructor.setAccessible(true);
+            NEW_LEXER = lookup.unreflectConstructor(lexerConstructor).asType(MethodType.methodType(Object.class, Reader.class));
+
+            var nextToken = lexerClass.getMethod("next_token");
+            nextToken.setAccessible(true);
+            NEXT_TOKEN = lookup.unreflect(nextToken).asType(MethodType.methodType(Symbol.class, Object.class));
+
+            NEW_PARSER = lookup.unreflectConstructor(parserClass.getConstructor(lexerClass))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            PARSE = lookup.unreflect(parserClass.getMethod("parse"))
+                    .asType(MethodType.methodType(Symbol.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public static Object newLexer(Reader reader) throws Throwable {
+        return (Object) NEW_LEXER.invokeExact(reader);
+    }
+
+    public static Symbol nextToken(Object lexer) throws Throwable {
+        return (Symbol) NEXT_TOKEN.invokeExact(lexer);
+    }
+
+    public static Program parse(Reader reader) throws Throwable {
+        Object parser = (Object) NEW_PARSER.invokeExact(newLexer(reader));
+        return (Program) ((Symbol) PARSE.invokeExact(parser)).value;
+    }
+}
@@ -0,0 +1,205 @@
+package benchmarks;
+
+import ast.AstXMLSerializer;
+import ast.Program;
+import codegen.vtable.VTables;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import symboltable.SymbolTable;
+import utils.ProgramGenerator;
+import utils.Symbols;
+import visitor.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * One benchmark per compiler phase. Every operation runs the phase over all the programs of the
+ * input set: either the examples/ast corpus, or a single program of the given number of classes
+ * from ProgramGenerator. The inputs of each phase are prepared once, in the setup.
+ * The identifiers of the inputs are interned in a table of their own (see Symbols), which is bound to
+ * the thread that runs the setup, and to the thread that runs each iteration.
+ *
+ * Run with "ant bench" (options for JMH can be passed with -Dbench.args="...").
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhaseBenchmarks {
+    private static final String CORPUS = "examples";
+    private static final String SYNTHETIC_PREFIX = "synthetic-";
+    private static final int SYNTHETIC_DEPTH = 8;
+
+    @Param({CORPUS, SYNTHETIC_PREFIX + "10", SYNTHETIC_PREFIX + "100", SYNTHETIC_PREFIX + "1000"})
+    public String input;
+
+    // The directory of the corpus, relative to the directory the benchmarks are run from
+    @Param({"examples/ast"})
+    public String corpusDir;
+
+    private List<String> sources;
+    private Path xmlDir;
+    private List<File> xmlFiles;
+    private List<Program> programs;
+    private List<SymbolTable> symbolTables;
+    private List<VTables> vTables;
+    private Symbols symbols;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        symbols = new Symbols();
+        Symbols.bind(symbols);
+
+        if (input.equals(CORPUS)) {
+            try (Stream<Path> files = Files.list(Path.of(corpusDir))) {
+                sources = new ArrayList<>();
+                // Skip the outputs of the printer (e.g. Factorial_renamed.java.xml.java) which sit next to the sources
+                var sourceFiles = files.filter(file -> file.toString().endsWith(".java") && !file.toString().contains(".xml"))
+                        .sorted()
+                        .collect(Collectors.toList());
+                for (var file : sourceFiles) {
+                    sources.add(Files.readString(file));
+                }
+            }
+        } else {
+            var parameters = new ProgramGenerator.Parameters();
+            parameters.classes = Integer.parseInt(input.substring(SYNTHETIC_PREFIX.length()));
+            parameters.depth = SYNTHETIC_DEPTH;
+            var astPrinter = new AstPrintVisitor();
+            astPrinter.visit(new ProgramGenerator(parameters).generate());
+            sources = List.of(astPrinter.getString());
+        }
+
+        programs = new ArrayList<>();
+        for (var source : sources) {
+            programs.add(Frontend.parse(new StringReader(source)));
+        }
+
+        xmlDir = Files.createTempDirectory("mjavac-bench");
+        xmlFiles = new ArrayList<>();
+        var xmlSerializer = new AstXMLSerializer();
+        for (int i = 0; i < programs.size(); i++) {
+            var xmlFile = xmlDir.resolve(i + ".xml");
+            xmlSerializer.serialize(programs.get(i), xmlFile.toString());
+            xmlFiles.add(xmlFile.toFile());
+        }
+
+        symbolTables = new ArrayList<>();
+        vTables = new ArrayList<>();
+        for (var program : programs) {
+            var symbolTable = buildSymbolTable(program);
+            symbolTables.add(symbolTable);
+            vTables.add(VTables.createVTables(symbolTable));
+
+            // The benchmarked phases assume valid programs, fail early otherwise
+            new ValidateTypeVisitor(symbolTable).visit(program);
+            new ValidateInitVisitor(symbolTable).visit(program);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void bindSymbols() {
+        Symbols.bind(symbols);
+    }
+
+    @TearDown(Level.Iteration)
+    public void unbindSymbols() {
+        Symbols.bind(null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Symbols.bind(null);
+        try (Stream<Path> files = Files.walk(xmlDir)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static SymbolTable buildSymbolTable(Program program) {
+        var buildClassHierarchyVisitor = new BuildClassHierarchyVisitor();
+        buildClassHierarchyVisitor.visit(program);
+        return buildClassHierarchyVisitor.getSymbolTable();
+    }
+
+    @Benchmark
+    public int lex() throws Throwable {
+        int tokens = 0;
+        for (var source : sources) {
+            var lexer = Frontend.newLexer(new StringReader(source));
+            while (Frontend.nextToken(lexer).sym != 0) {
+                tokens++;
+            }
+        }
+        return tokens;
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) throws Throwable {
+        for (var source : sources) {
+            blackhole.consume(Frontend.parse(new StringReader(source)));
+        }
+    }
+
+    @Benchmark
+    public void unmarshal(Blackhole blackhole) {
+        var xmlSerializer = new AstXMLSerializer();
+        for (var xmlFile : xmlFiles) {
+            blackhole.consume(xmlSerializer.deserialize(xmlFile));
+        }
+    }
+
+    @Benchmark
+    public void buildClassHierarchy(Blackhole blackhole) {
+        for (var program : programs) {
+            blackhole.consume(buildSymbolTable(program));
+        }
+    }
+
+    @Benchmark
+    public void validateType(Blackhole blackhole) {
+        for (int i = 0; i < programs.size(); i++) {
+            var validateTypeVisitor = new ValidateTypeVisitor(symbolTables.get(i));
+            validateTypeVisitor.visit(programs.get(i));
+            blackhole.consume(validateTypeVisitor);
+        }
+    }
+
+    @Benchmark
+    public void validateInit(Blackhole blackhole) {
+        for (int i = 0; i < programs.size(); i++) {
+            var validateInitVisitor = new ValidateInitVisitor(symbolTables.get(i));
+            validateInitVisitor.visit(programs.get(i));
+            blackhole.consume(validateInitVisitor);
+        }
+    }
+
+    @Benchmark
+    public void createVTables(Blackhole blackhole) {
+        for (var symbolTable : symbolTables) {
+            blackhole.consume(VTables.createVTables(symbolTable));
+        }
+    }
+
+    @Benchmark
+    public void llvmGenerate(Blackhole blackhole) {
+        for (int i = 0; i < programs.size(); i++) {
+            var llvmGeneratorVisitor = new LLVMGeneratorVisitor(vTables.get(i), symbolTables.get(i));
+            llvmGeneratorVisitor.visit(programs.get(i));
+            blackhole.consume(llvmGeneratorVisitor.getString());
+        }
+    }
+}
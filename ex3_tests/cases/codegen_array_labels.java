@@ -0,0 +1,32 @@
+class Main {
+	public static void main(String[] a) {
+		System.out.println(new A().fill(new int[3]));
+	}
+}
+
+class A {
+	int[] values;
+
+	public int fill(int[] arr) {
+		int i;
+		values = new int[arr.length];
+		i = 0;
+		while (i < arr.length) {
+			values[i] = i * 2;
+			i = i + 1;
+		}
+		return this.sum(values);
+	}
+
+	public int sum(int[] arr) {
+		int i;
+		int s;
+		s = 0;
+		i = 0;
+		while (i < arr.length) {
+			s = s + arr[i];
+			i = i + 1;
+		}
+		return s;
+	}
+}
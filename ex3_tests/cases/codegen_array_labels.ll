@@ -0,0 +1,165 @@
+@.A_vtable = global [2 x i8*] [
+	i8* bitcast (i32 (i8*, i32*)* @A.fill to i8*),
+	i8* bitcast (i32 (i8*, i32*)* @A.sum to i8*)
+]
+
+declare i8* @calloc(i32, i32)
+declare i32 @printf(i8*, ...)
+declare void @exit(i32)
+
+@_cint = constant [4 x i8] c"%d\0a\00"
+@_cOOB = constant [15 x i8] c"Out of bounds\0a\00"
+define void @print_int(i32 %i) {
+    %_str = bitcast [4 x i8]* @_cint to i8*
+    call i32 (i8*, ...) @printf(i8* %_str, i32 %i)
+    ret void
+}
+
+define void @throw_oob() {
+    %_str = bitcast [15 x i8]* @_cOOB to i8*
+    call i32 (i8*, ...) @printf(i8* %_str)
+    call void @exit(i32 1)
+    ret void
+}
+define i32 @main() {
+	%_0 = call i8* @calloc(i32 1, i32 16)
+	%_1 = bitcast i8* %_0 to i8***
+	%_2 = getelementptr [2 x i8*], [2 x i8*]* @.A_vtable, i32 0, i32 0
+	store i8** %_2, i8*** %_1
+	%_3 = bitcast i8* %_0 to i8*** 
+	%_4 = load i8**, i8*** %_3
+	%_5 = getelementptr i8*, i8** %_4, i32 0
+	%_6 = load i8*, i8** %_5
+	%_7 = bitcast i8* %_6 to i32 (i8*, i32*)*
+	%_8 = icmp slt i32 3, 0
+	br i1 %_8, label %arr_alloc0, label %arr_alloc1
+arr_alloc0:
+	call void @throw_oob()
+	br label %arr_alloc1
+arr_alloc1:
+	%_9 = add i32 3, 1
+	%_10 = call i8* @calloc(i32 4, i32 %_9)
+	%_11 = bitcast i8* %_10 to i32*
+	store i32 3, i32* %_11
+	%_12 = call i32 %_7(i8* %_0, i32* %_11)
+	call void (i32) @print_int(i32 %_12)
+	ret i32 0
+}
+
+define i32 @A.fill(i8* %this, i32* %.arr) {
+	%arr = alloca i32*
+	store i32* %.arr, i32** %arr
+	%i = alloca i32
+	%_0 = load i32*, i32** %arr
+	%_1 = load i32, i32* %_0
+	%_2 = icmp slt i32 %_1, 0
+	br i1 %_2, label %arr_alloc0, label %arr_alloc1
+arr_alloc0:
+	call void @throw_oob()
+	br label %arr_alloc1
+arr_alloc1:
+	%_3 = add i32 %_1, 1
+	%_4 = call i8* @calloc(i32 4, i32 %_3)
+	%_5 = bitcast i8* %_4 to i32*
+	store i32 %_1, i32* %_5
+	%_6 = getelementptr i8, i8* %this, i32 8
+	%_7 = bitcast i8* %_6 to i32**
+	store i32* %_5, i32** %_7
+	store i32 0, i32* %i
+
+	br label %loop0
+loop0:
+	%_8 = load i32, i32* %i
+	%_9 = load i32*, i32** %arr
+	%_10 = load i32, i32* %_9
+	%_11 = icmp slt i32 %_8, %_10
+	br i1 %_11, label %loop1, label %loop2
+loop1:
+	%_12 = getelementptr i8, i8* %this, i32 8
+	%_13 = bitcast i8* %_12 to i32**
+	%_14 = load i32*, i32** %_13
+	%_15 = load i32, i32* %i
+	%_16 = load i32, i32* %i
+	%_17 = mul i32 %_16, 2
+	%_18 = icmp slt i32 %_15, 0
+	br i1 %_18, label %arr_alloc2, label %arr_alloc3
+arr_alloc2:
+	call void @throw_oob()
+	br label %arr_alloc3
+arr_alloc3:
+	%_19 = getelementptr i32, i32* %_14, i32 0
+	%_20 = load i32, i32* %_19
+	%_21 = icmp sle i32 %_20, %_15
+	br i1 %_21, label %arr_alloc4, label %arr_alloc5
+arr_alloc4:
+	call void @throw_oob()
+	br label %arr_alloc5
+arr_alloc5:
+	%_22 = add i32 %_15, 1
+	%_23 = getelementptr i32, i32* %_14, i32 %_22
+	store i32 %_17, i32* %_23
+	%_24 = load i32, i32* %i
+	%_25 = add i32 %_24, 1
+	store i32 %_25, i32* %i
+
+	br label %loop0
+loop2:
+	%_26 = bitcast i8* %this to i8*** 
+	%_27 = load i8**, i8*** %_26
+	%_28 = getelementptr i8*, i8** %_27, i32 1
+	%_29 = load i8*, i8** %_28
+	%_30 = bitcast i8* %_29 to i32 (i8*, i32*)*
+	%_31 = getelementptr i8, i8* %this, i32 8
+	%_32 = bitcast i8* %_31 to i32**
+	%_33 = load i32*, i32** %_32
+	%_34 = call i32 %_30(i8* %this, i32* %_33)
+	ret i32 %_34
+}
+
+define i32 @A.sum(i8* %this, i32* %.arr) {
+	%arr = alloca i32*
+	store i32* %.arr, i32** %arr
+	%i = alloca i32
+	%s = alloca i32
+	store i32 0, i32* %s
+	store i32 0, i32* %i
+
+	br label %loop0
+loop0:
+	%_0 = load i32, i32* %i
+	%_1 = load i32*, i32** %arr
+	%_2 = load i32, i32* %_1
+	%_3 = icmp slt i32 %_0, %_2
+	br i1 %_3, label %loop1, label %loop2
+loop1:
+	%_4 = load i32, i32* %s
+	%_5 = load i32*, i32** %arr
+	%_6 = load i32, i32* %i
+	%_7 = icmp slt i32 %_6, 0
+	br i1 %_7, label %arr_alloc0, label %arr_alloc1
+arr_alloc0:
+	call void @throw_oob()
+	br label %arr_alloc1
+arr_alloc1:
+	%_8 = getelementptr i32, i32* %_5, i32 0
+	%_9 = load i32, i32* %_8
+	%_10 = icmp sle i32 %_9, %_6
+	br i1 %_10, label %arr_alloc2, label %arr_alloc3
+arr_alloc2:
+	call void @throw_oob()
+	br label %arr_alloc3
+arr_alloc3:
+	%_11 = add i32 %_6, 1
+	%_12 = getelementptr i32, i32* %_5, i32 %_11
+	%_13 = load i32, i32* %_12
+	%_14 = add i32 %_4, %_13
+	store i32 %_14, i32* %s
+	%_15 = load i32, i32* %i
+	%_16 = add i32 %_15, 1
+	store i32 %_16, i32* %i
+
+	br label %loop0
+loop2:
+	%_17 = load i32, i32* %s
+	ret i32 %_17
+}
@@ -0,0 +1,40 @@
+class Main {
+	public static void main(String[] a) {
+		System.out.println(new A().start());
+	}
+}
+
+class A {
+	B b;
+
+	public int start() {
+		A a;
+		B v;
+		int x;
+		b = new C();
+		a = this;
+		v = this.get();
+		x = a.add(v.value(3), new B().value(1));
+		return x;
+	}
+
+	public B get() {
+		return b;
+	}
+
+	public int add(int x, int y) {
+		return x + y;
+	}
+}
+
+class B {
+	public int value(int x) {
+		return x + 4;
+	}
+}
+
+class C extends B {
+	public int value(int x) {
+		return x * 10;
+	}
+}
@@ -0,0 +1,128 @@
+@.A_vtable = global [3 x i8*] [
+	i8* bitcast (i32 (i8*)* @A.start to i8*),
+	i8* bitcast (i8* (i8*)* @A.get to i8*),
+	i8* bitcast (i32 (i8*, i32, i32)* @A.add to i8*)
+]
+
+@.B_vtable = global [1 x i8*] [
+	i8* bitcast (i32 (i8*, i32)* @B.value to i8*)
+]
+
+@.C_vtable = global [1 x i8*] [
+	i8* bitcast (i32 (i8*, i32)* @C.value to i8*)
+]
+
+declare i8* @calloc(i32, i32)
+declare i32 @printf(i8*, ...)
+declare void @exit(i32)
+
+@_cint = constant [4 x i8] c"%d\0a\00"
+@_cOOB = constant [15 x i8] c"Out of bounds\0a\00"
+define void @print_int(i32 %i) {
+    %_str = bitcast [4 x i8]* @_cint to i8*
+    call i32 (i8*, ...) @printf(i8* %_str, i32 %i)
+    ret void
+}
+
+define void @throw_oob() {
+    %_str = bitcast [15 x i8]* @_cOOB to i8*
+    call i32 (i8*, ...) @printf(i8* %_str)
+    call void @exit(i32 1)
+    ret void
+}
+define i32 @main() {
+	%_0 = call i8* @calloc(i32 1, i32 16)
+	%_1 = bitcast i8* %_0 to i8***
+	%_2 = getelementptr [3 x i8*], [3 x i8*]* @.A_vtable, i32 0, i32 0
+	store i8** %_2, i8*** %_1
+	%_3 = bitcast i8* %_0 to i8*** 
+	%_4 = load i8**, i8*** %_3
+	%_5 = getelementptr i8*, i8** %_4, i32 0
+	%_6 = load i8*, i8** %_5
+	%_7 = bitcast i8* %_6 to i32 (i8*)*
+	%_8 = call i32 %_7(i8* %_0)
+	call void (i32) @print_int(i32 %_8)
+	ret i32 0
+}
+
+define i32 @A.start(i8* %this) {
+	%a = alloca i8*
+	%v = alloca i8*
+	%x = alloca i32
+	%_0 = call i8* @calloc(i32 1, i32 8)
+	%_1 = bitcast i8* %_0 to i8***
+	%_2 = getelementptr [1 x i8*], [1 x i8*]* @.C_vtable, i32 0, i32 0
+	store i8** %_2, i8*** %_1
+	%_3 = getelementptr i8, i8* %this, i32 8
+	%_4 = bitcast i8* %_3 to i8**
+	store i8* %_0, i8** %_4
+	store i8* %this, i8** %a
+	%_5 = bitcast i8* %this to i8*** 
+	%_6 = load i8**, i8*** %_5
+	%_7 = getelementptr i8*, i8** %_6, i32 1
+	%_8 = load i8*, i8** %_7
+	%_9 = bitcast i8* %_8 to i8* (i8*)*
+	%_10 = call i8* %_9(i8* %this)
+	store i8* %_10, i8** %v
+	%_11 = load i8*, i8** %a
+	%_12 = bitcast i8* %_11 to i8*** 
+	%_13 = load i8**, i8*** %_12
+	%_14 = getelementptr i8*, i8** %_13, i32 2
+	%_15 = load i8*, i8** %_14
+	%_16 = bitcast i8* %_15 to i32 (i8*, i32, i32)*
+	%_17 = load i8*, i8** %v
+	%_18 = bitcast i8* %_17 to i8*** 
+	%_19 = load i8**, i8*** %_18
+	%_20 = getelementptr i8*, i8** %_19, i32 0
+	%_21 = load i8*, i8** %_20
+	%_22 = bitcast i8* %_21 to i32 (i8*, i32)*
+	%_23 = call i32 %_22(i8* %_17, i32 3)
+	%_24 = call i8* @calloc(i32 1, i32 8)
+	%_25 = bitcast i8* %_24 to i8***
+	%_26 = getelementptr [1 x i8*], [1 x i8*]* @.B_vtable, i32 0, i32 0
+	store i8** %_26, i8*** %_25
+	%_27 = bitcast i8* %_24 to i8*** 
+	%_28 = load i8**, i8*** %_27
+	%_29 = getelementptr i8*, i8** %_28, i32 0
+	%_30 = load i8*, i8** %_29
+	%_31 = bitcast i8* %_30 to i32 (i8*, i32)*
+	%_32 = call i32 %_31(i8* %_24, i32 1)
+	%_33 = call i32 %_16(i8* %_11, i32 %_23, i32 %_32)
+	store i32 %_33, i32* %x
+	%_34 = load i32, i32* %x
+	ret i32 %_34
+}
+
+define i8* @A.get(i8* %this) {
+	%_0 = getelementptr i8, i8* %this, i32 8
+	%_1 = bitcast i8* %_0 to i8**
+	%_2 = load i8*, i8** %_1
+	ret i8* %_2
+}
+
+define i32 @A.add(i8* %this, i32 %.x, i32 %.y) {
+	%x = alloca i32
+	store i32 %.x, i32* %x
+	%y = alloca i32
+	store i32 %.y, i32* %y
+	%_0 = load i32, i32* %x
+	%_1 = load i32, i32* %y
+	%_2 = add i32 %_0, %_1
+	ret i32 %_2
+}
+
+define i32 @B.value(i8* %this, i32 %.x) {
+	%x = alloca i32
+	store i32 %.x, i32* %x
+	%_0 = load i32, i32* %x
+	%_1 = add i32 %_0, 4
+	ret i32 %_1
+}
+
+define i32 @C.value(i8* %this, i32 %.x) {
+	%x = alloca i32
+	store i32 %.x, i32* %x
+	%_0 = load i32, i32* %x
+	%_1 = mul i32 %_0, 10
+	ret i32 %_1
+}
@@ -0,0 +1,28 @@
+class Main {
+	public static void main(String[] a) {
+		System.out.println(new A().f(true));
+	}
+}
+
+class A {
+	int g;
+
+	public int f(int n) {
+		int x;
+		int y;
+		boolean b;
+		x = 1;
+		while ((x + true) < 3) {
+			x = x + 1;
+		}
+		b = x;
+		if (y < n) {
+			x = this.h(x);
+		} else {
+			x = b.f(1);
+		}
+		System.out.println(x &&
+			b);
+		return x;
+	}
+}
@@ -0,0 +1,16 @@
+class Main {
+	public static void main(String[] a) {
+		System.out.println(new A().f());
+	}
+}
+
+class A {
+	public int f() {
+		int x;
+		x = 1;
+		while ((x + true) < 3) {
+			x = x + 1;
+		}
+		return x;
+	}
+}
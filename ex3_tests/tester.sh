@@ -31,6 +31,71 @@ function check_invalid {
     check $1 ERROR
 }
 
+# Check with --diagnostics, which goes on after an error: the first error is reported as usual,
+# and all of them are written as JSON, one per line
+function check_diagnostics {
+    if [[ $1 != $TESTCASE_PAT ]]; then
+        return
+    fi
+
+    INFILE=$INDIR/$1.xml
+    OUTFILE=$OUTDIR/$1.res
+    DIAGFILE=$OUTDIR/$1.json
+
+    java -jar $MJAVAC unmarshal semantic --diagnostics=$DIAGFILE $INFILE $OUTFILE
+
+    echo -n "$1: "
+
+    COUNT=$(grep -c '"error":' $DIAGFILE)
+    if [ "$(< $OUTFILE)" = ERROR ] && [ "$COUNT" = $2 ]; then
+        printf "\x1b[0;32mSuccess\x1b[0m\n"
+    else
+        printf "\x1b[0;31mFailed\x1b[0m (expected $2 errors, got $COUNT)\n"
+    fi
+}
+
+# Check the code generated for the program against the expected one, cases/<name>.ll
+function check_compile {
+    if [[ $1 != $TESTCASE_PAT ]]; then
+        return
+    fi
+
+    INFILE=$INDIR/$1.xml
+    OUTFILE=$OUTDIR/$1.ll
+
+    java -jar $MJAVAC unmarshal compile $INFILE $OUTFILE
+
+    echo -n "$1: "
+
+    if cmp -s $OUTFILE $INDIR/$1.ll; then
+        printf "\x1b[0;32mSuccess\x1b[0m\n"
+    else
+        printf "\x1b[0;31mFailed\x1b[0m (the code differs from $INDIR/$1.ll)\n"
+    fi
+}
+
+# Check that writing the AST in the binary format and reading it back gives the same AST
+function check_roundtrip {
+    if [[ $1 != $TESTCASE_PAT ]]; then
+        return
+    fi
+
+    INFILE=$INDIR/$1.xml
+    BINFILE=$OUTDIR/$1.bin
+
+    java -jar $MJAVAC unmarshal marshal-bin $INFILE $BINFILE
+    java -jar $MJAVAC unmarshal-bin marshal $BINFILE $OUTDIR/$1.roundtrip.xml
+    java -jar $MJAVAC unmarshal marshal $INFILE $OUTDIR/$1.direct.xml
+
+    echo -n "$1 (marshal-bin): "
+
+    if cmp -s $OUTDIR/$1.roundtrip.xml $OUTDIR/$1.direct.xml; then
+        printf "\x1b[0;32mSuccess\x1b[0m\n"
+    else
+        printf "\x1b[0;31mFailed\x1b[0m (the AST read back differs)\n"
+    fi
+}
+
 function check_variants {
     check_valid "$1_valid"
     check_invalid "$1_invalid"
@@ -300,3 +365,15 @@ check_invalid misc_partial_overrides_a_unassigned
 
 check_valid misc_tree_visitor
 check_invalid misc_tree_visitor_missing_extends
+
+check_diagnostics diag_while_cond 1
+check_diagnostics diag_multiple_errors 8
+
+check_valid codegen_call_owners
+check_compile codegen_call_owners
+
+check_valid codegen_array_labels
+check_compile codegen_array_labels
+
+check_roundtrip misc_tree_visitor
+check_roundtrip codegen_call_owners
@@ -0,0 +1,188 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs many compiler invocations inside a single JVM, spread over a work-stealing pool.
+ *
+ * Usage:
+ *   batch dir [--jobs=N] <action> <input dir> <output dir> <summary file>
+ *       Every .java (parsed), .xml and .bin (unmarshalled) file under the input directory goes through
+ *       the action. Outputs mirror the input tree, with an extension according to the action
+ *       (e.g. Foo.java -> Foo.java.ll for compile).
+ *   batch manifest [--jobs=N] <manifest file> <summary file>
+ *       Every non-empty line of the manifest (except # comments) holds the regular command line
+ *       arguments of one invocation: inputMethod action [rename args] in out.
+ *
+ * The summary holds one tab separated line per invocation, in input order: the exit code the
+ * command line would have returned, the time it took, the arguments and the printed messages.
+ */
+public class BatchCompiler {
+    private static final String JOBS_OPTION = "--jobs=";
+    private static final Map<String, String> OUTPUT_EXTENSIONS = Map.of(
+            "compile", "ll",
+            "semantic", "res",
+            "print", "java",
+            "marshal", "xml",
+            "marshal-bin", "bin"
+    );
+
+    private static class Result {
+        int exitCode;
+        long millis;
+        String messages;
+    }
+
+    public static void batch(String[] args) throws IOException {
+        int jobs = Runtime.getRuntime().availableProcessors();
+        var positional = new ArrayList<String>();
+
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith(JOBS_OPTION)) {
+                jobs = Integer.parseInt(args[i].substring(JOBS_OPTION.length()));
+            } else {
+                positional.add(args[i]);
+            }
+        }
+
+        var mode = positional.get(0);
+        List<String[]> invocations;
+        Path summary;
+
+        if (mode.equals("dir")) {
+            invocations = listDirectory(positional.get(1), Path.of(positional.get(2)), Path.of(positional.get(3)));
+            summary = Path.of(positional.get(4));
+        } else if (mode.equals("manifest")) {
+            invocations = readManifest(Path.of(positional.get(1)));
+            summary = Path.of(positional.get(2));
+        } else {
+            throw new IllegalArgumentException("unknown batch mode " + mode);
+        }
+
+        long start = System.nanoTime();
+        var results = runAll(invocations, jobs);
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+
+        writeSummary(summary, invocations, results, jobs, wallMillis);
+    }
+
+    private static List<String[]> listDirectory(String action, Path inputDir, Path outputDir) throws IOException {
+        var extension = OUTPUT_EXTENSIONS.get(action);
+
+        if (extension == null) {
+            throw new IllegalArgumentException("action " + action + " is not supported for a directory batch");
+        }
+
+        try (Stream<Path> files = Files.walk(inputDir)) {
+            return files.filter(Files::isRegularFile)
+                    .sorted()
+                    .map(file -> {
+                        var name = file.getFileName().toString();
+                        String inputMethod;
+
+                        if (name.endsWith(".java")) {
+                            inputMethod = "parse";
+                        } else if (name.endsWith(".xml")) {
+                            inputMethod = "unmarshal";
+                        } else if (name.endsWith(".bin")) {
+                            inputMethod = "unmarshal-bin";
+                        } else {
+                            return null;
+                        }
+
+                        var outFile = outputDir.resolve(inputDir.relativize(file) + "." + extension);
+                        return new String[]{inputMethod, action, file.toString(), outFile.toString()};
+                    })
+                    .filter(invocation -> invocation != null)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static List<String[]> readManifest(Path manifest) throws IOException {
+        var invocations = new ArrayList<String[]>();
+
+        for (var line : Files.readAllLines(manifest)) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            invocations.add(line.split("\\s+"));
+        }
+
+        return invocations;
+    }
+
+    private static List<Result> runAll(List<String[]> invocations, int jobs) {
+        var pool = new ForkJoinPool(jobs);
+
+        try {
+            var tasks = new ArrayList<ForkJoinTask<Result>>();
+            for (var invocation : invocations) {
+                tasks.add(pool.submit(() -> run(invocation)));
+            }
+
+            var results = new ArrayList<Result>();
+            for (var task : tasks) {
+                results.add(task.join());
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Result run(String[] invocation) {
+        var result = new Result();
+        var messages = new ByteArrayOutputStream();
+        var console = new PrintStream(messages, true);
+        long start = System.nanoTime();
+
+        try {
+            Main.run(invocation, console);
+        } catch (SyntaxException e) {
+            console.println(e.getMessage());
+            result.exitCode = 1;
+        } catch (Exception e) {
+            console.println("General error: " + e);
+            result.exitCode = 1;
+        }
+
+        result.millis = (System.nanoTime() - start) / 1_000_000;
+        result.messages = messages.toString().strip();
+        return result;
+    }
+
+    private static void writeSummary(Path summary, List<String[]> invocations, List<Result> results,
+                                     int jobs, long wallMillis) throws IOException {
+        if (summary.getParent() != null) {
+            Files.createDirectories(summary.getParent());
+        }
+
+        int failed = 0;
+
+        try (var writer = new PrintWriter(Files.newBufferedWriter(summary))) {
+            writer.println("# exit\tmillis\targuments\tmessages");
+
+            for (int i = 0; i < invocations.size(); i++) {
+                var result = results.get(i);
+                if (result.exitCode != 0) {
+                    failed++;
+                }
+
+                writer.println(result.exitCode + "\t" + result.millis + "\t"
+                        + String.join(" ", invocations.get(i)) + "\t"
+                        + result.messages.replace("\n", " | "));
+            }
+
+            writer.println(String.format("# %d invocations, %d failed, %d jobs, %d ms",
+                    invocations.size(), failed, jobs, wallMillis));
+        }
+    }
+}
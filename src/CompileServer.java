@@ -0,0 +1,108 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A long-lived compiler process, so that many small inputs don't each pay for JVM startup,
+ * class loading of the CUP/JFlex runtime and the JIT warm-up.
+ *
+ * Usage:
+ *   serve                  - read requests from stdin, answer on stdout
+ *   serve tcp [port]       - listen on the loopback interface (default port 5555)
+ *   serve unix [path]      - listen on a unix domain socket (default mjavac.sock)
+ *
+ * A request is a single line holding the same arguments the command line accepts, e.g.
+ *   unmarshal compile examples/ast/BinarySearch.java.xml out/BinarySearch.ll
+ * The output file is written exactly as the command line would write it. The answer is whatever
+ * the command line would have printed, followed by a line "END <exit code>"; the stack traces of
+ * errors are part of the answer too, not on the standard error of the server. The request
+ * "shutdown" stops the server.
+ */
+public class CompileServer {
+    public static final String END_OF_RESPONSE = "END";
+    public static final String SHUTDOWN_REQUEST = "shutdown";
+    private static final int DEFAULT_PORT = 5555;
+    private static final String DEFAULT_SOCKET = "mjavac.sock";
+
+    public static void serve(String[] args) throws IOException {
+        if (args.length == 1) {
+            handle(System.in, System.out);
+            return;
+        }
+
+        var transport = args[1];
+        ServerSocketChannel server;
+
+        if (transport.equals("tcp")) {
+            int port = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PORT;
+            server = ServerSocketChannel.open(StandardProtocolFamily.INET);
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } else if (transport.equals("unix")) {
+            var path = Path.of(args.length > 2 ? args[2] : DEFAULT_SOCKET);
+            Files.deleteIfExists(path);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(path));
+        } else {
+            throw new IllegalArgumentException("unknown server transport " + transport);
+        }
+
+        try (server) {
+            boolean shutdown = false;
+            while (!shutdown) {
+                // Clients are served one at a time, each may send any number of requests
+                try (SocketChannel client = server.accept()) {
+                    shutdown = handle(Channels.newInputStream(client), Channels.newOutputStream(client));
+                }
+            }
+        }
+    }
+
+    /**
+     * Serve the requests of a single client until it disconnects or asks for a shutdown.
+     * @return true iff the client requested a shutdown
+     */
+    private static boolean handle(InputStream input, OutputStream output) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        var writer = new PrintStream(output, false, StandardCharsets.UTF_8);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            if (line.equals(SHUTDOWN_REQUEST)) {
+                writer.println(END_OF_RESPONSE + " 0");
+                writer.flush();
+                return true;
+            }
+
+            int exitCode = 0;
+            try {
+                Main.run(line.split("\\s+"), writer, writer);
+            } catch (SyntaxException e) {
+                writer.println(e.getMessage());
+                exitCode = 1;
+            } catch (Exception e) {
+                // Malformed request (e.g. missing arguments) - don't bring the server down
+                writer.println("General error: " + e);
+                e.printStackTrace(writer);
+                exitCode = 1;
+            }
+
+            writer.println(END_OF_RESPONSE + " " + exitCode);
+            writer.flush();
+        }
+
+        return false;
+    }
+}
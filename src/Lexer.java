@@ -10,6 +10,7 @@
 /* USER CODE */
 /*************/
 import java_cup.runtime.*;
+import utils.Symbols;
 
 
 
@@ -907,7 +908,7 @@ int comment_start_line;
             // fall through
           case 58: break;
           case 15:
-            { return symbol(sym.IDENTIFIER, yytext());
+            { return symbol(sym.IDENTIFIER, Symbols.intern(yytext()));
             }
             // fall through
           case 59: break;
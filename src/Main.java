@@ -1,20 +1,174 @@
 import ast.*;
 import codegen.vtable.VTables;
+import semanticanalysis.Diagnostics;
 import semanticanalysis.SemanticException;
 import symboltable.SymbolTable;
+import symboltable.SymbolTableSnapshot;
 import visitor.*;
 
+import utils.PhaseStats;
+import utils.ProgramGenerator;
+import utils.ResultCache;
+import utils.Symbols;
+
 import java.io.*;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 public class Main {
+    private static final String OPTION_PREFIX = "--";
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("serve")) {
+            try {
+                CompileServer.serve(args);
+            } catch (IOException e) {
+                System.out.println("Server error: " + e);
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("batch")) {
+            try {
+                BatchCompiler.batch(args);
+            } catch (IOException e) {
+                System.out.println("Batch error: " + e);
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        try {
+            run(args, System.out);
+        } catch (SyntaxException e) {
+            System.err.print(e.getMessage() + "\n");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run a single compiler invocation (the regular command line arguments).
+     * Options of the form --name=value may appear anywhere among the arguments:
+     *   --stats=<file>       write the time and allocations of each phase, and AST counts, as JSON
+     *   --cache-dir=<dir>    reuse the stored result of an earlier invocation on the same input (see ResultCache),
+     *                        and the symbol table built by an earlier invocation on the same input (see SymbolTableSnapshot)
+     *   --jobs=<n>           build the symbol table, check the types of the classes and generate the code of
+     *                        the methods on n threads (1 by default)
+     *   --semantic-passes=<n>  check the types and the initialization of the variables in 1 traversal of the
+     *                        program or in 2 (the default), for semantic; the errors are the same
+     *   --diagnostics=<file> for semantic, go on checking after an error (within the same expression when its
+     *                        type is known all the same, e.g. after an operand of + that is not an int, otherwise
+     *                        with the next statement, see ValidateTypeVisitor), and write all the errors as JSON,
+     *                        each with its class, method and line (from 1, the line of the expression or the
+     *                        statement in error, or of its declaration for an AST read from XML, see Diagnostics);
+     *                        the first one is reported as usual (the checks then take 2 traversals)
+     * The input method "generate" creates a random valid program instead of reading one, e.g.
+     *   generate print --classes=1000 --depth=20 out.java
+     * see ProgramGenerator.Parameters for its options.
+     * @param args The command line arguments
+     * @param console Where messages that are meant for the user are printed
+     * @throws SyntaxException If the input could not be parsed
+     */
+    public static void run(String[] args, PrintStream console) {
+        run(args, console, System.err);
+    }
+
+    /**
+     * Like run(args, console), with the stack traces of the errors printed to the given stream (e.g. the
+     * answer of CompileServer, rather than its standard error, which the client never sees).
+     */
+    public static void run(String[] args, PrintStream console, PrintStream errors) {
+        // The identifiers of this invocation only, dropped once it is done (see Symbols)
+        var previousSymbols = Symbols.bind(new Symbols());
+        try {
+            runInvocation(args, console, errors);
+        } finally {
+            Symbols.bind(previousSymbols);
+        }
+    }
+
+    private static void runInvocation(String[] args, PrintStream console, PrintStream errors) {
+        var options = new LinkedHashMap<String, String>();
+        var positional = new ArrayList<String>();
+        for (var arg : args) {
+            if (arg.startsWith(OPTION_PREFIX) && arg.contains("=")) {
+                int separator = arg.indexOf('=');
+                options.put(arg.substring(OPTION_PREFIX.length(), separator), arg.substring(separator + 1));
+            } else {
+                positional.add(arg);
+            }
+        }
+        args = positional.toArray(new String[0]);
+
+        String statsFile = options.remove("stats");
+        String cacheDir = options.remove("cache-dir");
+        String jobsOption = options.remove("jobs");
+        int jobs = jobsOption == null ? 1 : Integer.parseInt(jobsOption);
+        String semanticPassesOption = options.remove("semantic-passes");
+        int semanticPasses = semanticPassesOption == null ? 2 : Integer.parseInt(semanticPassesOption);
+        String diagnosticsFile = options.remove("diagnostics");
+        var stats = new PhaseStats();
+
         try {
             var inputMethod = args[0];
             var action = args[1];
             var filename = args[args.length - 2];
             var outfilename = args[args.length - 1];
 
+            ProgramGenerator.Parameters generatorParameters = null;
+            if (inputMethod.equals("generate")) {
+                generatorParameters = ProgramGenerator.Parameters.fromOptions(options);
+            }
+            if (!options.isEmpty()) {
+                throw new IllegalArgumentException("unknown option " + OPTION_PREFIX + options.keySet().iterator().next());
+            }
+            if (semanticPasses != 1 && semanticPasses != 2) {
+                throw new IllegalArgumentException("invalid number of semantic passes " + semanticPasses);
+            }
+
+            stats.put("input", filename);
+            stats.put("inputMethod", inputMethod);
+            stats.put("action", action);
+
+            // The input is hashed once, for the keys of both the result cache and the symbol table snapshot
+            byte[] inputHash = null;
+            if (cacheDir != null && !inputMethod.equals("generate")) {
+                stats.begin("hash-input");
+                inputHash = ResultCache.hashInput(Path.of(filename));
+                stats.end();
+            }
+
+            ResultCache cache = null;
+            // The cache does not keep the diagnostics
+            if (cacheDir != null && diagnosticsFile == null && ResultCache.isCacheable(inputMethod, action)) {
+                stats.begin("cache-lookup");
+                cache = new ResultCache(Path.of(cacheDir), inputMethod, action, inputHash);
+                boolean hit = cache.restore(Path.of(outfilename), console);
+                stats.end();
+                stats.put("cache", hit ? "hit" : "miss");
+
+                if (hit) {
+                    if (statsFile != null) {
+                        stats.write(Path.of(statsFile));
+                    }
+                    return;
+                }
+                console = cache.recording(console);
+            }
+
+            // The symbol table of a program read from a file is cached by the file as well (see buildSymbolTable)
+            Path snapshotEntry = null;
+            if (inputHash != null) {
+                snapshotEntry = SymbolTableSnapshot.entryOf(Path.of(cacheDir), inputMethod, inputHash);
+            }
+
             Program prog;
+            stats.begin(inputMethod);
 
             if (inputMethod.equals("parse")) {
                 Parser p = new Parser(new Lexer(new FileReader(filename)));
@@ -23,56 +177,122 @@ public class Main {
             } else if (inputMethod.equals("unmarshal")) {
                 AstXMLSerializer xmlSerializer = new AstXMLSerializer();
                 prog = xmlSerializer.deserialize(new File(filename));
+
+            } else if (inputMethod.equals("unmarshal-bin")) {
+                AstBinarySerializer binarySerializer = new AstBinarySerializer();
+                prog = binarySerializer.deserialize(new File(filename));
+
+            } else if (inputMethod.equals("generate")) {
+                ProgramGenerator generator = new ProgramGenerator(generatorParameters);
+                AstPrintVisitor astPrinter = new AstPrintVisitor();
+                astPrinter.visit(generator.generate());
+                // Parse the printed program, so the line numbers (which identify methods) match its source
+                Parser p = new Parser(new Lexer(new StringReader(astPrinter.getString())));
+                prog = (Program)(p.parse().value);
             } else {
                 throw new UnsupportedOperationException("unknown input method " + inputMethod);
             }
+            stats.end();
 
             // Create the full directory tree to outfilename
             File file = new File(outfilename);
             file.getParentFile().mkdirs();
 
-            var outFile = new PrintWriter(outfilename);
+            // marshal, marshal-bin and rename write the output file through their serializer
+            boolean textOutput = action.equals("print") || action.equals("semantic") || action.equals("compile");
+            var outFile = textOutput ? new PrintWriter(new BufferedWriter(new FileWriter(outfilename), OUTPUT_BUFFER_SIZE)) : null;
+            var pool = jobs > 1 ? createPool(jobs, stats) : null;
+            boolean completed = false;
             try {
                 if (action.equals("marshal")) {
+                    stats.begin("marshal");
                     AstXMLSerializer xmlSerializer = new AstXMLSerializer();
                     xmlSerializer.serialize(prog, outfilename);
 
+                } else if (action.equals("marshal-bin")) {
+                    stats.begin("marshal-bin");
+                    AstBinarySerializer binarySerializer = new AstBinarySerializer();
+                    binarySerializer.serialize(prog, outfilename);
+
                 } else if (action.equals("print")) {
-                    AstPrintVisitor astPrinter = new AstPrintVisitor();
+                    stats.begin("print");
+                    AstPrintVisitor astPrinter = new AstPrintVisitor(outFile);
                     astPrinter.visit(prog);
-                    outFile.write(astPrinter.getString());
+                    stats.begin("write-output");
+                    outFile.flush();
 
                 } else if (action.equals("semantic")) {
+                    var diagnostics = diagnosticsFile != null ? new Diagnostics() : null;
                     try {
-                        BuildClassHierarchyVisitor buildClassHierarchyVisitor = new BuildClassHierarchyVisitor();
-                        buildClassHierarchyVisitor.visit(prog);
-                        SymbolTable symbolTable = buildClassHierarchyVisitor.getSymbolTable();
+                        SymbolTable symbolTable = buildSymbolTable(prog, snapshotEntry, pool, stats);
 
-                        ValidateTypeVisitor validateTypeVisitor = new ValidateTypeVisitor(symbolTable);
-                        validateTypeVisitor.visit(prog);
+                        if (semanticPasses == 1 && diagnostics == null) {
+                            // The same checks, and the same first error, in a single traversal
+                            stats.begin("validate");
+                            ValidateTypeVisitor validateVisitor = new ValidateTypeVisitor(symbolTable, true, pool);
+                            validateVisitor.visit(prog);
+                        } else {
+                            stats.begin("validate-type");
+                            ValidateTypeVisitor validateTypeVisitor = new ValidateTypeVisitor(symbolTable, false, pool, diagnostics);
+                            validateTypeVisitor.visit(prog);
+
+                            stats.begin("validate-init");
+                            ValidateInitVisitor validateInitVisitor = new ValidateInitVisitor(symbolTable, diagnostics);
+                            validateInitVisitor.visit(prog);
+                        }
 
-                        ValidateInitVisitor validateInitVisitor = new ValidateInitVisitor(symbolTable);
-                        validateInitVisitor.visit(prog);
+                        if (diagnostics != null && !diagnostics.isEmpty()) {
+                            // The type errors come first, as when the first error is thrown
+                            throw diagnostics.getAll().get(0).exception();
+                        }
 
+                        stats.begin("write-output");
                         outFile.write("OK\n");
                     }
 
                     catch (SemanticException e){
-                        System.out.println(String.format("ERROR: %s, Message: %s",
+                        if (diagnostics != null && diagnostics.isEmpty()) {
+                            // The class hierarchy is invalid, so nothing could be checked after it
+                            diagnostics.report(e, null, null, null);
+                        }
+                        stats.begin("write-output");
+                        console.println(String.format("ERROR: %s, Message: %s",
                                 e.getErrorCode().name(),
                                 e.getMessage()));
                         outFile.write("ERROR\n");
                     }
+                    outFile.flush();
+
+                    if (diagnostics != null) {
+                        stats.begin("write-diagnostics");
+                        diagnostics.write(Path.of(diagnosticsFile), filename);
+                    }
 
                 } else if (action.equals("compile")) {
-                    BuildClassHierarchyVisitor buildClassHierarchyVisitor = new BuildClassHierarchyVisitor();
-                    buildClassHierarchyVisitor.visit(prog);
-                    SymbolTable symbolTable = buildClassHierarchyVisitor.getSymbolTable();
+                    try {
+                        SymbolTable symbolTable = buildSymbolTable(prog, snapshotEntry, pool, stats);
 
-                    VTables vTables = VTables.createVTables(symbolTable);
-                    LLVMGeneratorVisitor llvmGeneratorVisitor = new LLVMGeneratorVisitor(vTables, symbolTable);
-                    llvmGeneratorVisitor.visit(prog);
-                    outFile.write(llvmGeneratorVisitor.getString());
+                        // The code generation reads the static types of the expressions, which the type check
+                        // stores: a program that does not type check is reported as by semantic, and not compiled
+                        stats.begin("validate-type");
+                        ValidateTypeVisitor validateTypeVisitor = new ValidateTypeVisitor(symbolTable, false, pool);
+                        validateTypeVisitor.visit(prog);
+
+                        stats.begin("create-vtables");
+                        VTables vTables = VTables.createVTables(symbolTable);
+
+                        stats.begin("llvm-generate");
+                        LLVMGeneratorVisitor llvmGeneratorVisitor = new LLVMGeneratorVisitor(vTables, symbolTable, outFile, pool);
+                        llvmGeneratorVisitor.visit(prog);
+                    }
+
+                    catch (SemanticException e){
+                        console.println(String.format("ERROR: %s, Message: %s",
+                                e.getErrorCode().name(),
+                                e.getMessage()));
+                    }
+                    stats.begin("write-output");
+                    outFile.flush();
 
                 } else if (action.equals("rename")) {
                     var type = args[2];
@@ -89,10 +309,9 @@ public class Main {
                         throw new IllegalArgumentException("unknown rename type " + type);
                     }
 
-                    BuildClassHierarchyVisitor buildClassHierarchyVisitor = new BuildClassHierarchyVisitor();
-                    buildClassHierarchyVisitor.visit(prog);
-                    SymbolTable symbolTable = buildClassHierarchyVisitor.getSymbolTable();
+                    SymbolTable symbolTable = buildSymbolTable(prog, snapshotEntry, pool, stats);
 
+                    stats.begin("rename");
                     if (isMethod) {
                         MethodRenameVisitor methodRenameVisitor = new MethodRenameVisitor(newName, symbolTable, originalName, originalLine);
                         methodRenameVisitor.visit(prog);
@@ -102,23 +321,101 @@ public class Main {
                         variableRenameVisitor.visit(prog);
                     }
 
+                    stats.begin("marshal");
                     AstXMLSerializer xmlSerializer = new AstXMLSerializer();
                     xmlSerializer.serialize(prog, outfilename);
 
                 } else {
                     throw new IllegalArgumentException("unknown command line action " + action);
                 }
+                completed = true;
             } finally {
-                outFile.flush();
-                outFile.close();
+                if (pool != null) {
+                    pool.shutdownNow();
+                }
+                if (outFile != null) {
+                    outFile.close();
+                    if (!completed) {
+                        // The output is written as it is generated; a failed action leaves an empty file, not a partial one
+                        new FileOutputStream(outfilename).close();
+                    }
+                }
+            }
+            if (outFile != null && outFile.checkError()) {
+                throw new IOException("Error writing file: " + outfilename);
+            }
+            stats.end();
+
+            if (cache != null) {
+                stats.begin("cache-store");
+                cache.store(Path.of(outfilename));
+                stats.end();
             }
 
+            if (statsFile != null) {
+                AstCountVisitor astCounter = new AstCountVisitor();
+                astCounter.visit(prog);
+
+                stats.put("nodes", astCounter.getNodes());
+                stats.put("classes", astCounter.getClasses());
+                stats.put("methods", astCounter.getMethods());
+                stats.write(Path.of(statsFile));
+            }
+
+        } catch (SyntaxException e) {
+            throw e;
         } catch (FileNotFoundException e) {
-            System.out.println("Error reading file: " + e);
-            e.printStackTrace();
+            console.println("Error reading file: " + e);
+            e.printStackTrace(errors);
         } catch (Exception e) {
-            System.out.println("General error: " + e);
-            e.printStackTrace();
+            console.println("General error: " + e);
+            e.printStackTrace(errors);
+        }
+    }
+
+    /**
+     * The pool of the --jobs threads of a single invocation. Its workers use the invocation's symbols and
+     * are counted in the stats, as each of them starts.
+     */
+    private static ForkJoinPool createPool(int jobs, PhaseStats stats) {
+        var symbols = Symbols.current();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> new ForkJoinWorkerThread(pool) {
+            @Override
+            protected void onStart() {
+                super.onStart();
+                Symbols.bind(symbols);
+                stats.addThread(this);
+            }
+        };
+        return new ForkJoinPool(jobs, factory, null, false);
+    }
+
+    /**
+     * Build the symbol table of the program (binding the uses of its variables). With an entry of the
+     * snapshot cache, restore the snapshot stored there if there is one, otherwise store one once built.
+     * @throws SemanticException If the class hierarchy is invalid
+     */
+    private static SymbolTable buildSymbolTable(Program prog, Path snapshotEntry, ForkJoinPool pool,
+                                                PhaseStats stats) throws IOException {
+        if (snapshotEntry != null) {
+            stats.begin("restore-symbol-table");
+            var snapshot = SymbolTableSnapshot.load(snapshotEntry);
+            var restored = snapshot == null ? null : snapshot.restore(prog);
+            stats.put("symbolTableCache", restored != null ? "hit" : "miss");
+            if (restored != null) {
+                return restored;
+            }
+        }
+
+        stats.begin("build-class-hierarchy");
+        BuildClassHierarchyVisitor buildClassHierarchyVisitor = new BuildClassHierarchyVisitor(pool);
+        buildClassHierarchyVisitor.visit(prog);
+        SymbolTable symbolTable = buildClassHierarchyVisitor.getSymbolTable();
+
+        if (snapshotEntry != null) {
+            stats.begin("store-symbol-table");
+            SymbolTableSnapshot.capture(prog, symbolTable).store(snapshotEntry);
         }
+        return symbolTable;
     }
 }
@@ -116,94 +116,94 @@ public class Parser extends java_cup.runtime.lr_parser {
     "\031\053\032\070\001\002\000\030\017\uffea\021\uffea\022" +
     "\uffea\023\uffea\024\uffea\025\uffea\026\uffea\027\uffea\031\uffea" +
     "\032\uffea\034\uffea\001\002\000\030\017\054\021\uffee\022" +
-    "\uffee\023\uffee\024\uffee\025\046\026\uffee\027\uffee\031\uffee" +
+    "\uffee\023\uffee\024\uffee\025\046\026\uffee\027\uffee\031\053" +
     "\032\uffee\034\uffee\001\002\000\030\017\054\021\uffef\022" +
-    "\uffef\023\uffef\024\uffef\025\046\026\uffef\027\uffef\031\uffef" +
-    "\032\uffef\034\uffef\001\002\000\026\017\054\021\uffeb\022" +
-    "\uffeb\023\051\024\052\025\046\026\045\031\uffeb\032\uffeb" +
-    "\034\uffeb\001\002\000\030\017\054\021\uffed\022\uffed\023" +
-    "\uffed\024\uffed\025\uffed\026\uffed\027\uffed\031\uffed\032\uffed" +
-    "\034\uffed\001\002\000\030\017\054\021\uffec\022\uffec\023" +
-    "\051\024\052\025\046\026\uffec\027\uffec\031\uffec\032\uffec" +
-    "\034\uffec\001\002\000\030\017\054\021\uffe0\022\uffe0\023" +
-    "\uffe0\024\uffe0\025\uffe0\026\uffe0\027\uffe0\031\uffe0\032\uffe0" +
-    "\034\uffe0\001\002\000\004\033\104\001\002\000\004\031" +
-    "\101\001\002\000\022\013\036\014\037\015\040\016\035" +
-    "\030\042\033\043\050\041\051\033\001\002\000\022\017" +
-    "\054\023\051\024\052\025\046\026\045\027\050\031\053" +
-    "\032\103\001\002\000\030\017\uffe2\021\uffe2\022\uffe2\023" +
-    "\uffe2\024\uffe2\025\uffe2\026\uffe2\027\uffe2\031\uffe2\032\uffe2" +
-    "\034\uffe2\001\002\000\004\034\105\001\002\000\030\017" +
-    "\uffe1\021\uffe1\022\uffe1\023\uffe1\024\uffe1\025\uffe1\026\uffe1" +
-    "\027\uffe1\031\uffe1\032\uffe1\034\uffe1\001\002\000\014\011" +
-    "\024\035\025\045\031\046\030\050\027\001\002\000\004" +
-    "\047\110\001\002\000\014\011\024\035\025\045\031\046" +
-    "\030\050\027\001\002\000\022\011\ufff6\012\ufff6\035\ufff6" +
-    "\036\ufff6\045\ufff6\046\ufff6\047\ufff6\050\ufff6\001\002\000" +
+    "\uffef\023\uffef\024\uffef\025\046\026\uffef\027\uffef\031\053" +
+    "\032\uffef\034\uffef\001\002\000\030\017\054\021\uffeb\022" +
+    "\uffeb\023\051\024\052\025\046\026\045\027\uffeb\031\053" +
+    "\032\uffeb\034\uffeb\001\002\000\030\017\054\021\uffed\022" +
+    "\uffed\023\uffed\024\uffed\025\uffed\026\uffed\027\uffed\031\053" +
+    "\032\uffed\034\uffed\001\002\000\030\017\054\021\uffec\022" +
+    "\uffec\023\051\024\052\025\046\026\uffec\027\uffec\031\053" +
+    "\032\uffec\034\uffec\001\002\000\030\017\054\021\uffe0\022" +
+    "\uffe0\023\uffe0\024\uffe0\025\uffe0\026\uffe0\027\uffe0\031\053" +
+    "\032\uffe0\034\uffe0\001\002\000\004\033\104\001\002\000" +
+    "\004\031\101\001\002\000\022\013\036\014\037\015\040" +
+    "\016\035\030\042\033\043\050\041\051\033\001\002\000" +
+    "\022\017\054\023\051\024\052\025\046\026\045\027\050" +
+    "\031\053\032\103\001\002\000\030\017\uffe2\021\uffe2\022" +
+    "\uffe2\023\uffe2\024\uffe2\025\uffe2\026\uffe2\027\uffe2\031\uffe2" +
+    "\032\uffe2\034\uffe2\001\002\000\004\034\105\001\002\000" +
+    "\030\017\uffe1\021\uffe1\022\uffe1\023\uffe1\024\uffe1\025\uffe1" +
+    "\026\uffe1\027\uffe1\031\uffe1\032\uffe1\034\uffe1\001\002\000" +
+    "\014\011\024\035\025\045\031\046\030\050\027\001\002" +
+    "\000\004\047\110\001\002\000\014\011\024\035\025\045" +
+    "\031\046\030\050\027\001\002\000\022\011\ufff6\012\ufff6" +
+    "\035\ufff6\036\ufff6\045\ufff6\046\ufff6\047\ufff6\050\ufff6\001" +
+    "\002\000\022\013\036\014\037\015\040\016\035\030\042" +
+    "\033\043\050\041\051\033\001\002\000\022\017\054\023" +
+    "\051\024\052\025\046\026\045\027\050\031\053\034\114" +
+    "\001\002\000\014\011\024\035\025\045\031\046\030\050" +
+    "\027\001\002\000\022\011\ufff3\012\ufff3\035\ufff3\036\ufff3" +
+    "\045\ufff3\046\ufff3\047\ufff3\050\ufff3\001\002\000\022\013" +
+    "\036\014\037\015\040\016\035\030\042\033\043\050\041" +
+    "\051\033\001\002\000\022\013\036\014\037\015\040\016" +
+    "\035\030\042\033\043\050\041\051\033\001\002\000\022" +
+    "\017\054\022\121\023\051\024\052\025\046\026\045\027" +
+    "\050\031\053\001\002\000\022\011\ufff7\012\ufff7\035\ufff7" +
+    "\036\ufff7\045\ufff7\046\ufff7\047\ufff7\050\ufff7\001\002\000" +
+    "\022\017\054\023\051\024\052\025\046\026\045\027\050" +
+    "\031\053\032\123\001\002\000\004\037\124\001\002\000" +
     "\022\013\036\014\037\015\040\016\035\030\042\033\043" +
-    "\050\041\051\033\001\002\000\022\017\054\023\051\024" +
-    "\052\025\046\026\045\027\050\031\053\034\114\001\002" +
-    "\000\014\011\024\035\025\045\031\046\030\050\027\001" +
-    "\002\000\022\011\ufff3\012\ufff3\035\ufff3\036\ufff3\045\ufff3" +
-    "\046\ufff3\047\ufff3\050\ufff3\001\002\000\022\013\036\014" +
+    "\050\041\051\033\001\002\000\022\017\054\022\126\023" +
+    "\051\024\052\025\046\026\045\027\050\031\053\001\002" +
+    "\000\022\011\ufff4\012\ufff4\035\ufff4\036\ufff4\045\ufff4\046" +
+    "\ufff4\047\ufff4\050\ufff4\001\002\000\004\036\130\001\002" +
+    "\000\006\002\uffff\043\uffff\001\002\000\004\036\134\001" +
+    "\002\000\020\011\024\012\ufff0\035\025\036\ufff0\045\031" +
+    "\046\030\050\027\001\002\000\006\012\ufff1\036\ufff1\001" +
+    "\002\000\022\011\ufff2\012\ufff2\035\ufff2\036\ufff2\045\ufff2" +
+    "\046\ufff2\047\ufff2\050\ufff2\001\002\000\022\013\036\014" +
     "\037\015\040\016\035\030\042\033\043\050\041\051\033" +
-    "\001\002\000\022\013\036\014\037\015\040\016\035\030" +
-    "\042\033\043\050\041\051\033\001\002\000\022\017\054" +
-    "\022\121\023\051\024\052\025\046\026\045\027\050\031" +
-    "\053\001\002\000\022\011\ufff7\012\ufff7\035\ufff7\036\ufff7" +
-    "\045\ufff7\046\ufff7\047\ufff7\050\ufff7\001\002\000\022\017" +
-    "\054\023\051\024\052\025\046\026\045\027\050\031\053" +
-    "\032\123\001\002\000\004\037\124\001\002\000\022\013" +
-    "\036\014\037\015\040\016\035\030\042\033\043\050\041" +
-    "\051\033\001\002\000\022\017\054\022\126\023\051\024" +
-    "\052\025\046\026\045\027\050\031\053\001\002\000\022" +
-    "\011\ufff4\012\ufff4\035\ufff4\036\ufff4\045\ufff4\046\ufff4\047" +
-    "\ufff4\050\ufff4\001\002\000\004\036\130\001\002\000\006" +
-    "\002\uffff\043\uffff\001\002\000\004\036\134\001\002\000" +
-    "\020\011\024\012\ufff0\035\025\036\ufff0\045\031\046\030" +
-    "\050\027\001\002\000\006\012\ufff1\036\ufff1\001\002\000" +
-    "\022\011\ufff2\012\ufff2\035\ufff2\036\ufff2\045\ufff2\046\ufff2" +
-    "\047\ufff2\050\ufff2\001\002\000\022\013\036\014\037\015" +
-    "\040\016\035\030\042\033\043\050\041\051\033\001\002" +
-    "\000\022\017\054\023\051\024\052\025\046\026\045\027" +
-    "\050\031\053\034\137\001\002\000\004\022\140\001\002" +
-    "\000\022\011\ufff5\012\ufff5\035\ufff5\036\ufff5\045\ufff5\046" +
-    "\ufff5\047\ufff5\050\ufff5\001\002\000\006\002\000\043\143" +
-    "\001\002\000\006\002\ufffe\043\ufffe\001\002\000\004\050" +
-    "\144\001\002\000\006\035\145\044\146\001\002\000\014" +
-    "\004\uffd8\036\uffd8\040\uffd8\041\uffd8\050\uffd8\001\002\000" +
-    "\004\050\147\001\002\000\004\035\150\001\002\000\014" +
-    "\004\uffd8\036\uffd8\040\uffd8\041\uffd8\050\uffd8\001\002\000" +
-    "\014\004\157\036\ufff9\040\161\041\160\050\155\001\002" +
-    "\000\004\050\212\001\002\000\004\036\211\001\002\000" +
-    "\026\004\uffd9\011\uffd9\012\uffd9\035\uffd9\036\uffd9\040\uffd9" +
-    "\041\uffd9\045\uffd9\046\uffd9\050\uffd9\001\002\000\004\050" +
-    "\uffdc\001\002\000\006\004\157\036\ufff9\001\002\000\010" +
-    "\040\161\041\160\050\155\001\002\000\006\031\162\050" +
-    "\uffde\001\002\000\004\050\uffdd\001\002\000\004\032\163" +
-    "\001\002\000\004\050\uffdb\001\002\000\004\050\165\001" +
-    "\002\000\004\033\167\001\002\000\004\035\200\001\002" +
-    "\000\012\034\171\040\161\041\160\050\155\001\002\000" +
-    "\004\050\177\001\002\000\004\035\uffd0\001\002\000\006" +
-    "\021\174\034\175\001\002\000\006\021\uffd2\034\uffd2\001" +
-    "\002\000\010\040\161\041\160\050\155\001\002\000\004" +
-    "\035\uffcf\001\002\000\006\021\uffd1\034\uffd1\001\002\000" +
-    "\006\021\uffd3\034\uffd3\001\002\000\022\011\uffd8\012\uffd8" +
-    "\035\uffd8\040\uffd8\041\uffd8\045\uffd8\046\uffd8\050\uffd8\001" +
-    "\002\000\022\011\024\012\ufff0\035\025\040\161\041\160" +
-    "\045\031\046\030\050\203\001\002\000\004\012\204\001" +
-    "\002\000\010\031\116\037\117\050\uffdc\001\002\000\022" +
-    "\013\036\014\037\015\040\016\035\030\042\033\043\050" +
-    "\041\051\033\001\002\000\022\017\054\022\206\023\051" +
-    "\024\052\025\046\026\045\027\050\031\053\001\002\000" +
-    "\004\036\207\001\002\000\006\004\ufff8\036\ufff8\001\002" +
-    "\000\004\036\ufffa\001\002\000\006\002\ufffb\043\ufffb\001" +
-    "\002\000\004\022\213\001\002\000\026\004\uffda\011\uffda" +
-    "\012\uffda\035\uffda\036\uffda\040\uffda\041\uffda\045\uffda\046" +
-    "\uffda\050\uffda\001\002\000\014\004\157\036\ufff9\040\161" +
-    "\041\160\050\155\001\002\000\004\036\216\001\002\000" +
-    "\006\002\ufffc\043\ufffc\001\002\000\004\002\001\001\002" +
-    "" });
+    "\001\002\000\022\017\054\023\051\024\052\025\046\026" +
+    "\045\027\050\031\053\034\137\001\002\000\004\022\140" +
+    "\001\002\000\022\011\ufff5\012\ufff5\035\ufff5\036\ufff5\045" +
+    "\ufff5\046\ufff5\047\ufff5\050\ufff5\001\002\000\006\002\000" +
+    "\043\143\001\002\000\006\002\ufffe\043\ufffe\001\002\000" +
+    "\004\050\144\001\002\000\006\035\145\044\146\001\002" +
+    "\000\014\004\uffd8\036\uffd8\040\uffd8\041\uffd8\050\uffd8\001" +
+    "\002\000\004\050\147\001\002\000\004\035\150\001\002" +
+    "\000\014\004\uffd8\036\uffd8\040\uffd8\041\uffd8\050\uffd8\001" +
+    "\002\000\014\004\157\036\ufff9\040\161\041\160\050\155" +
+    "\001\002\000\004\050\212\001\002\000\004\036\211\001" +
+    "\002\000\026\004\uffd9\011\uffd9\012\uffd9\035\uffd9\036\uffd9" +
+    "\040\uffd9\041\uffd9\045\uffd9\046\uffd9\050\uffd9\001\002\000" +
+    "\004\050\uffdc\001\002\000\006\004\157\036\ufff9\001\002" +
+    "\000\010\040\161\041\160\050\155\001\002\000\006\031" +
+    "\162\050\uffde\001\002\000\004\050\uffdd\001\002\000\004" +
+    "\032\163\001\002\000\004\050\uffdb\001\002\000\004\050" +
+    "\165\001\002\000\004\033\167\001\002\000\004\035\200" +
+    "\001\002\000\012\034\171\040\161\041\160\050\155\001" +
+    "\002\000\004\050\177\001\002\000\004\035\uffd0\001\002" +
+    "\000\006\021\174\034\175\001\002\000\006\021\uffd2\034" +
+    "\uffd2\001\002\000\010\040\161\041\160\050\155\001\002" +
+    "\000\004\035\uffcf\001\002\000\006\021\uffd1\034\uffd1\001" +
+    "\002\000\006\021\uffd3\034\uffd3\001\002\000\022\011\uffd8" +
+    "\012\uffd8\035\uffd8\040\uffd8\041\uffd8\045\uffd8\046\uffd8\050" +
+    "\uffd8\001\002\000\022\011\024\012\ufff0\035\025\040\161" +
+    "\041\160\045\031\046\030\050\203\001\002\000\004\012" +
+    "\204\001\002\000\010\031\116\037\117\050\uffdc\001\002" +
+    "\000\022\013\036\014\037\015\040\016\035\030\042\033" +
+    "\043\050\041\051\033\001\002\000\022\017\054\022\206" +
+    "\023\051\024\052\025\046\026\045\027\050\031\053\001" +
+    "\002\000\004\036\207\001\002\000\006\004\ufff8\036\ufff8" +
+    "\001\002\000\004\036\ufffa\001\002\000\006\002\ufffb\043" +
+    "\ufffb\001\002\000\004\022\213\001\002\000\026\004\uffda" +
+    "\011\uffda\012\uffda\035\uffda\036\uffda\040\uffda\041\uffda\045" +
+    "\uffda\046\uffda\050\uffda\001\002\000\014\004\157\036\ufff9" +
+    "\040\161\041\160\050\155\001\002\000\004\036\216\001" +
+    "\002\000\006\002\ufffc\043\ufffc\001\002\000\004\002\001" +
+    "\001\002" });
 
   /** Access to parse-action table. */
   public short[][] action_table() {return _action_table;}
@@ -309,7 +309,7 @@ public class Parser extends java_cup.runtime.lr_parser {
 	Symbol s;
     try {
 	s = lexer.next_token();
-	// System.out.print(s.sym);
+	// System.err.print(s.sym);
 	// System.out.print("[");
 	// System.out.print(lexer.getLine());
 	// System.out.print(":");
@@ -325,9 +325,7 @@ public class Parser extends java_cup.runtime.lr_parser {
 	// System.out.print("\n");
 	return s;
      } catch (java.lang.Error e) {
-         System.err.print("Syntax error at line " + lexer.getLine() + " of input.\n");
-         System.exit(1);
-         return null;
+         throw new SyntaxException(lexer.getLine());
      }
 
     }
@@ -344,14 +342,22 @@ public class Parser extends java_cup.runtime.lr_parser {
 	// Override default error reporting in parser
 	public void report_error(String message, Object info)
 	{
-	    System.err.print("Syntax error at line " + lexer.getLine() + " of input.\n");
-		System.exit(1);
+		throw new SyntaxException(lexer.getLine());
 	}
 
 
 /** Cup generated class to encapsulate user supplied action code.*/
 @SuppressWarnings({"rawtypes", "unchecked", "unused"})
 class CUP$Parser$actions {
+
+
+	// Set the line of a statement or an expression (see AstNode.line)
+	private static <T extends AstNode> T at(T node, int line)
+	{
+		node.setLine(line);
+		return node;
+	}
+
   private final Parser parser;
 
   /** Constructor */
@@ -547,7 +553,7 @@ class CUP$Parser$actions {
 		int exprleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).left;
 		int exprright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).right;
 		Expr expr = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-1)).value;
-		 RESULT = new AssignStatement(lv, expr); 
+		 RESULT = at(new AssignStatement(lv, expr), lvleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Statement",4, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-3)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -556,6 +562,9 @@ class CUP$Parser$actions {
           case 11: // Statement ::= IF LPAREN Expr RPAREN Statement ELSE Statement 
             {
               Statement RESULT =null;
+		int kwleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-6)).left;
+		int kwright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-6)).right;
+		Object kw = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-6)).value;
 		int condleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-4)).left;
 		int condright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-4)).right;
 		Expr cond = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-4)).value;
@@ -565,7 +574,7 @@ class CUP$Parser$actions {
 		int elsecaseleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
 		int elsecaseright = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
 		Statement elsecase = (Statement)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
-		 RESULT = new IfStatement(cond, thencase, elsecase); 
+		 RESULT = at(new IfStatement(cond, thencase, elsecase), kwleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Statement",4, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-6)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -574,10 +583,13 @@ class CUP$Parser$actions {
           case 12: // Statement ::= PRINT LPAREN Expr RPAREN SEMICOLON 
             {
               Statement RESULT =null;
+		int kwleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-4)).left;
+		int kwright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-4)).right;
+		Object kw = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-4)).value;
 		int argleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).left;
 		int argright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).right;
 		Expr arg = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-2)).value;
-		 RESULT = new SysoutStatement(arg); 
+		 RESULT = at(new SysoutStatement(arg), kwleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Statement",4, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-4)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -595,7 +607,7 @@ class CUP$Parser$actions {
 		int rvleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).left;
 		int rvright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).right;
 		Expr rv = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-1)).value;
-		 RESULT = new AssignArrayStatement(lv, index, rv); 
+		 RESULT = at(new AssignArrayStatement(lv, index, rv), lvleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Statement",4, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-6)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -604,13 +616,16 @@ class CUP$Parser$actions {
           case 14: // Statement ::= WHILE LPAREN Expr RPAREN Statement 
             {
               Statement RESULT =null;
+		int kwleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-4)).left;
+		int kwright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-4)).right;
+		Object kw = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-4)).value;
 		int condleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).left;
 		int condright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).right;
 		Expr cond = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-2)).value;
 		int bodyleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
 		int bodyright = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
 		Statement body = (Statement)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
-		 RESULT = new WhileStatement(cond, body); 
+		 RESULT = at(new WhileStatement(cond, body), kwleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Statement",4, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-4)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -619,10 +634,13 @@ class CUP$Parser$actions {
           case 15: // Statement ::= LCURL StatementsList RCURL 
             {
               Statement RESULT =null;
+		int kwleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).left;
+		int kwright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).right;
+		Object kw = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-2)).value;
 		int statementsleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).left;
 		int statementsright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).right;
 		List<Statement> statements = (List<Statement>)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-1)).value;
-		 RESULT = new BlockStatement(statements); 
+		 RESULT = at(new BlockStatement(statements), kwleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Statement",4, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -658,10 +676,13 @@ class CUP$Parser$actions {
 		int e1left = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).left;
 		int e1right = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).right;
 		Expr e1 = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-2)).value;
+		int opleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).left;
+		int opright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).right;
+		Object op = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-1)).value;
 		int e2left = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
 		int e2right = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
 		Expr e2 = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
-		 RESULT = new AddExpr(e1, e2); 
+		 RESULT = at(new AddExpr(e1, e2), opleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -673,10 +694,13 @@ class CUP$Parser$actions {
 		int e1left = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).left;
 		int e1right = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).right;
 		Expr e1 = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-2)).value;
+		int opleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).left;
+		int opright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).right;
+		Object op = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-1)).value;
 		int e2left = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
 		int e2right = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
 		Expr e2 = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
-		 RESULT = new SubtractExpr(e1, e2); 
+		 RESULT = at(new SubtractExpr(e1, e2), opleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -688,10 +712,13 @@ class CUP$Parser$actions {
 		int e1left = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).left;
 		int e1right = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).right;
 		Expr e1 = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-2)).value;
+		int opleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).left;
+		int opright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).right;
+		Object op = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-1)).value;
 		int e2left = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
 		int e2right = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
 		Expr e2 = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
-		 RESULT = new MultExpr(e1, e2); 
+		 RESULT = at(new MultExpr(e1, e2), opleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -703,10 +730,13 @@ class CUP$Parser$actions {
 		int e1left = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).left;
 		int e1right = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).right;
 		Expr e1 = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-2)).value;
+		int opleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).left;
+		int opright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).right;
+		Object op = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-1)).value;
 		int e2left = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
 		int e2right = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
 		Expr e2 = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
-		 RESULT = new LtExpr(e1, e2); 
+		 RESULT = at(new LtExpr(e1, e2), opleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -718,10 +748,13 @@ class CUP$Parser$actions {
 		int e1left = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).left;
 		int e1right = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).right;
 		Expr e1 = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-2)).value;
+		int opleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).left;
+		int opright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).right;
+		Object op = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-1)).value;
 		int e2left = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
 		int e2right = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
 		Expr e2 = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
-		 RESULT = new AndExpr(e1, e2); 
+		 RESULT = at(new AndExpr(e1, e2), opleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -733,10 +766,13 @@ class CUP$Parser$actions {
 		int arrayExprleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-3)).left;
 		int arrayExprright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-3)).right;
 		Expr arrayExpr = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-3)).value;
+		int opleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).left;
+		int opright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).right;
+		Object op = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-2)).value;
 		int indexExprleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).left;
 		int indexExprright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).right;
 		Expr indexExpr = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-1)).value;
-		 RESULT = new ArrayAccessExpr(arrayExpr, indexExpr); 
+		 RESULT = at(new ArrayAccessExpr(arrayExpr, indexExpr), opleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-3)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -748,7 +784,10 @@ class CUP$Parser$actions {
 		int arrayExprleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).left;
 		int arrayExprright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).right;
 		Expr arrayExpr = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-2)).value;
-		 RESULT = new ArrayLengthExpr(arrayExpr); 
+		int opleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
+		int opright = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
+		Object op = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
+		 RESULT = at(new ArrayLengthExpr(arrayExpr), opleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -766,7 +805,7 @@ class CUP$Parser$actions {
 		int actualsleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
 		int actualsright = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
 		List<Expr> actuals = (List<Expr>)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
-		 RESULT = new MethodCallExpr(ownerExpr, methodId, actuals); 
+		 RESULT = at(new MethodCallExpr(ownerExpr, methodId, actuals), methodIdleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-3)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -778,7 +817,7 @@ class CUP$Parser$actions {
 		int numleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
 		int numright = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
 		Integer num = (Integer)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
-		 RESULT = new IntegerLiteralExpr(num.intValue()); 
+		 RESULT = at(new IntegerLiteralExpr(num.intValue()), numleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -787,7 +826,10 @@ class CUP$Parser$actions {
           case 27: // Expr ::= TRUE 
             {
               Expr RESULT =null;
-		 RESULT = new TrueExpr(); 
+		int kwleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
+		int kwright = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
+		Object kw = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
+		 RESULT = at(new TrueExpr(), kwleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -796,7 +838,10 @@ class CUP$Parser$actions {
           case 28: // Expr ::= FALSE 
             {
               Expr RESULT =null;
-		 RESULT = new FalseExpr(); 
+		int kwleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
+		int kwright = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
+		Object kw = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
+		 RESULT = at(new FalseExpr(), kwleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -808,7 +853,7 @@ class CUP$Parser$actions {
 		int idleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
 		int idright = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
 		String id = (String)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
-		 RESULT = new IdentifierExpr(id); 
+		 RESULT = at(new IdentifierExpr(id), idleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -817,7 +862,10 @@ class CUP$Parser$actions {
           case 30: // Expr ::= THIS 
             {
               Expr RESULT =null;
-		 RESULT = new ThisExpr(); 
+		int kwleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
+		int kwright = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
+		Object kw = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
+		 RESULT = at(new ThisExpr(), kwleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -826,10 +874,13 @@ class CUP$Parser$actions {
           case 31: // Expr ::= NEW INT_TYPE LBRACKET Expr RBRACKET 
             {
               Expr RESULT =null;
+		int kwleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-4)).left;
+		int kwright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-4)).right;
+		Object kw = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-4)).value;
 		int lengthExprleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).left;
 		int lengthExprright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)).right;
 		Expr lengthExpr = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-1)).value;
-		 RESULT = new NewIntArrayExpr(lengthExpr); 
+		 RESULT = at(new NewIntArrayExpr(lengthExpr), kwleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-4)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -838,10 +889,13 @@ class CUP$Parser$actions {
           case 32: // Expr ::= NEW IDENTIFIER LPAREN RPAREN 
             {
               Expr RESULT =null;
+		int kwleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-3)).left;
+		int kwright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-3)).right;
+		Object kw = (Object)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-3)).value;
 		int classIdleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).left;
 		int classIdright = ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-2)).right;
 		String classId = (String)((java_cup.runtime.Symbol) CUP$Parser$stack.elementAt(CUP$Parser$top-2)).value;
-		 RESULT = new NewObjectExpr(classId); 
+		 RESULT = at(new NewObjectExpr(classId), kwleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-3)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
@@ -856,7 +910,7 @@ class CUP$Parser$actions {
 		int eleft = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).left;
 		int eright = ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()).right;
 		Expr e = (Expr)((java_cup.runtime.Symbol) CUP$Parser$stack.peek()).value;
-		 RESULT = new NotExpr(e); 
+		 RESULT = at(new NotExpr(e), notleft); 
               CUP$Parser$result = parser.getSymbolFactory().newSymbol("Expr",7, ((java_cup.runtime.Symbol)CUP$Parser$stack.elementAt(CUP$Parser$top-1)), ((java_cup.runtime.Symbol)CUP$Parser$stack.peek()), RESULT);
             }
           return CUP$Parser$result;
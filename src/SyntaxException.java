@@ -0,0 +1,16 @@
+/**
+ * Thrown by the lexer/parser on malformed input, instead of terminating the JVM,
+ * so that long-lived drivers (e.g. the compile server) can report it and continue.
+ */
+public class SyntaxException extends RuntimeException {
+    private final int line;
+
+    public SyntaxException(int line) {
+        super("Syntax error at line " + line + " of input.");
+        this.line = line;
+    }
+
+    public int getLine() {
+        return line;
+    }
+}
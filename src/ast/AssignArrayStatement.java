@@ -1,23 +1,34 @@
 package ast;
 
+import symboltable.Variable;
+import utils.Symbols;
 import visitor.Visitor;
 
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 public class AssignArrayStatement extends Statement {
     @XmlElement(required = true)
     private String lv;
+    // The id of the variable in Symbols
+    @XmlTransient
+    private int lvSymbol = Symbols.NONE;
     @XmlElement(required = true)
     private ExprWrapper index;
     @XmlElement(required = true)
     private ExprWrapper rv;
 
+    // The array variable assigned to, bound by BuildClassHierarchyVisitor (null if it is not declared)
+    @XmlTransient
+    private Variable variable;
+
     // for deserialization only!
     public AssignArrayStatement() {
     }
 
     public AssignArrayStatement(String lv, Expr index, Expr rv) {
         this.lv = lv;
+        this.lvSymbol = Symbols.id(lv);
         this.index = new ExprWrapper(index);
         this.rv = new ExprWrapper(rv);
     }
@@ -31,8 +42,14 @@ public class AssignArrayStatement extends Statement {
         return lv;
     }
 
+    /** The id of the variable in Symbols. */
+    public int lvSymbol() {
+        return lvSymbol;
+    }
+
     public void setLv(String lv) {
         this.lv = lv;
+        this.lvSymbol = Symbols.id(lv);
     }
 
     public Expr index() {
@@ -42,4 +59,12 @@ public class AssignArrayStatement extends Statement {
     public Expr rv() {
         return rv.e;
     }
+
+    public Variable variable() {
+        return variable;
+    }
+
+    public void setVariable(Variable variable) {
+        this.variable = variable;
+    }
 }
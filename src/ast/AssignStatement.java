@@ -1,21 +1,32 @@
 package ast;
 
+import symboltable.Variable;
+import utils.Symbols;
 import visitor.Visitor;
 
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 public class AssignStatement extends Statement {
     @XmlElement(required = true)
     private String lv;
+    // The id of the variable in Symbols
+    @XmlTransient
+    private int lvSymbol = Symbols.NONE;
     @XmlElement(required = true)
     private ExprWrapper rv;
 
+    // The variable assigned to, bound by BuildClassHierarchyVisitor (null if it is not declared)
+    @XmlTransient
+    private Variable variable;
+
     // for deserialization only!
     public AssignStatement() {
     }
 
     public AssignStatement(String lv, Expr rv) {
         this.lv = lv;
+        this.lvSymbol = Symbols.id(lv);
         this.rv = new ExprWrapper(rv);
     }
 
@@ -28,11 +39,25 @@ public class AssignStatement extends Statement {
         return lv;
     }
 
+    /** The id of the variable in Symbols. */
+    public int lvSymbol() {
+        return lvSymbol;
+    }
+
     public void setLv(String lv) {
         this.lv = lv;
+        this.lvSymbol = Symbols.id(lv);
     }
 
     public Expr rv() {
         return rv.e;
     }
+
+    public Variable variable() {
+        return variable;
+    }
+
+    public void setVariable(Variable variable) {
+        this.variable = variable;
+    }
 }
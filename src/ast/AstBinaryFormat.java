@@ -0,0 +1,61 @@
+package ast;
+
+/**
+ * Constants of the compact binary AST format, shared by AstBinaryWriter and AstBinaryReader.
+ *
+ * Layout:
+ *   magic "MJAST" and a format version byte
+ *   string table: count, then for each string its UTF-8 length and bytes
+ *   the program node
+ *
+ * A node is a kind byte (NULL for a missing node), its line number (0 if it has none, otherwise
+ * line + 1), and then its fields in the order of the XML schema. Strings are indices into the string
+ * table (0 for null, otherwise index + 1), lists are a length (0 for null, otherwise length + 1)
+ * followed by the items. All the numbers are unsigned LEB128 varints, except integer literals which
+ * are zigzag encoded.
+ */
+final class AstBinaryFormat {
+    static final byte[] MAGIC = {'M', 'J', 'A', 'S', 'T'};
+    static final int VERSION = 1;
+
+    static final int NULL = 0;
+
+    static final int PROGRAM = 1;
+    static final int MAIN_CLASS = 2;
+    static final int CLASS_DECL = 3;
+    static final int METHOD_DECL = 4;
+    static final int FORMAL_ARG = 5;
+    static final int VAR_DECL = 6;
+
+    static final int BLOCK = 10;
+    static final int IF = 11;
+    static final int WHILE = 12;
+    static final int SYSOUT = 13;
+    static final int ASSIGN = 14;
+    static final int ASSIGN_ARRAY = 15;
+
+    static final int AND = 20;
+    static final int LT = 21;
+    static final int ADD = 22;
+    static final int SUBTRACT = 23;
+    static final int MULT = 24;
+    static final int ARRAY_ACCESS = 25;
+    static final int ARRAY_LENGTH = 26;
+    static final int CALL = 27;
+    static final int INT_LITERAL = 28;
+    static final int TRUE = 29;
+    static final int FALSE = 30;
+    static final int REF_ID = 31;
+    static final int THIS = 32;
+    static final int NEW_INT_ARRAY = 33;
+    static final int NEW_OBJECT = 34;
+    static final int NOT = 35;
+
+    static final int INT_TYPE = 40;
+    static final int BOOL_TYPE = 41;
+    static final int INT_ARRAY_TYPE = 42;
+    static final int REF_TYPE = 43;
+
+    private AstBinaryFormat() {
+    }
+}
@@ -0,0 +1,274 @@
+package ast;
+
+import utils.Symbols;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ast.AstBinaryFormat.*;
+
+/**
+ * Reads an AST in the compact binary format described in AstBinaryFormat, from a (memory mapped)
+ * buffer. The only strings decoded are the ones of the string table, each once.
+ */
+public class AstBinaryReader {
+    private final ByteBuffer input;
+    private String[] strings;
+
+    public AstBinaryReader(ByteBuffer input) {
+        this.input = input;
+    }
+
+    public static Program read(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new AstBinaryReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())).readProgram();
+        }
+    }
+
+    public Program readProgram() throws IOException {
+        try {
+            for (byte b : MAGIC) {
+                if (input.get() != b) {
+                    throw malformed("not a binary AST file");
+                }
+            }
+            int version = varint();
+            if (version != VERSION) {
+                throw malformed("unsupported format version " + version);
+            }
+
+            strings = new String[varint()];
+            for (int i = 0; i < strings.length; i++) {
+                var bytes = new byte[varint()];
+                input.get(bytes);
+                strings[i] = Symbols.intern(new String(bytes, StandardCharsets.UTF_8));
+            }
+
+            var program = node(Program.class);
+            if (program == null) {
+                throw malformed("missing program node");
+            }
+            return program;
+        } catch (BufferUnderflowException e) {
+            throw malformed("unexpected end of file");
+        }
+    }
+
+    private int varint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = input.get();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw malformed("varint is too long");
+    }
+
+    private String string() throws IOException {
+        int index = varint();
+        if (index == 0) {
+            return null;
+        }
+        if (index > strings.length) {
+            throw malformed("string index " + index + " is out of range");
+        }
+        return strings[index - 1];
+    }
+
+    private <T extends AstNode> T node(Class<T> expected) throws IOException {
+        var node = node();
+        if (node != null && !expected.isInstance(node)) {
+            throw malformed("expected a " + expected.getSimpleName() + " but found a " + node.getClass().getSimpleName());
+        }
+        return expected.cast(node);
+    }
+
+    private <T extends AstNode> List<T> list(Class<T> expected) throws IOException {
+        int length = varint();
+        if (length == 0) {
+            return null;
+        }
+
+        var list = new ArrayList<T>(length - 1);
+        for (int i = 0; i < length - 1; i++) {
+            list.add(node(expected));
+        }
+        return list;
+    }
+
+    private AstNode node() throws IOException {
+        int kind = varint();
+        if (kind == NULL) {
+            return null;
+        }
+
+        int line = varint();
+        Integer lineNumber = line == 0 ? null : line - 1;
+        AstNode node;
+
+        switch (kind) {
+            case PROGRAM: {
+                var mainClass = node(MainClass.class);
+                node = new Program(mainClass, list(ClassDecl.class));
+                break;
+            }
+            case MAIN_CLASS: {
+                var name = string();
+                var argsName = string();
+                node = new MainClass(name, argsName, node(Statement.class));
+                break;
+            }
+            case CLASS_DECL: {
+                var name = string();
+                var superName = string();
+                var fields = list(VarDecl.class);
+                node = new ClassDecl(name, superName, fields, list(MethodDecl.class));
+                break;
+            }
+            case METHOD_DECL: {
+                var returnType = node(AstType.class);
+                var name = string();
+                var formals = list(FormalArg.class);
+                var varDecls = list(VarDecl.class);
+                var body = list(Statement.class);
+                node = new MethodDecl(returnType, name, formals, varDecls, body, node(Expr.class), 0);
+                break;
+            }
+            case FORMAL_ARG: {
+                var type = node(AstType.class);
+                node = new FormalArg(type, string(), 0);
+                break;
+            }
+            case VAR_DECL: {
+                var type = node(AstType.class);
+                node = new VarDecl(type, string(), 0);
+                break;
+            }
+            case BLOCK:
+                node = new BlockStatement(list(Statement.class));
+                break;
+            case IF: {
+                var cond = node(Expr.class);
+                var thencase = node(Statement.class);
+                node = new IfStatement(cond, thencase, node(Statement.class));
+                break;
+            }
+            case WHILE: {
+                var cond = node(Expr.class);
+                node = new WhileStatement(cond, node(Statement.class));
+                break;
+            }
+            case SYSOUT:
+                node = new SysoutStatement(node(Expr.class));
+                break;
+            case ASSIGN: {
+                var lv = string();
+                node = new AssignStatement(lv, node(Expr.class));
+                break;
+            }
+            case ASSIGN_ARRAY: {
+                var lv = string();
+                var index = node(Expr.class);
+                node = new AssignArrayStatement(lv, index, node(Expr.class));
+                break;
+            }
+            case AND: {
+                var e1 = node(Expr.class);
+                node = new AndExpr(e1, node(Expr.class));
+                break;
+            }
+            case LT: {
+                var e1 = node(Expr.class);
+                node = new LtExpr(e1, node(Expr.class));
+                break;
+            }
+            case ADD: {
+                var e1 = node(Expr.class);
+                node = new AddExpr(e1, node(Expr.class));
+                break;
+            }
+            case SUBTRACT: {
+                var e1 = node(Expr.class);
+                node = new SubtractExpr(e1, node(Expr.class));
+                break;
+            }
+            case MULT: {
+                var e1 = node(Expr.class);
+                node = new MultExpr(e1, node(Expr.class));
+                break;
+            }
+            case ARRAY_ACCESS: {
+                var arrayExpr = node(Expr.class);
+                node = new ArrayAccessExpr(arrayExpr, node(Expr.class));
+                break;
+            }
+            case ARRAY_LENGTH:
+                node = new ArrayLengthExpr(node(Expr.class));
+                break;
+            case CALL: {
+                var ownerExpr = node(Expr.class);
+                var methodId = string();
+                var actuals = list(Expr.class);
+                node = new MethodCallExpr(ownerExpr, methodId, actuals == null ? new ArrayList<>() : actuals);
+                break;
+            }
+            case INT_LITERAL: {
+                int zigzag = varint();
+                node = new IntegerLiteralExpr((zigzag >>> 1) ^ -(zigzag & 1));
+                break;
+            }
+            case TRUE:
+                node = new TrueExpr();
+                break;
+            case FALSE:
+                node = new FalseExpr();
+                break;
+            case REF_ID:
+                node = new IdentifierExpr(string());
+                break;
+            case THIS:
+                node = new ThisExpr();
+                break;
+            case NEW_INT_ARRAY:
+                node = new NewIntArrayExpr(node(Expr.class));
+                break;
+            case NEW_OBJECT:
+                node = new NewObjectExpr(string());
+                break;
+            case NOT:
+                node = new NotExpr(node(Expr.class));
+                break;
+            case INT_TYPE:
+                node = new IntAstType();
+                break;
+            case BOOL_TYPE:
+                node = new BoolAstType();
+                break;
+            case INT_ARRAY_TYPE:
+                node = new IntArrayAstType();
+                break;
+            case REF_TYPE:
+                node = new RefType(string());
+                break;
+            default:
+                throw malformed("unknown node kind " + kind);
+        }
+
+        // The node constructors take an int, so the (optional) line number is set afterwards
+        node.lineNumber = lineNumber;
+        return node;
+    }
+
+    private IOException malformed(String message) {
+        return new IOException(String.format("Malformed binary AST at byte %d: %s", input.position(), message));
+    }
+}
@@ -0,0 +1,20 @@
+package ast;
+
+import java.io.*;
+
+public class AstBinarySerializer {
+    public void serialize(AstNode ast, String outfilename) throws IOException {
+        try (var out = new FileOutputStream(new File(outfilename))) {
+            new AstBinaryWriter(out).write(ast);
+        }
+    }
+
+    public Program deserialize(File file) {
+        try {
+            return AstBinaryReader.read(file.toPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException();
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package ast;
+
+import visitor.Visitor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ast.AstBinaryFormat.*;
+
+/**
+ * Writes an AST in the compact binary format described in AstBinaryFormat.
+ * The nodes are encoded first, while collecting the identifiers, then the string table and the
+ * nodes are written out.
+ */
+public class AstBinaryWriter implements Visitor {
+    private final OutputStream out;
+
+    private final Map<String, Integer> stringIndices = new HashMap<>();
+    private final ByteSink strings = new ByteSink();
+    private final ByteSink nodes = new ByteSink();
+
+    public AstBinaryWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public void write(AstNode root) throws IOException {
+        root.accept(this);
+
+        var header = new ByteSink();
+        header.bytes(MAGIC);
+        header.varint(VERSION);
+        header.varint(stringIndices.size());
+
+        out.write(header.buffer, 0, header.length);
+        out.write(strings.buffer, 0, strings.length);
+        out.write(nodes.buffer, 0, nodes.length);
+        out.flush();
+    }
+
+    /** A growable byte array, writing the primitives of the format. */
+    private static class ByteSink {
+        private byte[] buffer = new byte[1 << 12];
+        private int length = 0;
+
+        private void ensure(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+
+        void bytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+
+        void varint(int value) {
+            ensure(5);
+            while ((value & ~0x7f) != 0) {
+                buffer[length++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+    }
+
+    private void string(String str) {
+        if (str == null) {
+            nodes.varint(0);
+            return;
+        }
+
+        Integer index = stringIndices.get(str);
+        if (index == null) {
+            index = stringIndices.size();
+            stringIndices.put(str, index);
+
+            var bytes = str.getBytes(StandardCharsets.UTF_8);
+            strings.varint(bytes.length);
+            strings.bytes(bytes);
+        }
+        nodes.varint(index + 1);
+    }
+
+    private void startNode(int kind, AstNode node) {
+        nodes.varint(kind);
+        nodes.varint(node.lineNumber == null ? 0 : node.lineNumber + 1);
+    }
+
+    private void node(AstNode node) {
+        if (node == null) {
+            nodes.varint(NULL);
+        } else {
+            node.accept(this);
+        }
+    }
+
+    private void list(List<? extends AstNode> list) {
+        if (list == null) {
+            nodes.varint(0);
+            return;
+        }
+
+        nodes.varint(list.size() + 1);
+        for (var node : list) {
+            node(node);
+        }
+    }
+
+    private void visitBinaryExpr(int kind, BinaryExpr e) {
+        startNode(kind, e);
+        node(e.e1());
+        node(e.e2());
+    }
+
+    private void visitVariableIntroduction(int kind, VariableIntroduction variableIntroduction) {
+        startNode(kind, variableIntroduction);
+        node(variableIntroduction.type());
+        string(variableIntroduction.name());
+    }
+
+    @Override
+    public String visit(Program program) {
+        startNode(PROGRAM, program);
+        node(program.mainClass());
+        list(program.classDecls());
+        return null;
+    }
+
+    @Override
+    public String visit(ClassDecl classDecl) {
+        startNode(CLASS_DECL, classDecl);
+        string(classDecl.name());
+        string(classDecl.superName());
+        list(classDecl.fields());
+        list(classDecl.methoddecls());
+        return null;
+    }
+
+    @Override
+    public String visit(MainClass mainClass) {
+        startNode(MAIN_CLASS, mainClass);
+        string(mainClass.name());
+        string(mainClass.argsName());
+        node(mainClass.mainStatement());
+        return null;
+    }
+
+    @Override
+    public String visit(MethodDecl methodDecl) {
+        startNode(METHOD_DECL, methodDecl);
+        node(methodDecl.returnType());
+        string(methodDecl.name());
+        list(methodDecl.formals());
+        list(methodDecl.vardecls());
+        list(methodDecl.body());
+        node(methodDecl.ret());
+        return null;
+    }
+
+    @Override
+    public String visit(FormalArg formalArg) {
+        visitVariableIntroduction(FORMAL_ARG, formalArg);
+        return null;
+    }
+
+    @Override
+    public String visit(VarDecl varDecl) {
+        visitVariableIntroduction(VAR_DECL, varDecl);
+        return null;
+    }
+
+    @Override
+    public String visit(BlockStatement blockStatement) {
+        startNode(BLOCK, blockStatement);
+        list(blockStatement.statements());
+        return null;
+    }
+
+    @Override
+    public String visit(IfStatement ifStatement) {
+        startNode(IF, ifStatement);
+        node(ifStatement.cond());
+        node(ifStatement.thencase());
+        node(ifStatement.elsecase());
+        return null;
+    }
+
+    @Override
+    public String visit(WhileStatement whileStatement) {
+        startNode(WHILE, whileStatement);
+        node(whileStatement.cond());
+        node(whileStatement.body());
+        return null;
+    }
+
+    @Override
+    public String visit(SysoutStatement sysoutStatement) {
+        startNode(SYSOUT, sysoutStatement);
+        node(sysoutStatement.arg());
+        return null;
+    }
+
+    @Override
+    public String visit(AssignStatement assignStatement) {
+        startNode(ASSIGN, assignStatement);
+        string(assignStatement.lv());
+        node(assignStatement.rv());
+        return null;
+    }
+
+    @Override
+    public String visit(AssignArrayStatement assignArrayStatement) {
+        startNode(ASSIGN_ARRAY, assignArrayStatement);
+        string(assignArrayStatement.lv());
+        node(assignArrayStatement.index());
+        node(assignArrayStatement.rv());
+        return null;
+    }
+
+    @Override
+    public String visit(AndExpr e) {
+        visitBinaryExpr(AND, e);
+        return null;
+    }
+
+    @Override
+    public String visit(LtExpr e) {
+        visitBinaryExpr(LT, e);
+        return null;
+    }
+
+    @Override
+    public String visit(AddExpr e) {
+        visitBinaryExpr(ADD, e);
+        return null;
+    }
+
+    @Override
+    public String visit(SubtractExpr e) {
+        visitBinaryExpr(SUBTRACT, e);
+        return null;
+    }
+
+    @Override
+    public String visit(MultExpr e) {
+        visitBinaryExpr(MULT, e);
+        return null;
+    }
+
+    @Override
+    public String visit(ArrayAccessExpr e) {
+        startNode(ARRAY_ACCESS, e);
+        node(e.arrayExpr());
+        node(e.indexExpr());
+        return null;
+    }
+
+    @Override
+    public String visit(ArrayLengthExpr e) {
+        startNode(ARRAY_LENGTH, e);
+        node(e.arrayExpr());
+        return null;
+    }
+
+    @Override
+    public String visit(MethodCallExpr e) {
+        startNode(CALL, e);
+        node(e.ownerExpr());
+        string(e.methodId());
+        list(e.actuals());
+        return null;
+    }
+
+    @Override
+    public String visit(IntegerLiteralExpr e) {
+        startNode(INT_LITERAL, e);
+        nodes.varint((e.num() << 1) ^ (e.num() >> 31));
+        return null;
+    }
+
+    @Override
+    public String visit(TrueExpr e) {
+        startNode(TRUE, e);
+        return null;
+    }
+
+    @Override
+    public String visit(FalseExpr e) {
+        startNode(FALSE, e);
+        return null;
+    }
+
+    @Override
+    public String visit(IdentifierExpr e) {
+        startNode(REF_ID, e);
+        string(e.id());
+        return null;
+    }
+
+    @Override
+    public String visit(ThisExpr e) {
+        startNode(THIS, e);
+        return null;
+    }
+
+    @Override
+    public String visit(NewIntArrayExpr e) {
+        startNode(NEW_INT_ARRAY, e);
+        node(e.lengthExpr());
+        return null;
+    }
+
+    @Override
+    public String visit(NewObjectExpr e) {
+        startNode(NEW_OBJECT, e);
+        string(e.classId());
+        return null;
+    }
+
+    @Override
+    public String visit(NotExpr e) {
+        startNode(NOT, e);
+        node(e.e());
+        return null;
+    }
+
+    @Override
+    public String visit(IntAstType t) {
+        startNode(INT_TYPE, t);
+        return null;
+    }
+
+    @Override
+    public String visit(BoolAstType t) {
+        startNode(BOOL_TYPE, t);
+        return null;
+    }
+
+    @Override
+    public String visit(IntArrayAstType t) {
+        startNode(INT_ARRAY_TYPE, t);
+        return null;
+    }
+
+    @Override
+    public String visit(RefType t) {
+        startNode(REF_TYPE, t);
+        string(t.id());
+        return null;
+    }
+}
@@ -3,11 +3,18 @@ package ast;
 import visitor.Visitor;
 
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 public abstract class AstNode {
     @XmlElement(required = false)
     public Integer lineNumber;
 
+    // The line of a statement or an expression, which have no lineNumber, numbered like it (from 0), as set
+    // by the parser: null if the node was not parsed (e.g. read from XML). Only for the error reports, so
+    // it is not written with the AST.
+    @XmlTransient
+    private Integer line;
+
     public AstNode() {
         lineNumber = null;
     }
@@ -16,5 +23,14 @@ public abstract class AstNode {
         this.lineNumber = lineNumber;
     }
 
+    /** The line of the node (see lineNumber), or null if it is not known. */
+    public Integer line() {
+        return lineNumber != null ? lineNumber : line;
+    }
+
+    public void setLine(int line) {
+        this.line = line;
+    }
+
     abstract public String accept(Visitor v);
 }
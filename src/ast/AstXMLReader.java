@@ -0,0 +1,1019 @@
+package ast;
+
+import utils.Symbols;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for the schema/ast.xsd format, working directly on the (memory mapped) bytes of
+ * the document. It accepts the same documents the JAXB unmarshaller did: unknown elements,
+ * attributes, comments and processing instructions are skipped, entities and CDATA sections are
+ * decoded, integers may be surrounded by whitespace.
+ */
+public class AstXMLReader {
+    // The element names of the format, so that reading a known tag doesn't allocate
+    private static final String[] KNOWN_NAMES = {
+            "program", "mainclass", "classdecls", "classdecl", "name", "argsName", "mainStatement", "superName",
+            "fields", "field", "methoddecls", "methoddecl", "returnType", "formals", "formal", "vardecls", "vardecl",
+            "body", "ret", "type", "lineNumber", "block", "statements", "if", "cond", "thencase", "elsecase", "while",
+            "sysout", "arg", "assign", "lv", "rv", "assign-array", "index", "and", "lt", "add", "subtract", "mult",
+            "e1", "e2", "array-access", "arrayExpr", "indexExpr", "array-length", "call", "ownerExpr", "methodId",
+            "actuals", "actual", "int-literal", "num", "true", "false", "ref-id", "id", "this", "new-int-array",
+            "lengthExpr", "new-object", "classId", "not", "e", "int", "bool", "int-array", "ref"
+    };
+    private static final byte[][] KNOWN_NAME_BYTES = new byte[KNOWN_NAMES.length][];
+
+    static {
+        for (int i = 0; i < KNOWN_NAMES.length; i++) {
+            KNOWN_NAME_BYTES[i] = KNOWN_NAMES[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final ByteBuffer input;
+    private final int limit;
+    private int position = 0;
+
+    // true iff the last start tag read was an empty element tag (<tag/>), which has no content and no end tag
+    private boolean emptyElement = false;
+
+    // scratch buffer for decoding text content
+    private byte[] scratch = new byte[256];
+    private int scratchLength = 0;
+
+    public AstXMLReader(ByteBuffer input) {
+        this.input = input;
+        this.limit = input.limit();
+    }
+
+    public static Program read(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new AstXMLReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())).readProgram();
+        }
+    }
+
+    public Program readProgram() throws IOException {
+        skipProlog();
+        if (position >= limit || peek() != '<') {
+            throw malformed("expected the root element");
+        }
+
+        String root = startTag();
+        if (!root.equals("program")) {
+            throw malformed("unexpected root element <" + root + ">");
+        }
+        return readProgramContent();
+    }
+
+    /* Node builders. Each is called right after the start tag of its element was read, and consumes
+       the element up to and including its end tag. */
+
+    private Program readProgramContent() throws IOException {
+        Integer lineNumber = null;
+        MainClass mainClass = null;
+        List<ClassDecl> classDecls = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "mainclass": mainClass = readMainClass();
+                break;
+                case "classdecls": classDecls = readClassDecls();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new Program(mainClass, classDecls), lineNumber);
+    }
+
+    private List<ClassDecl> readClassDecls() throws IOException {
+        var classDecls = new ArrayList<ClassDecl>();
+
+        String child;
+        while ((child = nextChild()) != null) {
+            if (child.equals("classdecl")) {
+                classDecls.add(readClassDecl());
+            } else {
+                skipElement();
+            }
+        }
+
+        return classDecls;
+    }
+
+    private MainClass readMainClass() throws IOException {
+        Integer lineNumber = null;
+        String name = null;
+        String argsName = null;
+        Statement mainStatement = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "name": name = readSymbol();
+                break;
+                case "argsName": argsName = readSymbol();
+                break;
+                case "mainStatement": mainStatement = readWrappedStatement();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new MainClass(name, argsName, mainStatement), lineNumber);
+    }
+
+    private ClassDecl readClassDecl() throws IOException {
+        Integer lineNumber = null;
+        String name = null;
+        String superName = null;
+        List<VarDecl> fields = null;
+        List<MethodDecl> methodDecls = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "name": name = readSymbol();
+                break;
+                case "superName": superName = readSymbol();
+                break;
+                case "fields": fields = readVariableIntroductions("field", VarDecl::new);
+                break;
+                case "methoddecls": methodDecls = readMethodDecls();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new ClassDecl(name, superName, fields, methodDecls), lineNumber);
+    }
+
+    private List<MethodDecl> readMethodDecls() throws IOException {
+        var methodDecls = new ArrayList<MethodDecl>();
+
+        String child;
+        while ((child = nextChild()) != null) {
+            if (child.equals("methoddecl")) {
+                methodDecls.add(readMethodDecl());
+            } else {
+                skipElement();
+            }
+        }
+
+        return methodDecls;
+    }
+
+    private MethodDecl readMethodDecl() throws IOException {
+        Integer lineNumber = null;
+        AstType returnType = null;
+        String name = null;
+        List<FormalArg> formals = null;
+        List<VarDecl> varDecls = null;
+        List<Statement> body = null;
+        Expr ret = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "returnType": returnType = readWrappedType();
+                break;
+                case "name": name = readSymbol();
+                break;
+                case "formals": formals = readVariableIntroductions("formal", FormalArg::new);
+                break;
+                case "vardecls": varDecls = readVariableIntroductions("vardecl", VarDecl::new);
+                break;
+                case "body": body = readStatements();
+                break;
+                case "ret": ret = readWrappedExpr();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new MethodDecl(returnType, name, formals, varDecls, body, ret, 0), lineNumber);
+    }
+
+    private interface VariableIntroductionFactory<T extends VariableIntroduction> {
+        T create(AstType type, String name, Integer lineNumber);
+    }
+
+    private <T extends VariableIntroduction> List<T> readVariableIntroductions(
+            String itemTag, VariableIntroductionFactory<T> factory) throws IOException {
+        var variables = new ArrayList<T>();
+
+        String child;
+        while ((child = nextChild()) != null) {
+            if (child.equals(itemTag)) {
+                variables.add(readVariableIntroduction(factory));
+            } else {
+                skipElement();
+            }
+        }
+
+        return variables;
+    }
+
+    private <T extends VariableIntroduction> T readVariableIntroduction(VariableIntroductionFactory<T> factory)
+            throws IOException {
+        Integer lineNumber = null;
+        AstType type = null;
+        String name = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "type": type = readWrappedType();
+                break;
+                case "name": name = readSymbol();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(factory.create(type, name, 0), lineNumber);
+    }
+
+    private List<Statement> readStatements() throws IOException {
+        var statements = new ArrayList<Statement>();
+
+        String child;
+        while ((child = nextChild()) != null) {
+            var statement = readStatement(child);
+            if (statement != null) {
+                statements.add(statement);
+            }
+        }
+
+        return statements;
+    }
+
+    /** Read a wrapper element (e.g. <thencase>) holding a single statement element. */
+    private Statement readWrappedStatement() throws IOException {
+        Statement statement = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            var current = readStatement(child);
+            if (current != null) {
+                statement = current;
+            }
+        }
+
+        return statement;
+    }
+
+    /** @return the statement of the element that was just started, or null if this isn't a statement element */
+    private Statement readStatement(String tag) throws IOException {
+        switch (tag) {
+            case "block": return readBlockStatement();
+            case "if": return readIfStatement();
+            case "while": return readWhileStatement();
+            case "sysout": return readSysoutStatement();
+            case "assign": return readAssignStatement();
+            case "assign-array": return readAssignArrayStatement();
+            default:
+                skipElement();
+                return null;
+        }
+    }
+
+    private BlockStatement readBlockStatement() throws IOException {
+        Integer lineNumber = null;
+        List<Statement> statements = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "statements": statements = readStatements();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new BlockStatement(statements), lineNumber);
+    }
+
+    private IfStatement readIfStatement() throws IOException {
+        Integer lineNumber = null;
+        Expr cond = null;
+        Statement thencase = null;
+        Statement elsecase = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "cond": cond = readWrappedExpr();
+                break;
+                case "thencase": thencase = readWrappedStatement();
+                break;
+                case "elsecase": elsecase = readWrappedStatement();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new IfStatement(cond, thencase, elsecase), lineNumber);
+    }
+
+    private WhileStatement readWhileStatement() throws IOException {
+        Integer lineNumber = null;
+        Expr cond = null;
+        Statement body = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "cond": cond = readWrappedExpr();
+                break;
+                case "body": body = readWrappedStatement();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new WhileStatement(cond, body), lineNumber);
+    }
+
+    private SysoutStatement readSysoutStatement() throws IOException {
+        Integer lineNumber = null;
+        Expr arg = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "arg": arg = readWrappedExpr();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new SysoutStatement(arg), lineNumber);
+    }
+
+    private AssignStatement readAssignStatement() throws IOException {
+        Integer lineNumber = null;
+        String lv = null;
+        Expr rv = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "lv": lv = readSymbol();
+                break;
+                case "rv": rv = readWrappedExpr();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new AssignStatement(lv, rv), lineNumber);
+    }
+
+    private AssignArrayStatement readAssignArrayStatement() throws IOException {
+        Integer lineNumber = null;
+        String lv = null;
+        Expr index = null;
+        Expr rv = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "lv": lv = readSymbol();
+                break;
+                case "index": index = readWrappedExpr();
+                break;
+                case "rv": rv = readWrappedExpr();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new AssignArrayStatement(lv, index, rv), lineNumber);
+    }
+
+    /** Read a wrapper element (e.g. <e1>) holding a single expression element. */
+    private Expr readWrappedExpr() throws IOException {
+        Expr e = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            var current = readExpr(child);
+            if (current != null) {
+                e = current;
+            }
+        }
+
+        return e;
+    }
+
+    /** @return the expression of the element that was just started, or null if this isn't an expression element */
+    private Expr readExpr(String tag) throws IOException {
+        switch (tag) {
+            case "and":
+            case "lt":
+            case "add":
+            case "subtract":
+            case "mult":
+                return readBinaryExpr(tag);
+            case "array-access": return readArrayAccessExpr();
+            case "array-length": return readArrayLengthExpr();
+            case "call": return readMethodCallExpr();
+            case "int-literal": return readIntegerLiteralExpr();
+            case "true": return readLeaf(new TrueExpr());
+            case "false": return readLeaf(new FalseExpr());
+            case "ref-id": return readIdentifierExpr();
+            case "this": return readLeaf(new ThisExpr());
+            case "new-int-array": return readNewIntArrayExpr();
+            case "new-object": return readNewObjectExpr();
+            case "not": return readNotExpr();
+            default:
+                skipElement();
+                return null;
+        }
+    }
+
+    private BinaryExpr readBinaryExpr(String tag) throws IOException {
+        Integer lineNumber = null;
+        Expr e1 = null;
+        Expr e2 = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "e1": e1 = readWrappedExpr();
+                break;
+                case "e2": e2 = readWrappedExpr();
+                break;
+                default: skipElement();
+            }
+        }
+
+        BinaryExpr e;
+        switch (tag) {
+            case "and": e = new AndExpr(e1, e2);
+            break;
+            case "lt": e = new LtExpr(e1, e2);
+            break;
+            case "add": e = new AddExpr(e1, e2);
+            break;
+            case "subtract": e = new SubtractExpr(e1, e2);
+            break;
+            default: e = new MultExpr(e1, e2);
+        }
+        return withLineNumber(e, lineNumber);
+    }
+
+    private ArrayAccessExpr readArrayAccessExpr() throws IOException {
+        Integer lineNumber = null;
+        Expr arrayExpr = null;
+        Expr indexExpr = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "arrayExpr": arrayExpr = readWrappedExpr();
+                break;
+                case "indexExpr": indexExpr = readWrappedExpr();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new ArrayAccessExpr(arrayExpr, indexExpr), lineNumber);
+    }
+
+    private ArrayLengthExpr readArrayLengthExpr() throws IOException {
+        Integer lineNumber = null;
+        Expr arrayExpr = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "arrayExpr": arrayExpr = readWrappedExpr();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new ArrayLengthExpr(arrayExpr), lineNumber);
+    }
+
+    private MethodCallExpr readMethodCallExpr() throws IOException {
+        Integer lineNumber = null;
+        Expr ownerExpr = null;
+        String methodId = null;
+        List<Expr> actuals = new ArrayList<>();
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "ownerExpr": ownerExpr = readWrappedExpr();
+                break;
+                case "methodId": methodId = readSymbol();
+                break;
+                case "actuals": actuals = readActuals();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new MethodCallExpr(ownerExpr, methodId, actuals), lineNumber);
+    }
+
+    private List<Expr> readActuals() throws IOException {
+        var actuals = new ArrayList<Expr>();
+
+        String child;
+        while ((child = nextChild()) != null) {
+            if (child.equals("actual")) {
+                actuals.add(readWrappedExpr());
+            } else {
+                skipElement();
+            }
+        }
+
+        return actuals;
+    }
+
+    private IntegerLiteralExpr readIntegerLiteralExpr() throws IOException {
+        Integer lineNumber = null;
+        int num = 0;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "num": num = readInteger();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new IntegerLiteralExpr(num), lineNumber);
+    }
+
+    private IdentifierExpr readIdentifierExpr() throws IOException {
+        Integer lineNumber = null;
+        String id = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "id": id = readSymbol();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new IdentifierExpr(id), lineNumber);
+    }
+
+    private NewIntArrayExpr readNewIntArrayExpr() throws IOException {
+        Integer lineNumber = null;
+        Expr lengthExpr = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "lengthExpr": lengthExpr = readWrappedExpr();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new NewIntArrayExpr(lengthExpr), lineNumber);
+    }
+
+    private NewObjectExpr readNewObjectExpr() throws IOException {
+        Integer lineNumber = null;
+        String classId = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "classId": classId = readSymbol();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new NewObjectExpr(classId), lineNumber);
+    }
+
+    private NotExpr readNotExpr() throws IOException {
+        Integer lineNumber = null;
+        Expr e = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "e": e = readWrappedExpr();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new NotExpr(e), lineNumber);
+    }
+
+    /** Read a wrapper element (e.g. <returnType>) holding a single type element. */
+    private AstType readWrappedType() throws IOException {
+        AstType type = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "int": type = readLeaf(new IntAstType());
+                break;
+                case "bool": type = readLeaf(new BoolAstType());
+                break;
+                case "int-array": type = readLeaf(new IntArrayAstType());
+                break;
+                case "ref": type = readRefType();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return type;
+    }
+
+    private RefType readRefType() throws IOException {
+        Integer lineNumber = null;
+        String id = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            switch (child) {
+                case "lineNumber": lineNumber = readInteger();
+                break;
+                case "id": id = readSymbol();
+                break;
+                default: skipElement();
+            }
+        }
+
+        return withLineNumber(new RefType(id), lineNumber);
+    }
+
+    /** Read a node without content of its own, e.g. <this/> or <int/>. */
+    private <T extends AstNode> T readLeaf(T node) throws IOException {
+        Integer lineNumber = null;
+
+        String child;
+        while ((child = nextChild()) != null) {
+            if (child.equals("lineNumber")) {
+                lineNumber = readInteger();
+            } else {
+                skipElement();
+            }
+        }
+
+        return withLineNumber(node, lineNumber);
+    }
+
+    private static <T extends AstNode> T withLineNumber(T node, Integer lineNumber) {
+        // The node constructors take an int, so the (optional) line number is set afterwards
+        node.lineNumber = lineNumber;
+        return node;
+    }
+
+    /* Tokenizer */
+
+    private int peek() {
+        return input.get(position) & 0xff;
+    }
+
+    private boolean lookingAt(String str) {
+        if (position + str.length() > limit) {
+            return false;
+        }
+        for (int i = 0; i < str.length(); i++) {
+            if ((input.get(position + i) & 0xff) != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\n' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isNameByte(int b) {
+        return !isWhitespace(b) && b != '>' && b != '/' && b != '=' && b != '<';
+    }
+
+    private void skipWhitespace() {
+        while (position < limit && isWhitespace(peek())) {
+            position++;
+        }
+    }
+
+    private void skipPast(String terminator) throws IOException {
+        while (position < limit && !lookingAt(terminator)) {
+            position++;
+        }
+        if (position >= limit) {
+            throw malformed("unterminated markup, expected " + terminator);
+        }
+        position += terminator.length();
+    }
+
+    /** Skip a comment, a processing instruction or a doctype declaration, if one starts here. */
+    private boolean skipMarkup() throws IOException {
+        if (lookingAt("<!--")) {
+            skipPast("-->");
+        } else if (lookingAt("<?")) {
+            skipPast("?>");
+        } else if (lookingAt("<!DOCTYPE")) {
+            skipPast(">");
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void skipProlog() throws IOException {
+        if (lookingAt("\u00ef\u00bb\u00bf")) {
+            // UTF-8 byte order mark
+            position += 3;
+        }
+
+        do {
+            skipWhitespace();
+        } while (position < limit && skipMarkup());
+    }
+
+    /** Read a start tag, from its '<' up to and including its '>'. Attributes are skipped. */
+    private String startTag() throws IOException {
+        position++;
+        String name = readName();
+
+        while (true) {
+            if (position >= limit) {
+                throw malformed("unterminated start tag <" + name + ">");
+            }
+
+            int b = peek();
+            if (b == '>') {
+                position++;
+                emptyElement = false;
+                return name;
+            } else if (b == '/' && lookingAt("/>")) {
+                position += 2;
+                emptyElement = true;
+                return name;
+            } else if (b == '"' || b == '\'') {
+                position++;
+                while (position < limit && peek() != b) {
+                    position++;
+                }
+                position++;
+            } else {
+                position++;
+            }
+        }
+    }
+
+    private String readName() throws IOException {
+        int start = position;
+        while (position < limit && isNameByte(peek())) {
+            position++;
+        }
+        if (position == start) {
+            throw malformed("expected an element name");
+        }
+
+        String name = knownName(start, position);
+        if (name == null) {
+            name = new String(scratchOf(start, position), StandardCharsets.UTF_8);
+        }
+
+        // Namespace prefixes aren't used by the format
+        int colon = name.indexOf(':');
+        return colon >= 0 ? name.substring(colon + 1) : name;
+    }
+
+    private String knownName(int from, int to) {
+        for (int i = 0; i < KNOWN_NAME_BYTES.length; i++) {
+            var bytes = KNOWN_NAME_BYTES[i];
+            if (bytes.length != to - from) {
+                continue;
+            }
+
+            int j = 0;
+            while (j < bytes.length && input.get(from + j) == bytes[j]) {
+                j++;
+            }
+            if (j == bytes.length) {
+                return KNOWN_NAMES[i];
+            }
+        }
+        return null;
+    }
+
+    private void endTag() throws IOException {
+        // skip "</name", any whitespace and the '>'
+        skipPast(">");
+    }
+
+    /**
+     * Advance to the next child element of the current element, skipping character data and markup.
+     * @return the name of the child element, whose start tag was just read, or null if the end tag of
+     *         the current element was reached (and consumed)
+     */
+    private String nextChild() throws IOException {
+        if (emptyElement) {
+            emptyElement = false;
+            return null;
+        }
+
+        while (true) {
+            while (position < limit && peek() != '<') {
+                position++;
+            }
+            if (position >= limit) {
+                throw malformed("unexpected end of document");
+            }
+
+            if (lookingAt("</")) {
+                endTag();
+                return null;
+            } else if (lookingAt("<![CDATA[")) {
+                skipPast("]]>");
+            } else if (!skipMarkup()) {
+                return startTag();
+            }
+        }
+    }
+
+    /** Skip the rest of the element whose start tag was just read. */
+    private void skipElement() throws IOException {
+        while (nextChild() != null) {
+            skipElement();
+        }
+    }
+
+    /** Read the text content of the element whose start tag was just read, including its end tag. */
+    private String readText() throws IOException {
+        scratchLength = 0;
+
+        if (emptyElement) {
+            emptyElement = false;
+            return "";
+        }
+
+        while (true) {
+            if (position >= limit) {
+                throw malformed("unexpected end of document");
+            }
+
+            int b = peek();
+            if (b == '&') {
+                readEntity();
+            } else if (b != '<') {
+                appendScratch((byte) b);
+                position++;
+            } else if (lookingAt("</")) {
+                endTag();
+                return new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+            } else if (lookingAt("<![CDATA[")) {
+                position += "<![CDATA[".length();
+                while (position < limit && !lookingAt("]]>")) {
+                    appendScratch(input.get(position++));
+                }
+                position += "]]>".length();
+            } else if (!skipMarkup()) {
+                // An element inside text content isn't part of the value
+                int length = scratchLength;
+                startTag();
+                skipElement();
+                scratchLength = length;
+            }
+        }
+    }
+
+    /** Read the text content of an element that holds an identifier, interned (see Symbols). */
+    private String readSymbol() throws IOException {
+        return Symbols.intern(readText());
+    }
+
+    private int readInteger() throws IOException {
+        var text = readText().strip();
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw malformed("not an integer: " + text);
+        }
+    }
+
+    private void readEntity() throws IOException {
+        int start = position;
+        while (position < limit && peek() != ';') {
+            position++;
+        }
+        if (position >= limit) {
+            throw malformed("unterminated entity reference");
+        }
+
+        var name = new String(scratchOf(start + 1, position), StandardCharsets.US_ASCII);
+        position++;
+
+        switch (name) {
+            case "lt": appendScratch((byte) '<');
+            break;
+            case "gt": appendScratch((byte) '>');
+            break;
+            case "amp": appendScratch((byte) '&');
+            break;
+            case "quot": appendScratch((byte) '"');
+            break;
+            case "apos": appendScratch((byte) '\'');
+            break;
+            default:
+                if (!name.startsWith("#")) {
+                    throw malformed("unknown entity &" + name + ";");
+                }
+                int codePoint;
+                try {
+                    codePoint = name.startsWith("#x")
+                            ? Integer.parseInt(name.substring(2), 16)
+                            : Integer.parseInt(name.substring(1));
+                } catch (NumberFormatException e) {
+                    throw malformed("bad character reference &" + name + ";");
+                }
+                for (byte b : new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8)) {
+                    appendScratch(b);
+                }
+        }
+    }
+
+    private byte[] scratchOf(int from, int to) {
+        var bytes = new byte[to - from];
+        for (int i = from; i < to; i++) {
+            bytes[i - from] = input.get(i);
+        }
+        return bytes;
+    }
+
+    private void appendScratch(byte b) {
+        if (scratchLength == scratch.length) {
+            var grown = new byte[scratch.length * 2];
+            System.arraycopy(scratch, 0, grown, 0, scratchLength);
+            scratch = grown;
+        }
+        scratch[scratchLength++] = b;
+    }
+
+    private IOException malformed(String message) {
+        return new IOException(String.format("Malformed AST XML at byte %d: %s", position, message));
+    }
+}
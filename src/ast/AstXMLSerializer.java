@@ -1,41 +1,21 @@
 package ast;
 
-import javax.xml.bind.*;
 import java.io.*;
 
 public class AstXMLSerializer {
-    public void serialize(AstNode ast, String outfilename) throws IOException {
-        try {
-            JAXBContext jc = JAXBContext.newInstance(Program.class);
-
+    // Both directions stream the document through a hand-written codec (AstXMLWriter / AstXMLReader)
+    // instead of reflective JAXB binding; the XML itself is unchanged.
 
-            Marshaller marshaller = jc.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            var outWriter = new FileOutputStream(new File(outfilename));
-            try {
-                marshaller.marshal(ast, outWriter);
-            } finally {
-                outWriter.close();
-            }
-        } catch (PropertyException e) {
-            e.printStackTrace();
-            throw new RuntimeException();
-        } catch (JAXBException e) {
-            e.printStackTrace();
-            throw new RuntimeException();
+    public void serialize(AstNode ast, String outfilename) throws IOException {
+        try (var out = new FileOutputStream(new File(outfilename))) {
+            new AstXMLWriter(out).write(ast);
         }
     }
 
     public Program deserialize(File file) {
         try {
-            JAXBContext jc = JAXBContext.newInstance(Program.class);
-
-            Unmarshaller unmarshaller = jc.createUnmarshaller();
-            return (Program) unmarshaller.unmarshal(file);
-        } catch (PropertyException e) {
-            e.printStackTrace();
-            throw new RuntimeException();
-        } catch (JAXBException e) {
+            return AstXMLReader.read(file.toPath());
+        } catch (IOException e) {
             e.printStackTrace();
             throw new RuntimeException();
         }
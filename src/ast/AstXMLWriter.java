@@ -0,0 +1,474 @@
+package ast;
+
+import visitor.Visitor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streaming writer for the schema/ast.xsd format.
+ * Produces byte for byte the same document as the (formatted) JAXB marshaller, including its
+ * indentation, which wraps around every 8 levels of nesting.
+ */
+public class AstXMLWriter implements Visitor {
+    private static final byte[] HEADER =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>".getBytes(StandardCharsets.US_ASCII);
+    private static final int INDENT_UNIT = 4;
+    private static final int INDENT_WRAP = 8;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[1 << 16];
+    private int position = 0;
+
+    private int depth = 0;
+    private boolean startTagPending = false;
+    private boolean textWasWritten = false;
+
+    public AstXMLWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /** Write the whole document for the given root node, and flush it to the underlying stream. */
+    public void write(AstNode root) throws IOException {
+        try {
+            writeBytes(HEADER);
+            root.accept(this);
+            writeByte('\n');
+            flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    private void writeByte(int b) {
+        if (position == buffer.length) {
+            try {
+                out.write(buffer, 0, position);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            position = 0;
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        for (byte b : bytes) {
+            writeByte(b);
+        }
+    }
+
+    private void writeAscii(String str) {
+        for (int i = 0; i < str.length(); i++) {
+            writeByte(str.charAt(i));
+        }
+    }
+
+    private void writeIndent() {
+        writeByte('\n');
+        int spaces = (depth % INDENT_WRAP) * INDENT_UNIT;
+        for (int i = 0; i < spaces; i++) {
+            writeByte(' ');
+        }
+    }
+
+    private void closePendingStartTag() {
+        if (startTagPending) {
+            writeByte('>');
+            startTagPending = false;
+        }
+    }
+
+    private void startTag(String tag) {
+        closePendingStartTag();
+        if (!textWasWritten) {
+            writeIndent();
+        }
+        writeByte('<');
+        writeAscii(tag);
+        depth++;
+        startTagPending = true;
+        textWasWritten = false;
+    }
+
+    private void endTag(String tag) {
+        depth--;
+        if (startTagPending) {
+            // Nothing was written inside the element
+            writeByte('/');
+            writeByte('>');
+            startTagPending = false;
+        } else {
+            if (!textWasWritten) {
+                writeIndent();
+            }
+            writeByte('<');
+            writeByte('/');
+            writeAscii(tag);
+            writeByte('>');
+        }
+        textWasWritten = false;
+    }
+
+    private void text(String text) {
+        closePendingStartTag();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '&') {
+                writeAscii("&amp;");
+            } else if (c == '<') {
+                writeAscii("&lt;");
+            } else if (c == '>') {
+                writeAscii("&gt;");
+            } else if (c < 0x80) {
+                writeByte(c);
+            } else {
+                int codePoint = text.codePointAt(i);
+                i += Character.charCount(codePoint) - 1;
+                writeBytes(new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        textWasWritten = true;
+    }
+
+    private void textElement(String tag, String text) {
+        if (text == null) {
+            return;
+        }
+        startTag(tag);
+        text(text);
+        endTag(tag);
+    }
+
+    private void startNode(String tag, AstNode node) {
+        startTag(tag);
+        if (node.lineNumber != null) {
+            textElement("lineNumber", node.lineNumber.toString());
+        }
+    }
+
+    /** Write a wrapper element (e.g. <e1>) around the element of a single node. */
+    private void wrapped(String tag, AstNode node) {
+        startTag(tag);
+        if (node != null) {
+            node.accept(this);
+        }
+        endTag(tag);
+    }
+
+    /** Write a list wrapper element (e.g. <statements>), each node in the element of its own kind. */
+    private void list(String tag, List<? extends AstNode> nodes) {
+        if (nodes == null) {
+            return;
+        }
+        startTag(tag);
+        for (var node : nodes) {
+            node.accept(this);
+        }
+        endTag(tag);
+    }
+
+    /** Write a list wrapper element (e.g. <actuals>), each node inside a wrapper element (e.g. <actual>). */
+    private void wrappedList(String tag, String itemTag, List<? extends AstNode> nodes) {
+        if (nodes == null) {
+            return;
+        }
+        startTag(tag);
+        for (var node : nodes) {
+            wrapped(itemTag, node);
+        }
+        endTag(tag);
+    }
+
+    /** Variable introductions are written in an element named after their role (field, formal, vardecl). */
+    private void variableList(String tag, String itemTag, List<? extends VariableIntroduction> variables) {
+        if (variables == null) {
+            return;
+        }
+        startTag(tag);
+        for (var variable : variables) {
+            visitVariableIntroduction(variable, itemTag);
+        }
+        endTag(tag);
+    }
+
+    private void visitBinaryExpr(BinaryExpr e, String tag) {
+        startNode(tag, e);
+        wrapped("e1", e.e1());
+        wrapped("e2", e.e2());
+        endTag(tag);
+    }
+
+    private void visitVariableIntroduction(VariableIntroduction variableIntroduction, String tag) {
+        startNode(tag, variableIntroduction);
+        wrapped("type", variableIntroduction.type());
+        textElement("name", variableIntroduction.name());
+        endTag(tag);
+    }
+
+    private void leaf(String tag, AstNode node) {
+        startNode(tag, node);
+        endTag(tag);
+    }
+
+    @Override
+    public String visit(Program program) {
+        startNode("program", program);
+        if (program.mainClass() != null) {
+            program.mainClass().accept(this);
+        }
+        list("classdecls", program.classDecls());
+        endTag("program");
+        return null;
+    }
+
+    @Override
+    public String visit(ClassDecl classDecl) {
+        startNode("classdecl", classDecl);
+        textElement("name", classDecl.name());
+        textElement("superName", classDecl.superName());
+        variableList("fields", "field", classDecl.fields());
+        list("methoddecls", classDecl.methoddecls());
+        endTag("classdecl");
+        return null;
+    }
+
+    @Override
+    public String visit(MainClass mainClass) {
+        startNode("mainclass", mainClass);
+        textElement("name", mainClass.name());
+        textElement("argsName", mainClass.argsName());
+        wrapped("mainStatement", mainClass.mainStatement());
+        endTag("mainclass");
+        return null;
+    }
+
+    @Override
+    public String visit(MethodDecl methodDecl) {
+        startNode("methoddecl", methodDecl);
+        wrapped("returnType", methodDecl.returnType());
+        textElement("name", methodDecl.name());
+        variableList("formals", "formal", methodDecl.formals());
+        variableList("vardecls", "vardecl", methodDecl.vardecls());
+        list("body", methodDecl.body());
+        wrapped("ret", methodDecl.ret());
+        endTag("methoddecl");
+        return null;
+    }
+
+    @Override
+    public String visit(FormalArg formalArg) {
+        visitVariableIntroduction(formalArg, "formal");
+        return null;
+    }
+
+    @Override
+    public String visit(VarDecl varDecl) {
+        visitVariableIntroduction(varDecl, "vardecl");
+        return null;
+    }
+
+    @Override
+    public String visit(BlockStatement blockStatement) {
+        startNode("block", blockStatement);
+        list("statements", blockStatement.statements());
+        endTag("block");
+        return null;
+    }
+
+    @Override
+    public String visit(IfStatement ifStatement) {
+        startNode("if", ifStatement);
+        wrapped("cond", ifStatement.cond());
+        wrapped("thencase", ifStatement.thencase());
+        wrapped("elsecase", ifStatement.elsecase());
+        endTag("if");
+        return null;
+    }
+
+    @Override
+    public String visit(WhileStatement whileStatement) {
+        startNode("while", whileStatement);
+        wrapped("cond", whileStatement.cond());
+        wrapped("body", whileStatement.body());
+        endTag("while");
+        return null;
+    }
+
+    @Override
+    public String visit(SysoutStatement sysoutStatement) {
+        startNode("sysout", sysoutStatement);
+        wrapped("arg", sysoutStatement.arg());
+        endTag("sysout");
+        return null;
+    }
+
+    @Override
+    public String visit(AssignStatement assignStatement) {
+        startNode("assign", assignStatement);
+        textElement("lv", assignStatement.lv());
+        wrapped("rv", assignStatement.rv());
+        endTag("assign");
+        return null;
+    }
+
+    @Override
+    public String visit(AssignArrayStatement assignArrayStatement) {
+        startNode("assign-array", assignArrayStatement);
+        textElement("lv", assignArrayStatement.lv());
+        wrapped("index", assignArrayStatement.index());
+        wrapped("rv", assignArrayStatement.rv());
+        endTag("assign-array");
+        return null;
+    }
+
+    @Override
+    public String visit(AndExpr e) {
+        visitBinaryExpr(e, "and");
+        return null;
+    }
+
+    @Override
+    public String visit(LtExpr e) {
+        visitBinaryExpr(e, "lt");
+        return null;
+    }
+
+    @Override
+    public String visit(AddExpr e) {
+        visitBinaryExpr(e, "add");
+        return null;
+    }
+
+    @Override
+    public String visit(SubtractExpr e) {
+        visitBinaryExpr(e, "subtract");
+        return null;
+    }
+
+    @Override
+    public String visit(MultExpr e) {
+        visitBinaryExpr(e, "mult");
+        return null;
+    }
+
+    @Override
+    public String visit(ArrayAccessExpr e) {
+        startNode("array-access", e);
+        wrapped("arrayExpr", e.arrayExpr());
+        wrapped("indexExpr", e.indexExpr());
+        endTag("array-access");
+        return null;
+    }
+
+    @Override
+    public String visit(ArrayLengthExpr e) {
+        startNode("array-length", e);
+        wrapped("arrayExpr", e.arrayExpr());
+        endTag("array-length");
+        return null;
+    }
+
+    @Override
+    public String visit(MethodCallExpr e) {
+        startNode("call", e);
+        wrapped("ownerExpr", e.ownerExpr());
+        textElement("methodId", e.methodId());
+        wrappedList("actuals", "actual", e.actuals());
+        endTag("call");
+        return null;
+    }
+
+    @Override
+    public String visit(IntegerLiteralExpr e) {
+        startNode("int-literal", e);
+        textElement("num", Integer.toString(e.num()));
+        endTag("int-literal");
+        return null;
+    }
+
+    @Override
+    public String visit(TrueExpr e) {
+        leaf("true", e);
+        return null;
+    }
+
+    @Override
+    public String visit(FalseExpr e) {
+        leaf("false", e);
+        return null;
+    }
+
+    @Override
+    public String visit(IdentifierExpr e) {
+        startNode("ref-id", e);
+        textElement("id", e.id());
+        endTag("ref-id");
+        return null;
+    }
+
+    @Override
+    public String visit(ThisExpr e) {
+        leaf("this", e);
+        return null;
+    }
+
+    @Override
+    public String visit(NewIntArrayExpr e) {
+        startNode("new-int-array", e);
+        wrapped("lengthExpr", e.lengthExpr());
+        endTag("new-int-array");
+        return null;
+    }
+
+    @Override
+    public String visit(NewObjectExpr e) {
+        startNode("new-object", e);
+        textElement("classId", e.classId());
+        endTag("new-object");
+        return null;
+    }
+
+    @Override
+    public String visit(NotExpr e) {
+        startNode("not", e);
+        wrapped("e", e.e());
+        endTag("not");
+        return null;
+    }
+
+    @Override
+    public String visit(IntAstType t) {
+        leaf("int", t);
+        return null;
+    }
+
+    @Override
+    public String visit(BoolAstType t) {
+        leaf("bool", t);
+        return null;
+    }
+
+    @Override
+    public String visit(IntArrayAstType t) {
+        leaf("int-array", t);
+        return null;
+    }
+
+    @Override
+    public String visit(RefType t) {
+        startNode("ref", t);
+        textElement("id", t.id());
+        endTag("ref");
+        return null;
+    }
+}
@@ -1,5 +1,6 @@
 package ast;
 
+import utils.Symbols;
 import visitor.Visitor;
 
 import javax.xml.bind.annotation.*;
@@ -8,6 +9,9 @@ import java.util.List;
 public class ClassDecl extends AstNode {
     @XmlElement(required = true)
     private String name;
+    // The id of the name in Symbols
+    @XmlTransient
+    private int nameSymbol = Symbols.NONE;
 
     @XmlElement(required = false)
     private String superName;
@@ -27,6 +31,7 @@ public class ClassDecl extends AstNode {
     public ClassDecl(String name, String superName, List<VarDecl> fields, List<MethodDecl> methoddecls) {
         super();
         this.name = name;
+        this.nameSymbol = Symbols.id(name);
         this.superName = superName;
         this.fields = fields;
         this.methoddecls = methoddecls;
@@ -40,6 +45,11 @@ public class ClassDecl extends AstNode {
         return name;
     }
 
+    /** The id of the name in Symbols. */
+    public int nameSymbol() {
+        return nameSymbol;
+    }
+
     public String superName() {
         return superName;
     }
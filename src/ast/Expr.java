@@ -1,6 +1,23 @@
 package ast;
 
+import javax.xml.bind.annotation.XmlTransient;
+
 public abstract class Expr extends AstNode {
+    // The static type of the expression, set by ValidateTypeVisitor (null before, or if it does not type check),
+    // and read by the later phases (e.g. LLVMGeneratorVisitor for the owners of the calls).
+    // A canonical instance: IntAstType.INSTANCE and the like, or the type of the class (see Class.getType and
+    // SymbolTable.canonicalType)
+    @XmlTransient
+    private AstType staticType;
+
     public Expr() {
     }
+
+    public AstType staticType() {
+        return staticType;
+    }
+
+    public void setStaticType(AstType staticType) {
+        this.staticType = staticType;
+    }
 }
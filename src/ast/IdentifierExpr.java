@@ -1,12 +1,22 @@
 package ast;
 
+import symboltable.Variable;
+import utils.Symbols;
 import visitor.Visitor;
 
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 public class IdentifierExpr extends Expr {
     @XmlElement(required = true)
     private String id;
+    // The id of the identifier in Symbols
+    @XmlTransient
+    private int idSymbol = Symbols.NONE;
+
+    // The variable the identifier refers to, bound by BuildClassHierarchyVisitor (null if it is not declared)
+    @XmlTransient
+    private Variable variable;
 
     // for deserialization only!
     public IdentifierExpr() {
@@ -14,6 +24,7 @@ public class IdentifierExpr extends Expr {
 
     public IdentifierExpr(String id) {
         this.id = id;
+        this.idSymbol = Symbols.id(id);
     }
 
     @Override
@@ -25,7 +36,21 @@ public class IdentifierExpr extends Expr {
         return id;
     }
 
+    /** The id of the identifier in Symbols. */
+    public int idSymbol() {
+        return idSymbol;
+    }
+
     public void setId(String id) {
         this.id = id;
+        this.idSymbol = Symbols.id(id);
+    }
+
+    public Variable variable() {
+        return variable;
+    }
+
+    public void setVariable(Variable variable) {
+        this.variable = variable;
     }
 }
@@ -3,6 +3,8 @@ package ast;
 import visitor.Visitor;
 
 public class IntArrayAstType extends AstType {
+    /** The canonical instance, for the static types of expressions (see Expr.staticType). */
+    public static final IntArrayAstType INSTANCE = new IntArrayAstType();
 
     public IntArrayAstType() {
     }
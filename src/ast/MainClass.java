@@ -1,12 +1,17 @@
 package ast;
 
+import utils.Symbols;
 import visitor.Visitor;
 
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 public class MainClass extends AstNode {
     @XmlElement(required = true)
     private String name;
+    // The id of the name in Symbols
+    @XmlTransient
+    private int nameSymbol = Symbols.NONE;
 
     @XmlElement(required = true)
     private String argsName;
@@ -21,6 +26,7 @@ public class MainClass extends AstNode {
     public MainClass(String name, String argsName, Statement mainStatement) {
         super();
         this.name = name;
+        this.nameSymbol = Symbols.id(name);
         this.argsName = argsName;
         this.mainStatement = new StatementWrapper(mainStatement);
     }
@@ -34,6 +40,11 @@ public class MainClass extends AstNode {
         return name;
     }
 
+    /** The id of the name in Symbols. */
+    public int nameSymbol() {
+        return nameSymbol;
+    }
+
     public String argsName() {
         return argsName;
     }
@@ -1,9 +1,11 @@
 package ast;
 
+import utils.Symbols;
 import visitor.Visitor;
 
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlTransient;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -12,6 +14,9 @@ public class MethodCallExpr extends Expr {
     private ExprWrapper ownerExpr;
     @XmlElement(required = true)
     private String methodId;
+    // The id of the method in Symbols
+    @XmlTransient
+    private int methodIdSymbol = Symbols.NONE;
 
     @XmlElementWrapper(name = "actuals", required = true)
     @XmlElement(name = "actual")
@@ -24,6 +29,7 @@ public class MethodCallExpr extends Expr {
     public MethodCallExpr(Expr ownerExpr, String methodId, List<Expr> actuals) {
         this.ownerExpr = new ExprWrapper(ownerExpr);
         this.methodId = methodId;
+        this.methodIdSymbol = Symbols.id(methodId);
         this.actuals = actuals.stream().map(e -> new ExprWrapper(e)).collect(Collectors.toList());
     }
 
@@ -40,8 +46,14 @@ public class MethodCallExpr extends Expr {
         return methodId;
     }
 
+    /** The id of the method in Symbols. */
+    public int methodIdSymbol() {
+        return methodIdSymbol;
+    }
+
     public void setMethodId(String methodId) {
         this.methodId = methodId;
+        this.methodIdSymbol = Symbols.id(methodId);
     }
 
     public List<Expr> actuals() {
@@ -1,10 +1,12 @@
 package ast;
 
+import utils.Symbols;
 import visitor.Visitor;
 
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlElements;
+import javax.xml.bind.annotation.XmlTransient;
 import java.util.List;
 
 public class MethodDecl extends AstNode {
@@ -12,6 +14,9 @@ public class MethodDecl extends AstNode {
     private AstTypeWrapper returnType;
     @XmlElement(required = true)
     private String name;
+    // The id of the name in Symbols
+    @XmlTransient
+    private int nameSymbol = Symbols.NONE;
 
     @XmlElementWrapper(name="formals", required = true)
     @XmlElement(name="formal")
@@ -47,6 +52,7 @@ public class MethodDecl extends AstNode {
         super(lineNumber);
         this.returnType = new AstTypeWrapper(returnType);
         this.name = name;
+        this.nameSymbol = Symbols.id(name);
         this.formals = formals;
         this.vardecls = vardecls;
         this.body = body;
@@ -66,8 +72,14 @@ public class MethodDecl extends AstNode {
         return name;
     }
 
+    /** The id of the name in Symbols. */
+    public int nameSymbol() {
+        return nameSymbol;
+    }
+
     public void setName(String name) {
         this.name = name;
+        this.nameSymbol = Symbols.id(name);
     }
 
     public List<FormalArg> formals() {
@@ -1,12 +1,17 @@
 package ast;
 
+import utils.Symbols;
 import visitor.Visitor;
 
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 public class NewObjectExpr extends Expr {
     @XmlElement(required = true)
     private String classId;
+    // The id of the class in Symbols
+    @XmlTransient
+    private int classIdSymbol = Symbols.NONE;
 
     // for deserialization only!
     public NewObjectExpr() {
@@ -14,6 +19,7 @@ public class NewObjectExpr extends Expr {
 
     public NewObjectExpr(String classId) {
         this.classId = classId;
+        this.classIdSymbol = Symbols.id(classId);
     }
 
     @Override
@@ -24,4 +30,9 @@ public class NewObjectExpr extends Expr {
     public String classId() {
         return classId;
     }
+
+    /** The id of the class in Symbols. */
+    public int classIdSymbol() {
+        return classIdSymbol;
+    }
 }
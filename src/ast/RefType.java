@@ -1,12 +1,17 @@
 package ast;
 
+import utils.Symbols;
 import visitor.Visitor;
 
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 public class RefType extends AstType {
     @XmlElement(required = true)
     private String id;
+    // The id of the identifier in Symbols
+    @XmlTransient
+    private int idSymbol = Symbols.NONE;
 
     // for deserialization only!
     public RefType() {
@@ -26,7 +31,13 @@ public class RefType extends AstType {
         return id;
     }
 
+    /** The id of the identifier in Symbols. */
+    public int idSymbol() {
+        return idSymbol;
+    }
+
     public void setId(String id) {
         this.id = id;
+        this.idSymbol = Symbols.id(id);
     }
 }
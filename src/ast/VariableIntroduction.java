@@ -1,7 +1,10 @@
 package ast;
 
+import utils.Symbols;
+
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlSeeAlso;
+import javax.xml.bind.annotation.XmlTransient;
 
 @XmlSeeAlso({VarDecl.class, FormalArg.class})
 public abstract class VariableIntroduction extends AstNode {
@@ -9,6 +12,9 @@ public abstract class VariableIntroduction extends AstNode {
     private AstTypeWrapper type;
     @XmlElement(required = true)
     private String name;
+    // The id of the name in Symbols
+    @XmlTransient
+    private int nameSymbol = Symbols.NONE;
 
     // for deserialization only!
     public VariableIntroduction() {
@@ -18,6 +24,7 @@ public abstract class VariableIntroduction extends AstNode {
         super(lineNumber);
         this.type = new AstTypeWrapper(type);
         this.name = name;
+        this.nameSymbol = Symbols.id(name);
     }
 
     public AstType type() {
@@ -35,7 +42,13 @@ public abstract class VariableIntroduction extends AstNode {
         return name;
     }
 
+    /** The id of the name in Symbols. */
+    public int nameSymbol() {
+        return nameSymbol;
+    }
+
     public void setName(String name) {
         this.name = name;
+        this.nameSymbol = Symbols.id(name);
     }
 }
@@ -5,17 +5,15 @@ import symboltable.Variable;
 
 public final class Alloca implements Gen {
     private Variable variable;
-    private static Alloca instance = null;
+    // One instance per thread, since the instance holds the variable being allocated
+    private static final ThreadLocal<Alloca> instance = ThreadLocal.withInitial(Alloca::new);
 
     // Singleton
     private Alloca() {}
 
-    /** Get a singleton instance of Alloca */
+    /** Get a singleton instance of Alloca (for the current thread) */
     public static Alloca getInstance() {
-        if (instance == null) {
-            instance = new Alloca();
-        }
-        return instance;
+        return instance.get();
     }
 
     /** Set the variable for Alloca */
@@ -1,16 +1,13 @@
 package codegen;
 
 public final class Declare implements Gen {
-    private static Declare instance = null;
+    private static final Declare instance = new Declare();
 
     // Singleton
     private Declare() {}
 
     /** Get a singleton instance of Declare */
     public static Declare getInstance() {
-        if (instance == null) {
-            instance = new Declare();
-        }
         return instance;
     }
 
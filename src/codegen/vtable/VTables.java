@@ -3,56 +3,93 @@ package codegen.vtable;
 import codegen.utils.JavaTypeToLLVMType;
 import codegen.utils.LLVMType;
 import symboltable.Class;
+import symboltable.ClassLayout;
 import symboltable.Method;
 import symboltable.SymbolTable;
 import symboltable.Variable;
+import utils.IntIntMap;
+import utils.Symbols;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class VTables {
 
     public LinkedHashMap<String, ClassVTable> classesTables;
+    private final IdentityHashMap<Method, MethodSignature> signatures;
 
     VTables() {
         classesTables = new LinkedHashMap<>();
+        signatures = new IdentityHashMap<>();
+    }
+
+    /**
+     * The LLVM types of a method, computed once for all its call sites and its vtable entries.
+     */
+    public static class MethodSignature {
+        public final LLVMType returnType;
+        public final List<LLVMType> paramTypes;
+        // The type of a pointer to the function, e.g. "i32 (i8*, i32, i1)*"
+        public final String functionType;
+
+        MethodSignature(Method method) {
+            this.returnType = JavaTypeToLLVMType.getLLVMType(method.getMethodDecl().returnType());
+
+            var paramTypes = new ArrayList<LLVMType>();
+            var functionType = new StringBuilder(returnType + " (i8*");
+            for (Variable param : method.getParamsArray()) {
+                var paramType = JavaTypeToLLVMType.getLLVMType(param.getType());
+                paramTypes.add(paramType);
+                functionType.append(", ").append(paramType);
+            }
+            functionType.append(")*");
+
+            this.paramTypes = Collections.unmodifiableList(paramTypes);
+            this.functionType = functionType.toString();
+        }
     }
 
     public static class ClassVTable {
         public boolean isMainClass;
-        public LinkedHashMap<String, Variable> fieldsTable;
-        public LinkedHashMap<String, Method> methodsTable;
+        public Map<String, Variable> fieldsTable;
+        public Map<String, Method> methodsTable;
+        private IntIntMap methodOffsets;
+        // The methods by index in the vtable, and the offsets of the fields by slot (see Variable.getSlot)
+        private Method[] methodsBySlot;
+        private int[] fieldOffsets;
+        private int classSize;
 
         ClassVTable() {
             boolean isMainClass;
             fieldsTable = new LinkedHashMap<>();
             methodsTable = new LinkedHashMap<>();
+            methodOffsets = new IntIntMap();
+            methodsBySlot = new Method[0];
+            fieldOffsets = new int[0];
+            classSize = 8;
         }
 
-        public int getMethodOffset(String methodName) {
-            int offset = 0;
-
-            for (Map.Entry<String, Method> entry : methodsTable.entrySet()) {
-                var _methodName = entry.getKey();
-                if (_methodName.equals(methodName)) return offset;
-                // TODO: From the examples, seems like methods offset is like indexes in array (as opposed to variables
-                // TODO: where we actually count the bytes so we need to increase by 1 and not by 8)
-                offset += 1;
+        /** Compute the offsets of the methods and fields, and the size of the object, from the tables. */
+        void computeOffsets() {
+            methodOffsets = new IntIntMap(methodsTable.size());
+            methodsBySlot = methodsTable.values().toArray(new Method[0]);
+            fieldOffsets = new int[fieldsTable.size()];
+
+            // Methods offsets are indexes in the vtable (as opposed to fields, where we count the bytes)
+            for (String methodName : methodsTable.keySet()) {
+                methodOffsets.put(Symbols.id(methodName), methodOffsets.size());
             }
-            throw new RuntimeException("Method " + methodName + " was not found in the vtable!");
-        }
 
-        public int getVarOffset(String symbol) {
             // We are starting with +8 because the first 8 bytes are for the vtable ptr
             int offset = 8;
 
-            for (Map.Entry entry : fieldsTable.entrySet()) {
-                String fieldName = (String) entry.getKey();
-                Variable field = (Variable) entry.getValue();
-
-                if (fieldName.equals(symbol)) {
-                    return offset;
-                }
+            // The fields are in slot order, so a field inherited from the parent has the parent's offset
+            for (Variable field : fieldsTable.values()) {
+                fieldOffsets[field.getSlot()] = offset;
 
                 switch (JavaTypeToLLVMType.getLLVMType(field.getType())) {
                     case i32: offset += 4;
@@ -63,29 +100,50 @@ public class VTables {
                 }
             }
 
-            throw new RuntimeException(String.format("Variable %s was not found!", symbol));
+            classSize = offset;
         }
 
-        public int getClassSize() {
-            // We are starting with +8 because the first 8 bytes are for the vtable ptr
-            int size = 8;
+        public int getMethodOffset(String methodName) {
+            int offset = methodOffsets.getOrDefault(Symbols.find(methodName), -1);
+            if (offset < 0) {
+                throw new RuntimeException("Method " + methodName + " was not found in the vtable!");
+            }
+            return offset;
+        }
+
+        /** @param symbol The id of the name of the method in Symbols */
+        public int getMethodOffset(int symbol) {
+            int offset = methodOffsets.getOrDefault(symbol, -1);
+            if (offset < 0) {
+                throw new RuntimeException("Method " + Symbols.name(symbol) + " was not found in the vtable!");
+            }
+            return offset;
+        }
 
-            for (Map.Entry entry : fieldsTable.entrySet()) {
-                Variable field = (Variable) entry.getValue();
+        /** @param offset The index of the method in the vtable (see getMethodOffset) */
+        public Method getMethodAt(int offset) {
+            return methodsBySlot[offset];
+        }
 
-                switch (JavaTypeToLLVMType.getLLVMType(field.getType())) {
-                    case i32: size += 4;
-                    break;
-                    case i1: size += 1;
-                    break;
-                    default: size += 8;
-                }
+        /** @param field A field of the class (its own or inherited) */
+        public int getVarOffset(Variable field) {
+            int slot = field.getSlot();
+            if (slot < 0 || slot >= fieldOffsets.length) {
+                throw new RuntimeException(String.format("Variable %s was not found!", field.getSymbol()));
             }
+            return fieldOffsets[slot];
+        }
 
-            return size;
+        public int getClassSize() {
+            return classSize;
         }
     }
 
+    /** The signature of a method that is in any of the vtables. */
+    public MethodSignature getSignature(Method method) {
+        return signatures.get(method);
+    }
+
     public static VTables createVTables(SymbolTable symbolTable) {
         VTables vTables = new VTables();
 
@@ -100,14 +158,15 @@ public class VTables {
                 continue;
             }
 
-            // Get all the accessible methods
-            LinkedHashMap<String, Method> methodsMap = currentClass.getAllMethods();
-
-            // Fet all the accessible fields
-            LinkedHashMap<String, Variable> fieldsMap = currentClass.getAllVariables();
+            // The accessible methods and fields, shared with the (frozen) layout of the class
+            ClassLayout layout = currentClass.getLayout();
+            classVTable.methodsTable = layout.getMethods();
+            classVTable.fieldsTable = layout.getFields();
+            classVTable.computeOffsets();
 
-            classVTable.methodsTable = methodsMap;
-            classVTable.fieldsTable = fieldsMap;
+            for (Method method : classVTable.methodsTable.values()) {
+                vTables.signatures.computeIfAbsent(method, MethodSignature::new);
+            }
 
 
         }
@@ -141,14 +200,8 @@ public class VTables {
                 String methodName = (String) methodEntry.getKey();
                 Method method = (Method) methodEntry.getValue();
 
-                builder.append("\ti8* bitcast (" + JavaTypeToLLVMType.getLLVMType(method.getMethodDecl().returnType()) + " (i8*");
-
-                // Params
-                for (Variable param : method.getParamsArray()) {
-                    builder.append(", " + JavaTypeToLLVMType.getLLVMType(param.getType()));
-                }
-
-                builder.append(")* @" + method.getParentClass().getName() + "." + methodName + " to i8*)");
+                builder.append("\ti8* bitcast (" + getSignature(method).functionType);
+                builder.append(" @" + method.getParentClass().getName() + "." + methodName + " to i8*)");
                 isFirst = false;
             }
 
@@ -0,0 +1,75 @@
+package semanticanalysis;
+
+import utils.PhaseStats;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The semantic errors of a program, when the checks go on after an error rather than stop at it,
+ * in the order in which they were found. Written as JSON, one object per error. An expression may
+ * hold several of them (e.g. both operands of a +), see ValidateTypeVisitor.
+ */
+public class Diagnostics {
+    /**
+     * @param className The class that was checked, or null if none (e.g. the class hierarchy is invalid)
+     * @param methodName The method that was checked, or null if none (e.g. a field)
+     * @param line The line of the source that holds the error, from 1: the line of the expression or the statement
+     *             in error, or of the declaration that holds it if it has no line (the statements and the
+     *             expressions of an AST read from XML have none), or null if it has none either
+     */
+    public record Diagnostic(SemanticException exception, String className, String methodName, Integer line) {
+        public SemanticError error() {
+            return exception.getErrorCode();
+        }
+    }
+
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+
+    /** @param astLine The line of the error as the AST numbers it (see AstNode.line), from 0, or null */
+    public void report(SemanticException exception, String className, String methodName, Integer astLine) {
+        diagnostics.add(new Diagnostic(exception, className, methodName, astLine != null ? astLine + 1 : null));
+    }
+
+    /** Append the errors of the other diagnostics (e.g. of a single class), keeping their order. */
+    public void addAll(Diagnostics other) {
+        diagnostics.addAll(other.diagnostics);
+    }
+
+    public boolean isEmpty() {
+        return diagnostics.isEmpty();
+    }
+
+    public List<Diagnostic> getAll() {
+        return Collections.unmodifiableList(diagnostics);
+    }
+
+    public void write(Path file, String input) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        try (var writer = new PrintWriter(Files.newBufferedWriter(file))) {
+            writer.println("{");
+            writer.println(String.format("  \"input\": %s,", PhaseStats.quote(input)));
+            writer.println("  \"errors\": [");
+            for (int i = 0; i < diagnostics.size(); i++) {
+                var diagnostic = diagnostics.get(i);
+                writer.println(String.format("    {\"error\": %s, \"message\": %s, \"class\": %s, \"method\": %s, \"line\": %s}%s",
+                        PhaseStats.quote(diagnostic.error().name()),
+                        PhaseStats.quote(diagnostic.exception().getMessage()),
+                        diagnostic.className() != null ? PhaseStats.quote(diagnostic.className()) : "null",
+                        diagnostic.methodName() != null ? PhaseStats.quote(diagnostic.methodName()) : "null",
+                        diagnostic.line(),
+                        i < diagnostics.size() - 1 ? "," : ""));
+            }
+            writer.println("  ]");
+            writer.println("}");
+        }
+    }
+}
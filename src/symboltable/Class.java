@@ -1,8 +1,11 @@
 package symboltable;
 
 import ast.ClassDecl;
+import ast.RefType;
 import semanticanalysis.SemanticError;
 import semanticanalysis.SemanticException;
+import utils.IntMap;
+import utils.Symbols;
 import utils.TreeNode;
 
 import java.util.*;
@@ -10,25 +13,30 @@ import java.util.*;
 public class Class {
     private String name;
     private String parentName;
-    private final HashMap<String, Method> methods;
-    private final HashMap<String, Variable> fields;
+    private final IntMap<Method> methods;
+    private final IntMap<Variable> fields;
     private TreeNode<Class> node;
     private ClassDecl classDecl;
+    private ClassLayout layout;
+    // The canonical type of the class's instances
+    private RefType type;
     boolean isMainClass;
 
     public Class(String name, ClassDecl classDecl) {
         this.name = name;
+        this.type = new RefType(name);
         this.classDecl = classDecl;
-        this.methods = new HashMap<String, Method>();
-        this.fields = new HashMap<String, Variable>();
+        this.methods = new IntMap<Method>();
+        this.fields = new IntMap<Variable>();
         this.isMainClass = false;
     }
 
     public Class(String name, ClassDecl classDecl, boolean isMainClass) {
         this.name = name;
+        this.type = new RefType(name);
         this.classDecl = classDecl;
-        this.methods = new HashMap<String, Method>();
-        this.fields = new HashMap<String, Variable>();
+        this.methods = new IntMap<Method>();
+        this.fields = new IntMap<Variable>();
         this.isMainClass = isMainClass;
     }
 
@@ -55,10 +63,14 @@ public class Class {
         this.classDecl = classDecl;
     }
 
-    public HashMap<String, Method> getMethods() {
+    public Map<String, Method> getMethods() {
+        if (layout != null) {
+            return layout.getDeclaredMethods();
+        }
+
         // Return the methods sorted by the line number
         List<Map.Entry<String, Method> > list =
-                new LinkedList<Map.Entry<String, Method> >(methods.entrySet());
+                entries(methods);
 
         Collections.sort(list, new Comparator<Map.Entry<String, Method> >() {
             public int compare(Map.Entry<String, Method> method1,
@@ -75,17 +87,21 @@ public class Class {
             }
         });
 
-        HashMap<String, Method> temp = new LinkedHashMap<String, Method>();
+        LinkedHashMap<String, Method> temp = new LinkedHashMap<String, Method>();
         for (Map.Entry<String, Method> entry : list) {
             temp.put(entry.getKey(), entry.getValue());
         }
         return temp;
     }
 
-    public HashMap<String, Variable> getFields() {
+    public Map<String, Variable> getFields() {
+        if (layout != null) {
+            return layout.getDeclaredFields();
+        }
+
         // Return the fields sorted by the line number
         List<Map.Entry<String, Variable> > list =
-                new LinkedList<Map.Entry<String, Variable> >(fields.entrySet());
+                entries(fields);
 
         Collections.sort(list, new Comparator<Map.Entry<String, Variable> >() {
             public int compare(Map.Entry<String, Variable> o1,
@@ -102,19 +118,72 @@ public class Class {
             }
         });
 
-        HashMap<String, Variable> temp = new LinkedHashMap<String, Variable>();
+        LinkedHashMap<String, Variable> temp = new LinkedHashMap<String, Variable>();
         for (Map.Entry<String, Variable> entry : list) {
             temp.put(entry.getKey(), entry.getValue());
         }
         return temp;
     }
 
+    // The entries of a map by symbol id, by name, in the iteration order of a HashMap of the names:
+    // the members with no line number (or the same one) keep the order they have always had
+    private static <V> List<Map.Entry<String, V>> entries(IntMap<V> map) {
+        HashMap<String, V> byName = new HashMap<String, V>();
+        for (int index = 0; index < map.size(); index++) {
+            byName.put(Symbols.name(map.keyAt(index)), map.valueAt(index));
+        }
+        return new LinkedList<Map.Entry<String, V>>(byName.entrySet());
+    }
+
     public String getName() {
         return name;
     }
 
     public void setName(String name) {
         this.name = name;
+        this.type = new RefType(name);
+    }
+
+    /** The type of the instances of the class, a single instance (for the static types of expressions). */
+    public RefType getType() {
+        return type;
+    }
+
+    /**
+     * Compute the layout of the class. Called once all of its methods and fields were added, after its
+     * parent's (a class is declared after its parent); no members may be added afterwards.
+     */
+    public void freeze() {
+        this.layout = computeLayout();
+
+        for (Variable field : this.layout.getDeclaredFields().values()) {
+            field.setSlot(this.layout.getFieldSlot(field.getSymbol()));
+        }
+    }
+
+    public boolean isFrozen() {
+        return layout != null;
+    }
+
+    /** The layout of the class, computed anew if the class is not frozen yet. */
+    public ClassLayout getLayout() {
+        return layout != null ? layout : computeLayout();
+    }
+
+    private ClassLayout computeLayout() {
+        var parent = getParentClass();
+        return new ClassLayout(parent == null ? ClassLayout.EMPTY : parent.getLayout(), getMethods(), getFields());
+    }
+
+    /** The parent class in the hierarchy (the root for a class with no superclass), or null for the root. */
+    private Class getParentClass() {
+        return node == null ? null : node.getParent().getData();
+    }
+
+    private void checkNotFrozen() {
+        if (layout != null) {
+            throw new IllegalStateException(String.format("Class %s is frozen", name));
+        }
     }
 
     public TreeNode<Class> getNode() {
@@ -134,6 +203,14 @@ public class Class {
     }
 
     public Boolean addMethod(Method method) {
+        return addMethod(method, true);
+    }
+
+    /**
+     * @param resolveOverride Whether to look up the method that the method overrides now, which needs
+     *                        the parent to be frozen; otherwise it is linked by resolveOverrides
+     */
+    public Boolean addMethod(Method method, boolean resolveOverride) {
         if (method.getName().equals("this")) {
             // this is a saved word - SEMANTIC ERROR #7
             throw new SemanticException(
@@ -141,18 +218,22 @@ public class Class {
             );
         }
 
-        // Overloading is not supported
-        if (this.methods.containsKey(method.getName())) return false;
+        checkNotFrozen();
 
-        if (method.getOriginalMethod() == null) {
-            var allMethods = this.getAllMethods();
-            if (allMethods.containsKey(method.getName())) {
-                // Lookup the hierarchy for a method that the current method is overriding
-                // and set the originalMethod property of the current method to it
-                method.setOriginalMethod(allMethods.get(method.getName()));
+        int symbol = Symbols.id(method.getName());
+
+        // Overloading is not supported
+        if (this.methods.containsKey(symbol)) return false;
+
+        if (resolveOverride && method.getOriginalMethod() == null) {
+            // Lookup the hierarchy for a method that the current method is overriding
+            // and set the originalMethod property of the current method to it
+            var overriddenMethod = getMethod(symbol, true);
+            if (overriddenMethod != null) {
+                method.setOriginalMethod(overriddenMethod);
             }
         }
-        this.methods.put(method.getName(), method);
+        this.methods.put(symbol, method);
         return true;
     }
 
@@ -164,45 +245,90 @@ public class Class {
             );
         }
 
-        if (this.methods.containsKey(methodName)) return false;
+        checkNotFrozen();
+
+        int symbol = Symbols.id(methodName);
+
+        if (this.methods.containsKey(symbol)) return false;
 
         if (method.getOriginalMethod() == null) {
-            var allMethods = this.getAllMethods();
-            if (allMethods.containsKey(methodName)) {
-                // Lookup the hierarchy for a method that the current method is overriding
-                // and set the originalMethod property of the current method to it
-                method.setOriginalMethod(allMethods.get(methodName));
+            // Lookup the hierarchy for a method that the current method is overriding
+            // and set the originalMethod property of the current method to it
+            var overriddenMethod = getMethod(symbol, true);
+            if (overriddenMethod != null) {
+                method.setOriginalMethod(overriddenMethod);
             }
         }
 
-        this.methods.put(methodName, method);
+        this.methods.put(symbol, method);
         return true;
     }
 
-    public Method getMethod(String methodName) {
-        if (this.methods.containsKey(methodName)) {
-            return this.methods.get(methodName);
+    /**
+     * Link the methods of the class that were added without resolving what they override (see
+     * addMethod(Method, boolean)) to the methods of the ancestors that they override. Called once the
+     * parent is frozen, before the class is.
+     */
+    public void resolveOverrides() {
+        checkNotFrozen();
+
+        var parent = getParentClass();
+        if (parent == null) return;
+
+        for (int index = 0; index < this.methods.size(); index++) {
+            var method = this.methods.valueAt(index);
+            if (method.getOriginalMethod() == null) {
+                var overriddenMethod = parent.getMethod(this.methods.keyAt(index), true);
+                if (overriddenMethod != null) {
+                    method.setOriginalMethod(overriddenMethod);
+                }
+            }
         }
+    }
 
-        return null;
+    public Method getMethod(String methodName) {
+        return getMethod(Symbols.find(methodName));
     }
 
     public Method getMethod(String methodName, Boolean searchInAncestors) {
+        return getMethod(Symbols.find(methodName), searchInAncestors);
+    }
+
+    /** @param symbol The id of the name of the method in Symbols */
+    public Method getMethod(int symbol) {
+        return this.methods.get(symbol);
+    }
+
+    /** @param symbol The id of the name of the method in Symbols */
+    public Method getMethod(int symbol, boolean searchInAncestors) {
         if (searchInAncestors) {
-            var allMethods = getAllMethods();
-            if (allMethods.containsKey(methodName)) {
-                return allMethods.get(methodName);
+            if (layout != null) {
+                return layout.getMethod(symbol);
             }
 
-            return null;
+            // The class is still being built, its parent is frozen already
+            var method = getMethod(symbol);
+            var parent = getParentClass();
+            if (method != null || parent == null) {
+                return method;
+            }
+            return parent.getMethod(symbol, true);
         }
 
         else {
-            return getMethod(methodName);
+            return getMethod(symbol);
         }
     }
 
     public Boolean addVar(Variable variable) {
+        return addVar(variable, true);
+    }
+
+    /**
+     * @param searchInAncestors Whether to check the fields of the ancestors too, which needs the parent
+     *                          to be frozen; otherwise only the fields of the class itself are checked
+     */
+    public Boolean addVar(Variable variable, boolean searchInAncestors) {
         if (variable.getSymbol().equals("this")) {
             // this is a saved word - SEMANTIC ERROR #7
             throw new SemanticException(
@@ -210,9 +336,13 @@ public class Class {
             );
         }
 
-        // Check that the field was not declared before in the class or its ancestors
-        if (getVar(variable.getSymbol(), true) != null) return false;
-        this.fields.put(variable.getSymbol(), variable);
+        checkNotFrozen();
+
+        int symbol = Symbols.id(variable.getSymbol());
+
+        // Check that the field was not declared before in the class (or its ancestors)
+        if (getVar(symbol, searchInAncestors) != null) return false;
+        this.fields.put(symbol, variable);
         return true;
     }
 
@@ -224,28 +354,43 @@ public class Class {
             );
         }
 
+        checkNotFrozen();
+
+        int id = Symbols.id(symbol);
+
         // Check that the field was not declared before in the class or its ancestors
-        if (getVar(symbol, true) != null) return false;
-        this.fields.put(symbol, variable);
+        if (getVar(id, true) != null) return false;
+        this.fields.put(id, variable);
         return true;
     }
 
     public Variable getVar(String symbol) {
-        if (this.fields.containsKey(symbol)) {
-            return this.fields.get(symbol);
-        }
-
-        return null;
+        return getVar(Symbols.find(symbol));
     }
 
     public Variable getVar(String symbol, Boolean searchInAncestors) {
+        return getVar(Symbols.find(symbol), searchInAncestors);
+    }
+
+    /** @param symbol The id of the name of the field in Symbols */
+    public Variable getVar(int symbol) {
+        return this.fields.get(symbol);
+    }
+
+    /** @param symbol The id of the name of the field in Symbols */
+    public Variable getVar(int symbol, boolean searchInAncestors) {
         if (searchInAncestors) {
-            var allVariables = getAllVariables();
-            if (allVariables.containsKey(symbol)) {
-                return allVariables.get(symbol);
+            if (layout != null) {
+                return layout.getField(symbol);
             }
 
-            return null;
+            // The class is still being built, its parent is frozen already
+            var variable = getVar(symbol);
+            var parent = getParentClass();
+            if (variable != null || parent == null) {
+                return variable;
+            }
+            return parent.getVar(symbol, true);
         }
 
         else {
@@ -260,18 +405,7 @@ public class Class {
      * @return the first time the method is found upwards in the inheritance tree, or null if not found
      */
     public Method findMethodUpwards(String methodName) {
-        TreeNode<Class> classNode = this.node;
-
-        while (classNode != null) {
-            // Check if we located the desired method
-            var currClass = classNode.getData();
-            var method = currClass.getMethod(methodName);
-            if (method != null) return method;
-
-            // Couldn't find method, go upwards in tree
-            classNode = classNode.getParent();
-        }
-        return null;
+        return getMethod(methodName, true);
     }
 
     /**
@@ -279,34 +413,8 @@ public class Class {
      * in which they are introduced (methods from parent classes are before current classes)
      * @return A map of the methods (key is the method name, value is Method instance matching that method)
      */
-    public LinkedHashMap<String, Method> getAllMethods(){
-        var methodsMap = new LinkedHashMap<String, Method>();
-        getAllMethodsRecursive(this, methodsMap);
-        return methodsMap;
-    }
-
-    /**
-     * Recursively get all methods that are accessible in the current class, in the order in which
-     * they are introduced, and fill a LinkedHashMap with the methods found (ordered by entrance time)
-     * @param curr The current class
-     * @param methodsMap The map to fill with methods
-     */
-    private void getAllMethodsRecursive(Class curr, LinkedHashMap<String, Method> methodsMap) {
-        if (curr.node == null) {
-            // Reached top level in the class hierarchy
-        }
-
-        else {
-            // Go up to parent
-            getAllMethodsRecursive(curr.node.getParent().getData(), methodsMap);
-        }
-
-        // Add the methods of the current class (if they override any method from one of the parents
-        // then the relevant key will be updated, but the order will remain)
-        // Note - the methods of the current class are ordered by their line number
-        for (Method method: curr.getMethods().values()) {
-            methodsMap.put(method.getName(), method);
-        }
+    public Map<String, Method> getAllMethods(){
+        return getLayout().getMethods();
     }
 
     /**
@@ -314,34 +422,7 @@ public class Class {
      * in which they are introduced (fields from parent classes are before current classes)
      * @return A map of the fields (key is the field name, value is Varialbe instance matching that field)
      */
-    public LinkedHashMap<String, Variable> getAllVariables(){
-        var variablesMap = new LinkedHashMap<String, Variable>();
-        getAllVariablesRecursive(this, variablesMap);
-        return variablesMap;
-    }
-
-    /**
-     * Recursively get all fields that are accessible in the current class, in the order in which
-     * they are introduced, and fill a LinkedHashMap with the fields found (ordered by entrance time)
-     * @param curr The current class
-     * @param variablesMap The map to fill with fields
-     */
-    private void getAllVariablesRecursive(Class curr, LinkedHashMap<String, Variable> variablesMap) {
-        if (curr.node == null) {
-            // Reached top level in the class hierarchy
-        }
-
-        else {
-            // Go up to parent
-            getAllVariablesRecursive(curr.node.getParent().getData(), variablesMap);
-        }
-
-        // Add the fields of the current class (if they override any fields from one of the parents
-        // then the relevant key will be updated, but the order will remain)
-        for (Variable field: curr.getFields().values()) {
-            // Note - the fields of the current class are ordered by their line number
-            variablesMap.put(field.getSymbol(), field);
-        }
-
+    public Map<String, Variable> getAllVariables(){
+        return getLayout().getFields();
     }
 }
@@ -0,0 +1,145 @@
+package symboltable;
+
+import utils.IntIntMap;
+import utils.Symbols;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The members of a class in slot order: the accessible methods (the vtable) and fields (the object),
+ * those of the parent first, in the parent's order, then the class's own ones by line number.
+ * An overriding method keeps the slot of the method it overrides.
+ *
+ * A layout is computed once, when its class is complete (see Class.freeze), from its parent's layout,
+ * and is never modified, so later phases share it instead of walking up the hierarchy. The slot tables
+ * of the parent are copied as arrays; the maps by name are only built when they are asked for.
+ */
+public final class ClassLayout {
+    static final ClassLayout EMPTY = new ClassLayout(null, new LinkedHashMap<>(), new LinkedHashMap<>());
+
+    private final Map<String, Method> declaredMethods;
+    private final Map<String, Variable> declaredFields;
+    // The slots and the members by slot, by symbol id (see Symbols)
+    private final IntIntMap methodSlots;
+    private final IntIntMap fieldSlots;
+    private final Method[] methodsBySlot;
+    private final Variable[] fieldsBySlot;
+    private volatile Map<String, Method> methods;
+    private volatile Map<String, Variable> fields;
+
+    /**
+     * @param parent The layout of the parent class, or null for a class with no members to inherit
+     * @param declaredMethods The methods of the class itself, by line number
+     * @param declaredFields The fields of the class itself, by line number
+     */
+    ClassLayout(ClassLayout parent, Map<String, Method> declaredMethods, Map<String, Variable> declaredFields) {
+        this.declaredMethods = Collections.unmodifiableMap(declaredMethods);
+        this.declaredFields = Collections.unmodifiableMap(declaredFields);
+
+        this.methodSlots = parent == null ? new IntIntMap(declaredMethods.size()) : new IntIntMap(parent.methodSlots);
+        var methodsBySlot = parent == null ? new Method[0] : parent.methodsBySlot;
+        methodsBySlot = Arrays.copyOf(methodsBySlot, methodsBySlot.length + declaredMethods.size());
+        for (Method method : declaredMethods.values()) {
+            methodsBySlot[slotOf(methodSlots, method.getName())] = method;
+        }
+        this.methodsBySlot = Arrays.copyOf(methodsBySlot, methodSlots.size());
+
+        this.fieldSlots = parent == null ? new IntIntMap(declaredFields.size()) : new IntIntMap(parent.fieldSlots);
+        var fieldsBySlot = parent == null ? new Variable[0] : parent.fieldsBySlot;
+        fieldsBySlot = Arrays.copyOf(fieldsBySlot, fieldsBySlot.length + declaredFields.size());
+        for (Variable field : declaredFields.values()) {
+            fieldsBySlot[slotOf(fieldSlots, field.getSymbol())] = field;
+        }
+        this.fieldsBySlot = Arrays.copyOf(fieldsBySlot, fieldSlots.size());
+    }
+
+    // The slot of the member with the given name: the inherited one if there is one, otherwise the next one
+    private static int slotOf(IntIntMap slots, String name) {
+        int symbol = Symbols.id(name);
+        int slot = slots.getOrDefault(symbol, -1);
+        if (slot < 0) {
+            slot = slots.size();
+            slots.put(symbol, slot);
+        }
+        return slot;
+    }
+
+    /** The methods declared in the class itself, by line number. */
+    public Map<String, Method> getDeclaredMethods() {
+        return declaredMethods;
+    }
+
+    /** The fields declared in the class itself, by line number. */
+    public Map<String, Variable> getDeclaredFields() {
+        return declaredFields;
+    }
+
+    /** All the methods accessible in the class, in slot order. */
+    public Map<String, Method> getMethods() {
+        var methods = this.methods;
+        if (methods == null) {
+            var map = new LinkedHashMap<String, Method>();
+            for (Method method : methodsBySlot) {
+                map.put(method.getName(), method);
+            }
+            this.methods = methods = Collections.unmodifiableMap(map);
+        }
+        return methods;
+    }
+
+    /** All the fields accessible in the class, in slot order. */
+    public Map<String, Variable> getFields() {
+        var fields = this.fields;
+        if (fields == null) {
+            var map = new LinkedHashMap<String, Variable>();
+            for (Variable field : fieldsBySlot) {
+                map.put(field.getSymbol(), field);
+            }
+            this.fields = fields = Collections.unmodifiableMap(map);
+        }
+        return fields;
+    }
+
+    public Method getMethod(String methodName) {
+        return getMethod(Symbols.find(methodName));
+    }
+
+    public Variable getField(String symbol) {
+        return getField(Symbols.find(symbol));
+    }
+
+    /** @param symbol The id of the name of the method in Symbols */
+    public Method getMethod(int symbol) {
+        int slot = getMethodSlot(symbol);
+        return slot < 0 ? null : methodsBySlot[slot];
+    }
+
+    /** @param symbol The id of the name of the field in Symbols */
+    public Variable getField(int symbol) {
+        int slot = getFieldSlot(symbol);
+        return slot < 0 ? null : fieldsBySlot[slot];
+    }
+
+    /** @return The index of the method in the vtable, or -1 if the class has no such method */
+    public int getMethodSlot(String methodName) {
+        return getMethodSlot(Symbols.find(methodName));
+    }
+
+    /** @return The index of the field among the fields of the object, or -1 if the class has no such field */
+    public int getFieldSlot(String symbol) {
+        return getFieldSlot(Symbols.find(symbol));
+    }
+
+    /** @param symbol The id of the name of the method in Symbols */
+    public int getMethodSlot(int symbol) {
+        return methodSlots.getOrDefault(symbol, -1);
+    }
+
+    /** @param symbol The id of the name of the field in Symbols */
+    public int getFieldSlot(int symbol) {
+        return fieldSlots.getOrDefault(symbol, -1);
+    }
+}
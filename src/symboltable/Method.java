@@ -4,11 +4,11 @@ import ast.MethodCallExpr;
 import ast.MethodDecl;
 import semanticanalysis.SemanticError;
 import semanticanalysis.SemanticException;
+import utils.IntMap;
+import utils.Symbols;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class Method {
     private Boolean shouldRename = false;
@@ -17,17 +17,17 @@ public class Method {
     private MethodDecl methodDecl;
     private Class parentClass;
     private Method originalMethod;
-    private final HashMap<String, Variable> params; // todo why is this a hashmap and not hashset (or array)?
+    private final IntMap<Variable> params; // todo why is this a hashmap and not hashset (or array)?
     private final List<Variable> paramsArray; // todo check if this is a param?
-    private final HashMap<String, Variable> variables;
+    private final IntMap<Variable> variables;
     private final ArrayList<MethodCallExpr> calls;
 
     public Method(String name, Integer lineNumber, Class parentClass) {
         this.name = name;
         this.lineNumber = lineNumber;
         this.parentClass = parentClass;
-        this.variables = new HashMap<String, Variable>();
-        this.params = new HashMap<String, Variable>();
+        this.variables = new IntMap<Variable>();
+        this.params = new IntMap<Variable>();
         this.paramsArray = new ArrayList<>();
         this.calls = new ArrayList<MethodCallExpr>();
     }
@@ -93,11 +93,14 @@ public class Method {
                     SemanticError.THIS_IS_SAVED_WORD
             );
         }
+        int symbol = Symbols.id(variable.getSymbol());
+
         // A variable cannot be redeclared or override a param
-        if (this.variables.containsKey(variable.getSymbol())) return false;
-        else if (this.params.containsKey(variable.getSymbol())) return false;
+        if (this.variables.containsKey(symbol)) return false;
+        else if (this.params.containsKey(symbol)) return false;
 
-        this.variables.put(variable.getSymbol(), variable);
+        variable.setSlot(getSlotCount());
+        this.variables.put(symbol, variable);
         return true;
     }
 
@@ -109,20 +112,29 @@ public class Method {
             );
         }
 
+        int id = Symbols.id(symbol);
+
         // A variable cannot be redeclared or override a param
-        if (this.variables.containsKey(symbol)) return false;
-        else if (this.params.containsKey(symbol)) return false;
+        if (this.variables.containsKey(id)) return false;
+        else if (this.params.containsKey(id)) return false;
 
-        this.variables.put(symbol, variable);
+        variable.setSlot(getSlotCount());
+        this.variables.put(id, variable);
         return true;
     }
 
+    /** The number of params and local variables, i.e. the slot of the next one. */
+    public int getSlotCount() {
+        return this.params.size() + this.variables.size();
+    }
+
     public Variable getVar(String symbol) {
-        if (this.variables.containsKey(symbol)) {
-            return this.variables.get(symbol);
-        }
+        return getVar(Symbols.find(symbol));
+    }
 
-        return null;
+    /** @param symbol The id of the name of the variable in Symbols */
+    public Variable getVar(int symbol) {
+        return this.variables.get(symbol);
     }
 
     public Boolean addParam(Variable variable) {
@@ -133,11 +145,14 @@ public class Method {
             );
         }
 
+        int symbol = Symbols.id(variable.getSymbol());
+
         // A variable cannot be redeclared or override a param
-        if (this.variables.containsKey(variable.getSymbol())) return false;
-        else if (this.params.containsKey(variable.getSymbol())) return false;
+        if (this.variables.containsKey(symbol)) return false;
+        else if (this.params.containsKey(symbol)) return false;
 
-        this.params.put(variable.getSymbol(), variable);
+        variable.setSlot(getSlotCount());
+        this.params.put(symbol, variable);
         this.paramsArray.add(variable);
         return true;
     }
@@ -150,31 +165,39 @@ public class Method {
             );
         }
 
+        int id = Symbols.id(symbol);
+
         // A variable cannot be redeclared or override a param
-        if (this.variables.containsKey(symbol)) return false;
-        else if (this.params.containsKey(symbol)) return false;
+        if (this.variables.containsKey(id)) return false;
+        else if (this.params.containsKey(id)) return false;
 
-        this.params.put(symbol, variable);
+        variable.setSlot(getSlotCount());
+        this.params.put(id, variable);
         return true;
     }
 
     public Variable getParam(String symbol) {
-        if (this.params.containsKey(symbol)) {
-            return this.params.get(symbol);
-        }
+        return getParam(Symbols.find(symbol));
+    }
 
-        return null;
+    /** @param symbol The id of the name of the param in Symbols */
+    public Variable getParam(int symbol) {
+        return this.params.get(symbol);
     }
 
     public void addCall(MethodCallExpr methodCallExpr) {
         this.calls.add(methodCallExpr);
     }
 
-    public HashMap<String, Variable> getParams() {
+    public IntMap<Variable> getParams() {
         return this.params;
     }
 
     public List<Variable> getParamsArray() {
         return this.paramsArray;
     }
+
+    public IntMap<Variable> getVars() {
+        return this.variables;
+    }
 }
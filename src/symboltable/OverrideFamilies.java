@@ -0,0 +1,101 @@
+package symboltable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The methods of a program grouped by override family: the methods connected by overriding (see
+ * Method.getOriginalMethod), which a rename renames together. The families are found once with a
+ * union-find over the methods, so asking for the family of a method is a lookup rather than a walk
+ * up and down the class hierarchy.
+ */
+final class OverrideFamilies {
+    private final Map<Method, Set<Method>> families = new IdentityHashMap<>();
+
+    OverrideFamilies(Collection<Class> classes) {
+        var methods = new ArrayList<Method>();
+        var indexes = new IdentityHashMap<Method, Integer>();
+        for (Class cls : classes) {
+            for (Method method : cls.getMethods().values()) {
+                indexes.put(method, methods.size());
+                methods.add(method);
+            }
+        }
+
+        var parents = new int[methods.size()];
+        var sizes = new int[methods.size()];
+        for (int index = 0; index < parents.length; index++) {
+            parents[index] = index;
+            sizes[index] = 1;
+        }
+
+        for (int index = 0; index < parents.length; index++) {
+            Integer original = indexes.get(methods.get(index).getOriginalMethod());
+            if (original != null) {
+                union(parents, sizes, index, original);
+            }
+        }
+
+        // The members of each family, by the index of its root
+        var members = new ArrayList<List<Method>>(Collections.nCopies(parents.length, null));
+        for (int index = 0; index < parents.length; index++) {
+            int root = find(parents, index);
+            if (members.get(root) == null) {
+                members.set(root, new ArrayList<>());
+            }
+            members.get(root).add(methods.get(index));
+        }
+
+        for (var family : members) {
+            if (family == null) {
+                continue;
+            }
+            var set = Collections.unmodifiableSet(new HashSet<>(family));
+            for (Method method : family) {
+                families.put(method, set);
+            }
+        }
+    }
+
+    /** @return The family of the method, or just the method if it is not a method of the classes */
+    Set<Method> get(Method method) {
+        return families.getOrDefault(method, Set.of(method));
+    }
+
+    private static int find(int[] parents, int index) {
+        int root = index;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        // Path compression
+        while (parents[index] != root) {
+            int next = parents[index];
+            parents[index] = root;
+            index = next;
+        }
+        return root;
+    }
+
+    private static void union(int[] parents, int[] sizes, int first, int second) {
+        int firstRoot = find(parents, first);
+        int secondRoot = find(parents, second);
+        if (firstRoot == secondRoot) {
+            return;
+        }
+
+        // Union by size
+        if (sizes[firstRoot] < sizes[secondRoot]) {
+            int swap = firstRoot;
+            firstRoot = secondRoot;
+            secondRoot = swap;
+        }
+        parents[secondRoot] = firstRoot;
+        sizes[firstRoot] += sizes[secondRoot];
+    }
+}
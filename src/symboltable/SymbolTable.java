@@ -1,21 +1,43 @@
 package symboltable;
 
 import ast.AstType;
+import ast.BoolAstType;
 import ast.ClassDecl;
+import ast.IntArrayAstType;
+import ast.IntAstType;
 import ast.MethodDecl;
 import ast.RefType;
 import semanticanalysis.SemanticError;
 import semanticanalysis.SemanticException;
+import utils.IntMap;
+import utils.Symbols;
 import utils.Tree;
 import utils.TreeNode;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class SymbolTable {
     public Tree<Class> classHierarchy;
     private HashMap<String, Class> classes;
+    private final IntMap<Class> classesBySymbol = new IntMap<>();
+    private DeclarationIndex declarationIndex;
+    private OverrideFamilies overrideFamilies;
+
+    private record Declaration(String name, Integer lineNumber) {}
+
+    /**
+     * The methods and variables of the program by (name, line number). The lookups by name and line
+     * used to scan all the classes and methods for every query; when several declarations share a
+     * name and a line, the index keeps the one that the scan found first (see indexDeclarations).
+     */
+    private static class DeclarationIndex {
+        private final HashMap<Declaration, Class> classesOfMethods = new HashMap<>();
+        private final HashMap<String, Class> classesOfMethodsByName = new HashMap<>();
+        private final HashMap<Declaration, Variable> variables = new HashMap<>();
+    }
 
     public SymbolTable() {
         this.classes = new HashMap<String, Class>();
@@ -61,6 +83,9 @@ public class SymbolTable {
 
         currentClass.setNode(currentClassNode);
         this.classes.put(id, currentClass);
+        this.classesBySymbol.put(Symbols.id(id), currentClass);
+        this.declarationIndex = null;
+        this.overrideFamilies = null;
 
         return true;
     }
@@ -69,20 +94,73 @@ public class SymbolTable {
         return this.classes.getOrDefault(id, null);
     }
 
-    public Method getMethod(String methodName, Integer lineNumber) {
-        for (Map.Entry mapElement : this.classes.entrySet()) {
-            String className = (String) mapElement.getKey();
-            Class currentClass = ((Class) mapElement.getValue());
+    /** @param symbol The id of the name of the class in Symbols */
+    public Class getClass(int symbol) {
+        return this.classesBySymbol.get(symbol);
+    }
 
-            Method method = currentClass.getMethod(methodName);
+    /**
+     * Index the methods and variables of all the classes by name and line number. Called once the
+     * classes are complete (by BuildClassHierarchyVisitor), otherwise on the first lookup.
+     */
+    public void indexDeclarations() {
+        var index = new DeclarationIndex();
+
+        // Add the declarations in the order in which the lookups used to scan them, keeping the first
+        for (Map.Entry<String, Class> classEntry : this.classes.entrySet()) {
+            Class currentClass = classEntry.getValue();
+
+            for (Map.Entry<String, Method> methodEntry : currentClass.getMethods().entrySet()) {
+                Method method = methodEntry.getValue();
+                index.classesOfMethodsByName.putIfAbsent(methodEntry.getKey(), currentClass);
+                if (method.getLineNumber() != null) {
+                    index.classesOfMethods.putIfAbsent(new Declaration(methodEntry.getKey(), method.getLineNumber()), currentClass);
+                }
 
-            if (method != null && (lineNumber == null ||
-                    (method.getLineNumber() != null && method.getLineNumber().equals(lineNumber)))) {
-                return method;
+                indexVariables(index, method.getParams());
+                indexVariables(index, method.getVars());
             }
+
+            indexVariables(index, currentClass.getFields());
         }
 
-        return null;
+        this.declarationIndex = index;
+    }
+
+    private static void indexVariables(DeclarationIndex index, Map<String, Variable> variables) {
+        for (Map.Entry<String, Variable> entry : variables.entrySet()) {
+            indexVariable(index, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static void indexVariables(DeclarationIndex index, IntMap<Variable> variables) {
+        for (int i = 0; i < variables.size(); i++) {
+            indexVariable(index, Symbols.name(variables.keyAt(i)), variables.valueAt(i));
+        }
+    }
+
+    private static void indexVariable(DeclarationIndex index, String name, Variable variable) {
+        if (variable.getLineNumber() != null) {
+            index.variables.putIfAbsent(new Declaration(name, variable.getLineNumber()), variable);
+        }
+    }
+
+    private DeclarationIndex declarations() {
+        if (this.declarationIndex == null) {
+            indexDeclarations();
+        }
+        return this.declarationIndex;
+    }
+
+    /**
+     * @param lineNumber The line of the declaration, or null for any method with the name
+     */
+    public Method getMethod(String methodName, Integer lineNumber) {
+        Class currentClass = lineNumber == null
+                ? declarations().classesOfMethodsByName.get(methodName)
+                : declarations().classesOfMethods.get(new Declaration(methodName, lineNumber));
+
+        return currentClass == null ? null : currentClass.getMethod(methodName);
     }
 
     public Method getOverridenMethod(Method method) {
@@ -96,80 +174,74 @@ public class SymbolTable {
         return null;
     }
 
+    /**
+     * Number the class hierarchy, for isSubclass (see Tree.number). Called once the classes are complete
+     * (by BuildClassHierarchyVisitor), otherwise on the first query.
+     */
+    public void numberClassHierarchy() {
+        this.classHierarchy.number();
+    }
+
     /** return true iff class1 is a subtype of class2 */
     public boolean isSubclass(Class class1, Class class2){
-        Class current_class = class1;
-        while(current_class != null){
-            if (current_class.getName().equals(class2.getName())) return true;
-            current_class = getClass(current_class.getParentName());
-        }
-        return false;
+        if (class1 == null || class2 == null) return false;
+
+        // The class names are unique, so class1 is a subtype of class2 iff it is in its subtree: two
+        // comparisons of pre-order numbers, the hierarchy being numbered once it is complete
+        return this.classHierarchy.isInSubtree(class1.getNode(), class2.getNode());
     }
 
     /** return true iff type1 is a subtype of type2 */
     public boolean isSubtype(AstType type1, AstType type2){
-        // Check if both types are of the same class
-        if (!type1.getClass().equals(type2.getClass())) return false;
-
-        if (type1 instanceof RefType){
-            Class class1 = getClass(((RefType) type1).id());
-            Class class2 = getClass(((RefType) type2).id());
-            return isSubclass(class1, class2);
+        if (type1 instanceof RefType && type2 instanceof RefType) {
+            return isSubclass(getClass(((RefType) type1).idSymbol()), getClass(((RefType) type2).idSymbol()));
         }
 
-        return true;
+        // The primitive types are the same iff they have the same canonical instance
+        return canonicalType(type1) == canonicalType(type2);
     }
 
-    public Variable getVarByNameAndLine(String varName, Integer lineNumber) {
-        Variable var;
-        for (Map.Entry mapElement : this.classes.entrySet()) {
-            String className = (String) mapElement.getKey();
-            Class currentClass = ((Class) mapElement.getValue());
-
-            for (Method method: currentClass.getMethods().values()) {
-                // Search in params
-                var = method.getParam(varName);
-
-                if (var != null && var.getLineNumber() != null && var.getLineNumber().equals(lineNumber)) {
-                    return var;
-                }
-
-                // Search in variables
-                var = method.getVar(varName);
-
-                if (var != null && var.getLineNumber() != null && var.getLineNumber().equals(lineNumber)) {
-                    return var;
-                }
-
-            }
-
-            // Search in fields
-            var = currentClass.getVar(varName);
-
-            if (var != null && var.getLineNumber() != null && var.getLineNumber().equals(lineNumber)) {
-                return var;
-            }
-
+    /**
+     * The canonical instance of a declared type (e.g. of a variable), which is a node of the AST:
+     * IntAstType.INSTANCE and the like, or the type of the class (see Class.getType), see Expr.staticType.
+     * The type of an unknown class is returned as is.
+     */
+    public AstType canonicalType(AstType type) {
+        if (type instanceof IntAstType)
+            return IntAstType.INSTANCE;
+        else if (type instanceof BoolAstType)
+            return BoolAstType.INSTANCE;
+        else if (type instanceof IntArrayAstType)
+            return IntArrayAstType.INSTANCE;
+        else if (type instanceof RefType) {
+            Class cls = getClass(((RefType) type).idSymbol());
+            return cls != null ? cls.getType() : type;
         }
+        return type;
+    }
 
-        return null;
+    public Variable getVarByNameAndLine(String varName, Integer lineNumber) {
+        return declarations().variables.get(new Declaration(varName, lineNumber));
     }
 
     public Class getClassOfMethod(String methodName, Integer lineNumber) {
-        for (Map.Entry mapElement : this.classes.entrySet()) {
-            String className = (String) mapElement.getKey();
-            Class currentClass = ((Class) mapElement.getValue());
-            Method method = currentClass.getMethod(methodName);
+        return declarations().classesOfMethods.get(new Declaration(methodName, lineNumber));
+    }
 
-            if (method != null && method.getLineNumber() != null && method.getLineNumber().equals(lineNumber)) {
-                return currentClass;
-            }
+    /**
+     * The override family of the method: the methods connected to it by overriding (see
+     * Method.getOriginalMethod), which are renamed together. The families are grouped once, on the
+     * first query, so the classes must be complete by then.
+     */
+    public Set<Method> getOverrideFamily(Method method) {
+        if (this.overrideFamilies == null) {
+            this.overrideFamilies = new OverrideFamilies(this.classes.values());
         }
-        return null;
+        return this.overrideFamilies.get(method);
     }
 
-    public ArrayList<MethodDecl> getAllMethodsDeclarations(String methodName, Integer lineNumber) {
-        ArrayList<MethodDecl> methodDeclarations = new ArrayList<MethodDecl>();
+    /** @throws RuntimeException If there is no such method */
+    private Method getDeclaredMethod(String methodName, Integer lineNumber) {
         Class classScope = getClassOfMethod(methodName, lineNumber);
 
         if (classScope == null) {
@@ -180,130 +252,55 @@ public class SymbolTable {
             );
         }
 
-        TreeNode<Class> currentClassNode = classScope.getNode().getParent();
-        TreeNode<Class> oldestValidParent = classScope.getNode();
-
-        // Traverse up the tree
-        while (!currentClassNode.equals(this.classHierarchy.getRoot())) {
-            Method method = currentClassNode.getData().getMethod(methodName);
-
-            if (method != null) {
-                // Parent class contains a declaration of the method (the current method is overriding it)
-                // Add the declaration to the list
-                oldestValidParent = currentClassNode;
-            }
-
-            currentClassNode = currentClassNode.getParent();
-        }
-
-        // Traverse down the tree (search method declarations in all children)
-        getAllMethodDeclarationsDownwards(methodName, oldestValidParent, methodDeclarations);
-        return methodDeclarations;
+        return classScope.getMethod(methodName);
     }
 
-    private void getAllMethodDeclarationsDownwards(String methodName, TreeNode<Class> currentClassNode, ArrayList<MethodDecl> methodDeclarations) {
-        if (currentClassNode == null) {
-            return;
-        }
-
-        Method method = currentClassNode.getData().getMethod(methodName);
+    /** The declarations of the override family of the method, in no particular order. */
+    public ArrayList<MethodDecl> getAllMethodsDeclarations(String methodName, Integer lineNumber) {
+        ArrayList<MethodDecl> methodDeclarations = new ArrayList<MethodDecl>();
 
-        if (method != null) {
-            // Child class contains a declaration of the method (the child method is overriding it)
-            // Add the declaration to the list
+        for (Method method : getOverrideFamily(getDeclaredMethod(methodName, lineNumber))) {
             methodDeclarations.add(method.getMethodDecl());
         }
-
-        for (TreeNode<Class> child : currentClassNode.getChildren()) {
-            getAllMethodDeclarationsDownwards(methodName, child, methodDeclarations);
-        }
+        return methodDeclarations;
     }
 
+    /**
+     * The classes in which the method with the name is one of the override family of the method,
+     * i.e. the subtree of the class of its oldest declaration, in no particular order.
+     */
     public ArrayList<Class> getAllRelevantClasses(String methodName, Integer lineNumber) {
         ArrayList<Class> relevantClasses = new ArrayList<Class>();
-        Class classScope = getClassOfMethod(methodName, lineNumber);
-
-        if (classScope == null) {
-            throw new RuntimeException(
-                    String.format("Method with name %s and line number %d was not found!",
-                            methodName, lineNumber
-                    )
-            );
-        }
+        Set<Method> family = getOverrideFamily(getDeclaredMethod(methodName, lineNumber));
 
-        TreeNode<Class> currentClassNode = classScope.getNode().getParent();
-        TreeNode<Class> oldestValidParent = classScope.getNode();
-
-        // Traverse up the tree
-        while (!currentClassNode.equals(this.classHierarchy.getRoot())) {
-            Method method = currentClassNode.getData().getMethod(methodName);
-
-            if (method != null) {
-                // Parent class contains a declaration of the method (the current method is overriding it)
-                // Add the declaration to the list
-                oldestValidParent = currentClassNode;
+        for (Class currentClass : this.classes.values()) {
+            if (family.contains(currentClass.getMethod(methodName, true))) {
+                relevantClasses.add(currentClass);
             }
-
-            currentClassNode = currentClassNode.getParent();
         }
-
-        // Traverse down the tree (search method declarations in all children)
-        getAllRelevantClassesDownwards(oldestValidParent, relevantClasses);
         return relevantClasses;
     }
 
-    private void getAllRelevantClassesDownwards(TreeNode<Class> currentClassNode, ArrayList<Class> relevantClasses) {
-        if (currentClassNode == null) {
-            return;
-        }
-
-        relevantClasses.add(currentClassNode.getData());
-
-        for (TreeNode<Class> child : currentClassNode.getChildren()) {
-            getAllRelevantClassesDownwards(child, relevantClasses);
-        }
-    }
-
+    /** The names of getAllRelevantClasses. */
     public ArrayList<String> getAllRelevantClassNames(String methodName, Integer lineNumber) {
         ArrayList<String> relevantClassNames = new ArrayList<String>();
-        Class classScope = getClassOfMethod(methodName, lineNumber);
-
-        if (classScope == null) {
-            throw new RuntimeException(
-                    String.format("Method with name %s and line number %d was not found!",
-                            methodName, lineNumber
-                    )
-            );
-        }
-
-        // Add the class declaration to the list
-        relevantClassNames.add(classScope.getName());
-
-        TreeNode<Class> currentClassNode = classScope.getNode().getParent();
 
-        // Traverse up the tree
-        while (!currentClassNode.equals(this.classHierarchy.getRoot())) {
-            relevantClassNames.add(classScope.getName());
+        for (Class relevantClass : getAllRelevantClasses(methodName, lineNumber)) {
+            relevantClassNames.add(relevantClass.getName());
         }
-
-        // Traverse down the tree
-        getAllRelevantClassNamesDownwards(currentClassNode, relevantClassNames);
         return relevantClassNames;
     }
 
-    private void getAllRelevantClassNamesDownwards(TreeNode<Class> currentClassNode, ArrayList<String> relevantClassNames) {
-        if (currentClassNode == null) {
-            return;
-        }
-
-        relevantClassNames.add(currentClassNode.getData().getName());
+    public Variable getVar(Method methodScope, String symbol) {
+        return getVar(methodScope, Symbols.find(symbol));
+    }
 
-        for (TreeNode<Class> child : currentClassNode.getChildren()) {
-            getAllRelevantClassNamesDownwards(child, relevantClassNames);
-        }
+    public Variable getVar(Class classScope, String symbol) {
+        return getVar(classScope, Symbols.find(symbol));
     }
 
-    public Variable getVar(Method methodScope, String symbol) {
+    /** @param symbol The id of the name of the variable in Symbols */
+    public Variable getVar(Method methodScope, int symbol) {
         Variable variable = methodScope.getParam(symbol);
 
         // If we found the symbol in params - return it
@@ -324,18 +321,9 @@ public class SymbolTable {
 
     }
 
-    public Variable getVar(Class classScope, String symbol) {
-        if (classScope.equals(this.classHierarchy.getRoot().getData())) {
-            // Reached top
-            return null;
-        }
-        Variable variable = classScope.getVar(symbol);
-
-        if (variable != null) {
-            return variable;
-        }
-
-        return getVar(classScope.getNode().getParent().getData(), symbol);
-
+    /** @param symbol The id of the name of the variable in Symbols */
+    public Variable getVar(Class classScope, int symbol) {
+        // The fields of the class and its ancestors (none for the root)
+        return classScope.getVar(symbol, true);
     }
 }
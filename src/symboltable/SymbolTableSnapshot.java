@@ -0,0 +1,380 @@
+package symboltable;
+
+import ast.*;
+import utils.ResultCache;
+import visitor.VariableUseVisitor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * The symbol table that BuildClassHierarchyVisitor builds for a program, stored on disk so that another
+ * invocation on the same program restores it instead of building it again.
+ *
+ * An entry is keyed by the SHA-256 of the compiler version and the input the AST is read from. The
+ * declarations themselves are taken from the AST being compiled, and the snapshot only holds what the
+ * build resolves about them, as indexes in the order BuildClassHierarchyVisitor declares them: the
+ * parent of each class, the method each method overrides, and the declaration each use of a variable
+ * is bound to (in the order of VariableUseVisitor). The counts of members of each class and method
+ * are kept as well, to reject an entry that does not match the AST.
+ *
+ * Only the symbol tables of valid hierarchies are stored (the build throws on the others). Entries are
+ * written to a temporary file and moved in place, like those of ResultCache; a missing or malformed
+ * entry is a miss.
+ */
+public class SymbolTableSnapshot {
+    private static final byte[] MAGIC = {'M', 'J', 'S', 'T'};
+    private static final int VERSION = 1;
+    private static final int NONE = -1;
+
+    // By class, in declaration order (the main class first)
+    private final int[] classParents;
+    private final int[] classFieldCounts;
+    private final int[] classMethodCounts;
+    // By method, in declaration order
+    private final int[] methodOverrides;
+    private final int[] methodParamCounts;
+    private final int[] methodLocalCounts;
+    // By use of a variable, the index of its declaration in declaration order
+    private final int[] bindings;
+
+    private SymbolTableSnapshot(int[] classParents, int[] classFieldCounts, int[] classMethodCounts,
+                                int[] methodOverrides, int[] methodParamCounts, int[] methodLocalCounts,
+                                int[] bindings) {
+        this.classParents = classParents;
+        this.classFieldCounts = classFieldCounts;
+        this.classMethodCounts = classMethodCounts;
+        this.methodOverrides = methodOverrides;
+        this.methodParamCounts = methodParamCounts;
+        this.methodLocalCounts = methodLocalCounts;
+        this.bindings = bindings;
+    }
+
+    /** The snapshot of the symbol table that BuildClassHierarchyVisitor built for the program. */
+    public static SymbolTableSnapshot capture(Program program, SymbolTable symbolTable) {
+        var classDecls = program.classDecls();
+        var classes = new IdentityHashMap<Class, Integer>();
+        var methods = new IdentityHashMap<Method, Integer>();
+        var variables = new IdentityHashMap<Variable, Integer>();
+
+        int classCount = classDecls.size() + 1;
+        var classParents = new int[classCount];
+        var classFieldCounts = new int[classCount];
+        var classMethodCounts = new int[classCount];
+        var methodOverrides = new ArrayList<Integer>();
+        var methodParamCounts = new ArrayList<Integer>();
+        var methodLocalCounts = new ArrayList<Integer>();
+
+        var mainClass = symbolTable.getClass(program.mainClass().nameSymbol());
+        var mainMethod = mainClass.getMethod("main");
+        classes.put(mainClass, 0);
+        classParents[0] = NONE;
+        classMethodCounts[0] = 1;
+        methods.put(mainMethod, 0);
+        methodOverrides.add(NONE);
+        methodParamCounts.add(1);
+        methodLocalCounts.add(0);
+        variables.put(mainMethod.getParamsArray().get(0), 0);
+
+        for (int index = 0; index < classDecls.size(); index++) {
+            var classDecl = classDecls.get(index);
+            var cls = symbolTable.getClass(classDecl.nameSymbol());
+            classes.put(cls, index + 1);
+            // A class with no superclass is a child of the root, which is not a class of the program
+            classParents[index + 1] = classes.getOrDefault(cls.getNode().getParent().getData(), NONE);
+            classFieldCounts[index + 1] = classDecl.fields().size();
+            classMethodCounts[index + 1] = classDecl.methoddecls().size();
+
+            for (var fieldDecl : classDecl.fields()) {
+                variables.put(cls.getVar(fieldDecl.nameSymbol()), variables.size());
+            }
+
+            for (var methodDecl : classDecl.methoddecls()) {
+                var method = cls.getMethod(methodDecl.nameSymbol());
+                var originalMethod = method.getOriginalMethod();
+                methods.put(method, methods.size());
+                methodOverrides.add(originalMethod == null ? NONE : methods.get(originalMethod));
+                methodParamCounts.add(methodDecl.formals().size());
+                methodLocalCounts.add(methodDecl.vardecls().size());
+
+                for (var formal : methodDecl.formals()) {
+                    variables.put(method.getParam(formal.nameSymbol()), variables.size());
+                }
+                for (var varDecl : methodDecl.vardecls()) {
+                    variables.put(method.getVar(varDecl.nameSymbol()), variables.size());
+                }
+            }
+        }
+
+        var uses = uses(program);
+        var bindings = new int[uses.size()];
+        for (int index = 0; index < bindings.length; index++) {
+            var variable = variableOf(uses.get(index));
+            bindings[index] = variable == null ? NONE : variables.get(variable);
+        }
+
+        return new SymbolTableSnapshot(classParents, classFieldCounts, classMethodCounts,
+                toArray(methodOverrides), toArray(methodParamCounts), toArray(methodLocalCounts), bindings);
+    }
+
+    /**
+     * Build the symbol table of the program from the snapshot, as BuildClassHierarchyVisitor would,
+     * without looking up the parents, the overridden methods and the declarations of the uses.
+     * @return The symbol table, with the uses of the program bound, or null if the snapshot does not
+     * match the program (nothing is bound then)
+     */
+    public SymbolTable restore(Program program) {
+        var classDecls = program.classDecls();
+        if (classParents.length != classDecls.size() + 1) {
+            return null;
+        }
+
+        var symbolTable = new SymbolTable();
+        var classes = new ArrayList<Class>(classParents.length);
+        var methods = new ArrayList<Method>(methodOverrides.length);
+        var variables = new ArrayList<Variable>();
+
+        var mainClass = program.mainClass();
+        symbolTable.addClass(mainClass.name(), null, null, true);
+        var mainClassEntry = symbolTable.getClass(mainClass.nameSymbol());
+        var mainMethod = new Method("main", null, symbolTable.classHierarchy.getRoot().getData());
+        mainClassEntry.addMethod(mainMethod);
+        var args = new Variable(mainClass.argsName(), new IntArrayAstType(), null, false, false, true);
+        mainMethod.addParam(args);
+        mainClassEntry.freeze();
+        classes.add(mainClassEntry);
+        methods.add(mainMethod);
+        variables.add(args);
+
+        for (int index = 0; index < classDecls.size(); index++) {
+            var classDecl = classDecls.get(index);
+            if (classFieldCounts[index + 1] != classDecl.fields().size()
+                    || classMethodCounts[index + 1] != classDecl.methoddecls().size()
+                    || methods.size() + classDecl.methoddecls().size() > methodOverrides.length) {
+                return null;
+            }
+
+            if (!symbolTable.addClass(classDecl.name(), classDecl.superName(), classDecl, false)) {
+                return null;
+            }
+            var cls = symbolTable.getClass(classDecl.nameSymbol());
+            var parent = cls.getNode().getParent();
+            int parentIndex = classParents[index + 1];
+            boolean parentMatches = parentIndex == NONE
+                    ? parent == symbolTable.classHierarchy.getRoot()
+                    : parentIndex >= 0 && parentIndex <= index && parent.getData() == classes.get(parentIndex);
+            if (!parentMatches) {
+                return null;
+            }
+            classes.add(cls);
+
+            for (var fieldDecl : classDecl.fields()) {
+                var field = new Variable(fieldDecl.name(), fieldDecl.type(), fieldDecl.lineNumber, true, false, false);
+                if (!cls.addVar(field)) {
+                    return null;
+                }
+                variables.add(field);
+            }
+
+            for (var methodDecl : classDecl.methoddecls()) {
+                int methodIndex = methods.size();
+                if (methodParamCounts[methodIndex] != methodDecl.formals().size()
+                        || methodLocalCounts[methodIndex] != methodDecl.vardecls().size()
+                        || methodOverrides[methodIndex] < NONE || methodOverrides[methodIndex] >= methodIndex) {
+                    return null;
+                }
+
+                var method = new Method(methodDecl.name(), methodDecl.lineNumber, cls, methodDecl);
+                if (methodOverrides[methodIndex] != NONE) {
+                    method.setOriginalMethod(methods.get(methodOverrides[methodIndex]));
+                }
+                if (!cls.addMethod(method)) {
+                    return null;
+                }
+                methods.add(method);
+
+                for (var formal : methodDecl.formals()) {
+                    var param = new Variable(formal.name(), formal.type(), formal.lineNumber, false, false, true);
+                    if (!method.addParam(param)) {
+                        return null;
+                    }
+                    variables.add(param);
+                }
+                for (var varDecl : methodDecl.vardecls()) {
+                    var local = new Variable(varDecl.name(), varDecl.type(), varDecl.lineNumber, false, true, false);
+                    if (!method.addVar(local)) {
+                        return null;
+                    }
+                    variables.add(local);
+                }
+            }
+
+            cls.freeze();
+        }
+
+        if (methods.size() != methodOverrides.length) {
+            return null;
+        }
+
+        var uses = uses(program);
+        if (uses.size() != bindings.length) {
+            return null;
+        }
+        for (int binding : bindings) {
+            if (binding < NONE || binding >= variables.size()) {
+                return null;
+            }
+        }
+
+        symbolTable.indexDeclarations();
+        symbolTable.numberClassHierarchy();
+
+        for (int index = 0; index < bindings.length; index++) {
+            bind(uses.get(index), bindings[index] == NONE ? null : variables.get(bindings[index]));
+        }
+        return symbolTable;
+    }
+
+    private static List<AstNode> uses(Program program) {
+        var useVisitor = new VariableUseVisitor();
+        useVisitor.visit(program);
+        return useVisitor.getUses();
+    }
+
+    private static Variable variableOf(AstNode use) {
+        if (use instanceof IdentifierExpr) {
+            return ((IdentifierExpr) use).variable();
+        } else if (use instanceof AssignStatement) {
+            return ((AssignStatement) use).variable();
+        } else {
+            return ((AssignArrayStatement) use).variable();
+        }
+    }
+
+    private static void bind(AstNode use, Variable variable) {
+        if (use instanceof IdentifierExpr) {
+            ((IdentifierExpr) use).setVariable(variable);
+        } else if (use instanceof AssignStatement) {
+            ((AssignStatement) use).setVariable(variable);
+        } else {
+            ((AssignArrayStatement) use).setVariable(variable);
+        }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        var array = new int[list.size()];
+        for (int index = 0; index < array.length; index++) {
+            array[index] = list.get(index);
+        }
+        return array;
+    }
+
+    /**
+     * The path of the entry of the program read from the input file with the input method (see Main).
+     * The AST is a function of the input, so the entry is keyed by the bytes of the input rather than
+     * by those of the AST, which take longer to write out than the symbol table takes to build.
+     * @param inputHash The hash of the bytes of the input, which ResultCache keys its entries by as well
+     *                  (see ResultCache.hashInput)
+     */
+    public static Path entryOf(Path directory, String inputMethod, byte[] inputHash) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        digest.update(ResultCache.compilerVersion());
+        digest.update(("symbols\0" + inputMethod + "\0").getBytes(StandardCharsets.UTF_8));
+        digest.update(inputHash);
+
+        var key = HexFormat.of().formatHex(digest.digest());
+        return directory.resolve("symbols").resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    /** @return The snapshot stored as the entry, or null if there is none or it is malformed */
+    public static SymbolTableSnapshot load(Path entry) throws IOException {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(entry);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        try (var in = new DataInputStream(new ByteArrayInputStream(content))) {
+            var magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readInt() != VERSION) {
+                return null;
+            }
+
+            var classParents = readInts(in);
+            var classFieldCounts = readInts(in);
+            var classMethodCounts = readInts(in);
+            var methodOverrides = readInts(in);
+            var methodParamCounts = readInts(in);
+            var methodLocalCounts = readInts(in);
+            var bindings = readInts(in);
+            if (classFieldCounts.length != classParents.length || classMethodCounts.length != classParents.length
+                    || methodParamCounts.length != methodOverrides.length
+                    || methodLocalCounts.length != methodOverrides.length
+                    || in.read() != -1) {
+                return null;
+            }
+
+            return new SymbolTableSnapshot(classParents, classFieldCounts, classMethodCounts,
+                    methodOverrides, methodParamCounts, methodLocalCounts, bindings);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /** Store the snapshot as the entry. */
+    public void store(Path entry) throws IOException {
+        Files.createDirectories(entry.getParent());
+        var temp = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), ".tmp");
+
+        try {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.write(MAGIC);
+                out.writeInt(VERSION);
+                writeInts(out, classParents);
+                writeInts(out, classFieldCounts);
+                writeInts(out, classMethodCounts);
+                writeInts(out, methodOverrides);
+                writeInts(out, methodParamCounts);
+                writeInts(out, methodLocalCounts);
+                writeInts(out, bindings);
+            }
+            Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available() / Integer.BYTES) {
+            throw new EOFException();
+        }
+
+        var ints = new int[length];
+        for (int index = 0; index < length; index++) {
+            ints[index] = in.readInt();
+        }
+        return ints;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] ints) throws IOException {
+        out.writeInt(ints.length);
+        for (int value : ints) {
+            out.writeInt(value);
+        }
+    }
+}
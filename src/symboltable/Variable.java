@@ -10,6 +10,9 @@ public class Variable {
     private String symbol;
     private Integer lineNumber;
     private AstType type;
+    // Params and locals: the index among those of the method (params first, in order).
+    // Fields: the index among the fields of the layout of the class. -1 until the variable is added.
+    private int slot = -1;
 
     public Variable(String symbol, AstType type, Integer lineNumber) {
         this.symbol = symbol;
@@ -63,4 +66,12 @@ public class Variable {
     public Boolean isLocalVariable() {
         return isLocalVariable;
     }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
 }
@@ -1,41 +1,34 @@
 package utils;
 
-import java.util.HashMap;
-import java.util.Map;
-
+/**
+ * The local variables of a method that are definitely initialized at some point of its body, as a
+ * bitset over their slots (see Variable.getSlot). A copy is taken where the control flow splits, and
+ * the paths are joined by intersecting in place.
+ */
 public class InitMap {
-    private Map<String, Boolean> map;
+    private final long[] words;
 
-    public InitMap(){
-        map = new HashMap<String, Boolean>();
+    /** @param slots The number of slots of the method (see Method.getSlotCount), none initialized */
+    public InitMap(int slots) {
+        this.words = new long[(slots + Long.SIZE - 1) / Long.SIZE];
     }
 
-    public InitMap(InitMap other){
-        this.map = new HashMap<String, Boolean>();
-        for (Map.Entry<String, Boolean> v : other.map.entrySet()) {
-            map.put(v.getKey(), v.getValue());
-        }
+    public InitMap(InitMap other) {
+        this.words = other.words.clone();
     }
 
-    public void addVariable(String v){
-        map.put(v, false);
-    }
-
-    public static InitMap merge(InitMap map1, InitMap map2){
-        InitMap res = new InitMap();
-        for (Map.Entry<String, Boolean> v : map1.map.entrySet()) {
-            if(v.getValue() && map2.map.get(v.getKey())) res.map.put(v.getKey(), true);
-            else res.map.put(v.getKey(), false);
+    /** Keep only the variables that are initialized in the other map as well (the join of two paths). */
+    public void intersect(InitMap other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= other.words[i];
         }
-        return res;
     }
 
-    public boolean isInit(String v){
-        return map.get(v);
+    public boolean isInit(int slot) {
+        return (words[slot / Long.SIZE] & (1L << slot)) != 0;
     }
 
-    public void init(String v){
-        map.put(v, true);
+    public void init(int slot) {
+        words[slot / Long.SIZE] |= 1L << slot;
     }
-
 }
@@ -0,0 +1,113 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A map from non negative int keys (symbol ids, see Symbols) to int values (e.g. slots), like IntMap
+ * but with primitive values, so neither a lookup nor an insertion boxes. Looking up a negative key
+ * (e.g. Symbols.NONE) finds nothing. There is no removal.
+ */
+public final class IntIntMap {
+    private static final int MIN_CAPACITY = 8;
+
+    // The entries in insertion order
+    private int[] keys;
+    private int[] values;
+    private int size = 0;
+
+    // Open addressing table (linear probing) of the index of the entry of each key plus one, 0 if free
+    private int[] table;
+
+    public IntIntMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    public IntIntMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity *= 2;
+        }
+
+        this.keys = new int[capacity / 2];
+        this.values = new int[capacity / 2];
+        this.table = new int[capacity];
+    }
+
+    /** A copy of the given map, which is copied as arrays rather than entry by entry. */
+    public IntIntMap(IntIntMap other) {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.size = other.size;
+        this.table = other.table.clone();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : defaultValue;
+    }
+
+    public void put(int key, int value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("negative key " + key);
+        }
+
+        int slot = slotOf(key);
+        if (table[slot] != 0) {
+            values[table[slot] - 1] = value;
+            return;
+        }
+
+        if (size == keys.length) {
+            grow();
+            slot = slotOf(key);
+        }
+        keys[size] = key;
+        values[size] = value;
+        table[slot] = ++size;
+    }
+
+    private int indexOf(int key) {
+        if (key < 0) {
+            return -1;
+        }
+        return table[slotOf(key)] - 1;
+    }
+
+    // The slot that holds the key, or the free slot where it goes
+    private int slotOf(int key) {
+        int mask = table.length - 1;
+        int slot = mix(key) & mask;
+        while (table[slot] != 0 && keys[table[slot] - 1] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void grow() {
+        keys = Arrays.copyOf(keys, keys.length * 2);
+        values = Arrays.copyOf(values, values.length * 2);
+        table = new int[table.length * 2];
+
+        int mask = table.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = mix(keys[index]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A map from non negative int keys (symbol ids, see Symbols) to values, with open addressing on the
+ * primitive keys, so a lookup neither boxes its key nor hashes a string. Looking up a negative key
+ * (e.g. Symbols.NONE) finds nothing. The entries are kept in insertion order; there is no removal.
+ */
+public final class IntMap<V> {
+    private static final int MIN_CAPACITY = 8;
+
+    // The entries in insertion order
+    private int[] keys;
+    private Object[] values;
+    private int size = 0;
+
+    // Open addressing table (linear probing) of the index of the entry of each key plus one, 0 if free
+    private int[] table;
+
+    public IntMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    public IntMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity *= 2;
+        }
+
+        this.keys = new int[capacity / 2];
+        this.values = new Object[capacity / 2];
+        this.table = new int[capacity];
+    }
+
+    /** A copy of the given map, which is copied as arrays rather than entry by entry. */
+    public IntMap(IntMap<V> other) {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.size = other.size;
+        this.table = other.table.clone();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(int key, V defaultValue) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : defaultValue;
+    }
+
+    /** @return The previous value of the key, or null if it had none */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("negative key " + key);
+        }
+
+        int slot = slotOf(key);
+        if (table[slot] != 0) {
+            var previous = (V) values[table[slot] - 1];
+            values[table[slot] - 1] = value;
+            return previous;
+        }
+
+        if (size == keys.length) {
+            grow();
+            slot = slotOf(key);
+        }
+        keys[size] = key;
+        values[size] = value;
+        table[slot] = ++size;
+        return null;
+    }
+
+    /** The key of the index-th entry in insertion order. */
+    public int keyAt(int index) {
+        checkIndex(index);
+        return keys[index];
+    }
+
+    /** The value of the index-th entry in insertion order. */
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index) {
+        checkIndex(index);
+        return (V) values[index];
+    }
+
+    /** The values in insertion order (a view). */
+    public List<V> values() {
+        return new AbstractList<V>() {
+            @Override
+            public V get(int index) {
+                return valueAt(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(int key) {
+        if (key < 0) {
+            return -1;
+        }
+        return table[slotOf(key)] - 1;
+    }
+
+    // The slot that holds the key, or the free slot where it goes
+    private int slotOf(int key) {
+        int mask = table.length - 1;
+        int slot = mix(key) & mask;
+        while (table[slot] != 0 && keys[table[slot] - 1] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void grow() {
+        keys = Arrays.copyOf(keys, keys.length * 2);
+        values = Arrays.copyOf(values, values.length * 2);
+        table = new int[table.length * 2];
+
+        int mask = table.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = mix(keys[index]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + " Size: " + size);
+        }
+    }
+}
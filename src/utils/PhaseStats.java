@@ -0,0 +1,145 @@
+package utils;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the wall time and the bytes allocated for each phase of a single compiler invocation, and
+ * writes them (with other invocation details) as JSON. The allocations are those of the thread that
+ * created the stats and of the threads added to them (the workers of a pool the phases run on), summed.
+ * Phases are sequential: a phase ends when the next one begins, or on end().
+ */
+public class PhaseStats {
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static class Phase {
+        String name;
+        long nanos;
+        long allocatedBytes;
+    }
+
+    private final List<Phase> phases = new ArrayList<>();
+    private final Map<String, Object> properties = new LinkedHashMap<>();
+    private Phase current = null;
+    private long startNanos;
+    // The bytes allocated by each thread when the current phase began, by thread id
+    private Map<Long, Long> startAllocatedBytes;
+
+    private final List<Thread> threads = new CopyOnWriteArrayList<>(List.of(Thread.currentThread()));
+
+    /**
+     * Count the allocations of the thread as well, from now on (e.g. a worker of the pool, as it starts).
+     * A thread that ends is no longer counted, including what it allocated in the current phase.
+     */
+    public void addThread(Thread thread) {
+        threads.add(thread);
+    }
+
+    // The bytes allocated so far by each of the threads that are alive, by thread id
+    private Map<Long, Long> allocatedBytes() {
+        var allocated = new HashMap<Long, Long>();
+        if (!THREAD_BEAN.isThreadAllocatedMemorySupported() || !THREAD_BEAN.isThreadAllocatedMemoryEnabled()) {
+            return allocated;
+        }
+
+        var threads = this.threads.toArray(new Thread[0]);
+        var ids = new long[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            ids[i] = threads[i].getId();
+        }
+        var bytes = THREAD_BEAN.getThreadAllocatedBytes(ids);
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0) {
+                allocated.put(ids[i], bytes[i]);
+            }
+        }
+        return allocated;
+    }
+
+    public void begin(String name) {
+        end();
+        current = new Phase();
+        current.name = name;
+        startAllocatedBytes = allocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    public void end() {
+        if (current == null) {
+            return;
+        }
+
+        current.nanos = System.nanoTime() - startNanos;
+        // A thread added during the phase allocated all of its bytes in it
+        for (var thread : allocatedBytes().entrySet()) {
+            current.allocatedBytes += thread.getValue() - startAllocatedBytes.getOrDefault(thread.getKey(), 0L);
+        }
+        phases.add(current);
+        current = null;
+    }
+
+    /** Record a property of the invocation (e.g. a node count), a string or a number. */
+    public void put(String key, Object value) {
+        properties.put(key, value);
+    }
+
+    public void write(Path file) throws IOException {
+        end();
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        long totalNanos = 0;
+        long totalAllocatedBytes = 0;
+
+        try (var writer = new PrintWriter(Files.newBufferedWriter(file))) {
+            writer.println("{");
+            for (var property : properties.entrySet()) {
+                writer.println(String.format("  %s: %s,", quote(property.getKey()), json(property.getValue())));
+            }
+
+            writer.println("  \"phases\": [");
+            for (int i = 0; i < phases.size(); i++) {
+                var phase = phases.get(i);
+                totalNanos += phase.nanos;
+                totalAllocatedBytes += phase.allocatedBytes;
+                writer.println(String.format("    {\"name\": %s, \"nanos\": %d, \"allocatedBytes\": %d}%s",
+                        quote(phase.name), phase.nanos, phase.allocatedBytes, i < phases.size() - 1 ? "," : ""));
+            }
+            writer.println("  ],");
+
+            writer.println(String.format("  \"total\": {\"nanos\": %d, \"allocatedBytes\": %d}",
+                    totalNanos, totalAllocatedBytes));
+            writer.println("}");
+        }
+    }
+
+    private static String json(Object value) {
+        return value instanceof Number ? value.toString() : quote(String.valueOf(value));
+    }
+
+    /** The string as a JSON string literal. */
+    public static String quote(String str) {
+        var builder = new StringBuilder("\"");
+        for (char c : str.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
@@ -0,0 +1,470 @@
+package utils;
+
+import ast.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates random, semantically valid MiniJava programs of a requested shape, for testing the
+ * compiler at scale. The same parameters (including the seed) always give the same program.
+ *
+ * Classes are declared in breadth first order of the hierarchy, so superclasses always come first.
+ * Every method declares one local of each type and initializes them before anything else, so all
+ * the variables in scope may be used anywhere in the body. Method calls are made on this, on a
+ * local of the current class or on a new object of the current class, to methods visible in it.
+ *
+ * The generated AST has no line numbers: print it and parse the result to get them.
+ * The programs are meant to be compiled, not run: loops and recursion may not terminate.
+ */
+public class ProgramGenerator {
+    public static class Parameters {
+        public int classes = 10;
+        // maximal length of an extends chain (0 means no inheritance)
+        public int depth = 3;
+        // maximal number of direct subclasses of a class
+        public int fanout = 2;
+        public int fields = 3;
+        public int methods = 3;
+        public int statements = 6;
+        public int exprDepth = 3;
+        // probability that a method of a subclass overrides an inherited method rather than adding a new one
+        public double overrideRatio = 0.3;
+        public long seed = 0;
+
+        /**
+         * Read the parameters given as options (e.g. --classes=100), removing them from the map.
+         */
+        public static Parameters fromOptions(Map<String, String> options) {
+            var parameters = new Parameters();
+            parameters.classes = intOption(options, "classes", parameters.classes);
+            parameters.depth = intOption(options, "depth", parameters.depth);
+            parameters.fanout = intOption(options, "fanout", parameters.fanout);
+            parameters.fields = intOption(options, "fields", parameters.fields);
+            parameters.methods = intOption(options, "methods", parameters.methods);
+            parameters.statements = intOption(options, "statements", parameters.statements);
+            parameters.exprDepth = intOption(options, "expr-depth", parameters.exprDepth);
+            if (options.containsKey("override-ratio")) {
+                parameters.overrideRatio = Double.parseDouble(options.remove("override-ratio"));
+            }
+            if (options.containsKey("seed")) {
+                parameters.seed = Long.parseLong(options.remove("seed"));
+            }
+            return parameters;
+        }
+
+        private static int intOption(Map<String, String> options, String name, int defaultValue) {
+            var value = options.remove(name);
+            return value == null ? defaultValue : Integer.parseInt(value);
+        }
+    }
+
+    private enum Kind {
+        INT, BOOL, INT_ARRAY, REF
+    }
+
+    private static class Type {
+        final Kind kind;
+        // the class of a reference type
+        final String className;
+
+        Type(Kind kind, String className) {
+            this.kind = kind;
+            this.className = className;
+        }
+
+        AstType toAst() {
+            switch (kind) {
+                case INT: return new IntAstType();
+                case BOOL: return new BoolAstType();
+                case INT_ARRAY: return new IntArrayAstType();
+                default: return new RefType(className);
+            }
+        }
+    }
+
+    private static final Type INT = new Type(Kind.INT, null);
+    private static final Type BOOL = new Type(Kind.BOOL, null);
+    private static final Type INT_ARRAY = new Type(Kind.INT_ARRAY, null);
+
+    private static class Variable {
+        final String name;
+        final Type type;
+
+        Variable(String name, Type type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private static class Signature {
+        final String name;
+        final Type returnType;
+        final List<Type> params;
+
+        Signature(String name, Type returnType, List<Type> params) {
+            this.name = name;
+            this.returnType = returnType;
+            this.params = params;
+        }
+    }
+
+    private static class GeneratedClass {
+        final String name;
+        final GeneratedClass superClass;
+        final int depth;
+        int subclasses = 0;
+        final List<Variable> fields = new ArrayList<>();
+        final List<Signature> methods = new ArrayList<>();
+
+        GeneratedClass(String name, GeneratedClass superClass) {
+            this.name = name;
+            this.superClass = superClass;
+            this.depth = superClass == null ? 0 : superClass.depth + 1;
+        }
+
+        /** The fields of the class and its superclasses. */
+        List<Variable> allFields() {
+            var all = new ArrayList<Variable>();
+            for (var c = this; c != null; c = c.superClass) {
+                all.addAll(c.fields);
+            }
+            return all;
+        }
+
+        /** The methods callable on the class, by name (the most derived signature, they are the same anyway). */
+        Map<String, Signature> allMethods() {
+            var all = new LinkedHashMap<String, Signature>();
+            for (var c = this; c != null; c = c.superClass) {
+                for (var method : c.methods) {
+                    all.putIfAbsent(method.name, method);
+                }
+            }
+            return all;
+        }
+    }
+
+    private static final String MAIN_CLASS_NAME = "Main";
+    private static final int MAX_PARAMS = 3;
+    private static final int MAX_NESTING = 2;
+
+    private final Parameters parameters;
+    private final Random random;
+
+    // The scope of the method being generated
+    private GeneratedClass currentClass;
+    private List<Variable> variables;
+    private List<Signature> callableMethods;
+
+    public ProgramGenerator(Parameters parameters) {
+        this.parameters = parameters;
+        this.random = new Random(parameters.seed);
+    }
+
+    public Program generate() {
+        var classes = generateHierarchy();
+
+        for (var generatedClass : classes) {
+            generateSignatures(generatedClass);
+        }
+
+        var classDecls = new ArrayList<ClassDecl>();
+        for (var generatedClass : classes) {
+            classDecls.add(generateClass(generatedClass));
+        }
+
+        return new Program(generateMainClass(classes), classDecls);
+    }
+
+    private List<GeneratedClass> generateHierarchy() {
+        var classes = new ArrayList<GeneratedClass>();
+        // Classes that may still get subclasses, in the order they were declared
+        var open = new ArrayDeque<GeneratedClass>();
+
+        for (int i = 0; i < parameters.classes; i++) {
+            while (!open.isEmpty()
+                    && (open.peek().subclasses >= parameters.fanout || open.peek().depth >= parameters.depth)) {
+                open.poll();
+            }
+
+            var superClass = open.peek();
+            var generatedClass = new GeneratedClass("C" + i, superClass);
+            if (superClass != null) {
+                superClass.subclasses++;
+            }
+
+            classes.add(generatedClass);
+            open.add(generatedClass);
+        }
+
+        return classes;
+    }
+
+    private void generateSignatures(GeneratedClass generatedClass) {
+        int index = classIndex(generatedClass);
+
+        for (int i = 0; i < parameters.fields; i++) {
+            generatedClass.fields.add(new Variable(String.format("f%d_%d", index, i), randomType(generatedClass)));
+        }
+
+        var inherited = generatedClass.superClass == null
+                ? new ArrayList<Signature>()
+                : new ArrayList<>(generatedClass.superClass.allMethods().values());
+
+        for (int i = 0; i < parameters.methods; i++) {
+            if (!inherited.isEmpty() && random.nextDouble() < parameters.overrideRatio) {
+                // Same signature, the body is generated for this class
+                generatedClass.methods.add(inherited.remove(random.nextInt(inherited.size())));
+                continue;
+            }
+
+            var params = new ArrayList<Type>();
+            int paramCount = random.nextInt(MAX_PARAMS + 1);
+            for (int j = 0; j < paramCount; j++) {
+                params.add(randomType(generatedClass));
+            }
+
+            // The first method of a class returns an int, so that the main class has something to print
+            var returnType = i > 0 && random.nextInt(3) == 0 ? BOOL : INT;
+            generatedClass.methods.add(new Signature(String.format("m%d_%d", index, i), returnType, params));
+        }
+    }
+
+    private static int classIndex(GeneratedClass generatedClass) {
+        return Integer.parseInt(generatedClass.name.substring(1));
+    }
+
+    private Type randomType(GeneratedClass generatedClass) {
+        switch (random.nextInt(4)) {
+            case 0: return BOOL;
+            case 1: return INT_ARRAY;
+            case 2: return new Type(Kind.REF, generatedClass.name);
+            default: return INT;
+        }
+    }
+
+    private MainClass generateMainClass(List<GeneratedClass> classes) {
+        var statements = new ArrayList<Statement>();
+
+        // Call an int method of every root class (there is no this and there are no variables in main)
+        currentClass = null;
+        variables = new ArrayList<>();
+        for (var generatedClass : classes) {
+            if (generatedClass.superClass != null) {
+                continue;
+            }
+
+            for (var method : generatedClass.methods) {
+                if (method.returnType.kind == Kind.INT) {
+                    var actuals = new ArrayList<Expr>();
+                    for (var param : method.params) {
+                        actuals.add(leaf(param));
+                    }
+                    statements.add(new SysoutStatement(
+                            new MethodCallExpr(new NewObjectExpr(generatedClass.name), method.name, actuals)));
+                    break;
+                }
+            }
+        }
+
+        Statement mainStatement = statements.size() == 1 ? statements.get(0) : new BlockStatement(statements);
+        return new MainClass(MAIN_CLASS_NAME, "args", mainStatement);
+    }
+
+    private ClassDecl generateClass(GeneratedClass generatedClass) {
+        currentClass = generatedClass;
+        callableMethods = new ArrayList<>(generatedClass.allMethods().values());
+
+        var fields = new ArrayList<VarDecl>();
+        for (var field : generatedClass.fields) {
+            fields.add(varDecl(field));
+        }
+
+        var methodDecls = new ArrayList<MethodDecl>();
+        for (var method : generatedClass.methods) {
+            methodDecls.add(generateMethod(method));
+        }
+
+        return new ClassDecl(generatedClass.name,
+                generatedClass.superClass == null ? null : generatedClass.superClass.name,
+                fields, methodDecls);
+    }
+
+    private MethodDecl generateMethod(Signature signature) {
+        variables = new ArrayList<>(currentClass.allFields());
+
+        var formals = new ArrayList<FormalArg>();
+        for (int i = 0; i < signature.params.size(); i++) {
+            var formal = new Variable("p" + i, signature.params.get(i));
+            formals.add(withoutLineNumber(new FormalArg(formal.type.toAst(), formal.name, 0)));
+            variables.add(formal);
+        }
+
+        var locals = List.of(
+                new Variable("li", INT),
+                new Variable("lb", BOOL),
+                new Variable("la", INT_ARRAY),
+                new Variable("lo", new Type(Kind.REF, currentClass.name)));
+
+        var varDecls = new ArrayList<VarDecl>();
+        var body = new ArrayList<Statement>();
+        for (var local : locals) {
+            varDecls.add(varDecl(local));
+            // Initialize from the variables in scope so far (fields, formals and previous locals)
+            body.add(new AssignStatement(local.name, expr(local.type, 1)));
+            variables.add(local);
+        }
+
+        for (int i = 0; i < parameters.statements; i++) {
+            body.add(statement(0));
+        }
+
+        return withoutLineNumber(new MethodDecl(signature.returnType.toAst(), signature.name, formals, varDecls, body,
+                expr(signature.returnType, parameters.exprDepth), 0));
+    }
+
+    private static VarDecl varDecl(Variable variable) {
+        return withoutLineNumber(new VarDecl(variable.type.toAst(), variable.name, 0));
+    }
+
+    private static <T extends AstNode> T withoutLineNumber(T node) {
+        // The constructors of declarations take an int line number
+        node.lineNumber = null;
+        return node;
+    }
+
+    private Statement statement(int nesting) {
+        int kinds = nesting < MAX_NESTING ? 6 : 4;
+
+        switch (random.nextInt(kinds)) {
+            case 0: {
+                var target = pick(variables, variable -> variable.type.kind == Kind.INT_ARRAY);
+                return new AssignArrayStatement(target.name, expr(INT, parameters.exprDepth), expr(INT, parameters.exprDepth));
+            }
+            case 1:
+                return new SysoutStatement(expr(INT, parameters.exprDepth));
+            case 4:
+                return new IfStatement(expr(BOOL, parameters.exprDepth), block(nesting + 1), block(nesting + 1));
+            case 5:
+                return new WhileStatement(expr(BOOL, parameters.exprDepth), block(nesting + 1));
+            default: {
+                var target = variables.get(random.nextInt(variables.size()));
+                return new AssignStatement(target.name, expr(target.type, parameters.exprDepth));
+            }
+        }
+    }
+
+    private Statement block(int nesting) {
+        var statements = new ArrayList<Statement>();
+        int count = 1 + random.nextInt(2);
+        for (int i = 0; i < count; i++) {
+            statements.add(statement(nesting));
+        }
+        return new BlockStatement(statements);
+    }
+
+    private interface VariableFilter {
+        boolean accept(Variable variable);
+    }
+
+    private Variable pick(List<Variable> candidates, VariableFilter filter) {
+        var matching = new ArrayList<Variable>();
+        for (var candidate : candidates) {
+            if (filter.accept(candidate)) {
+                matching.add(candidate);
+            }
+        }
+        return matching.isEmpty() ? null : matching.get(random.nextInt(matching.size()));
+    }
+
+    /** An expression of the given type, nested at most depth levels. */
+    private Expr expr(Type type, int depth) {
+        if (depth <= 0 || currentClass == null || random.nextInt(4) == 0) {
+            return leaf(type);
+        }
+
+        switch (type.kind) {
+            case INT:
+                switch (random.nextInt(6)) {
+                    case 0: return new AddExpr(expr(INT, depth - 1), expr(INT, depth - 1));
+                    case 1: return new SubtractExpr(expr(INT, depth - 1), expr(INT, depth - 1));
+                    case 2: return new MultExpr(expr(INT, depth - 1), expr(INT, depth - 1));
+                    case 3: return new ArrayAccessExpr(expr(INT_ARRAY, depth - 1), expr(INT, depth - 1));
+                    case 4: return new ArrayLengthExpr(expr(INT_ARRAY, depth - 1));
+                    default: return call(type, depth);
+                }
+            case BOOL:
+                switch (random.nextInt(4)) {
+                    case 0: return new LtExpr(expr(INT, depth - 1), expr(INT, depth - 1));
+                    case 1: return new AndExpr(expr(BOOL, depth - 1), expr(BOOL, depth - 1));
+                    case 2: return new NotExpr(expr(BOOL, depth - 1));
+                    default: return call(type, depth);
+                }
+            case INT_ARRAY:
+                return random.nextBoolean() ? new NewIntArrayExpr(expr(INT, depth - 1)) : leaf(type);
+            default:
+                return leaf(type);
+        }
+    }
+
+    /** A call to a method returning the given type, or a leaf if there is no such method. */
+    private Expr call(Type type, int depth) {
+        var candidates = new ArrayList<Signature>();
+        for (var method : callableMethods) {
+            if (method.returnType.kind == type.kind) {
+                candidates.add(method);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return leaf(type);
+        }
+
+        var method = candidates.get(random.nextInt(candidates.size()));
+        var actuals = new ArrayList<Expr>();
+        for (var param : method.params) {
+            actuals.add(expr(param, depth - 1));
+        }
+
+        Expr owner;
+        switch (random.nextInt(3)) {
+            case 0: owner = new ThisExpr();
+            break;
+            case 1: owner = new NewObjectExpr(currentClass.name);
+            break;
+            default: {
+                // A local of the current class, if it is in scope already
+                var local = pick(variables, variable -> variable.name.equals("lo"));
+                owner = local == null ? new ThisExpr() : new IdentifierExpr(local.name);
+            }
+        }
+
+        return new MethodCallExpr(owner, method.name, actuals);
+    }
+
+    /** A variable or a constant of the given type. */
+    private Expr leaf(Type type) {
+        // References in scope are of the current class or its superclasses, so only these are assignable
+        var variable = pick(variables, candidate -> candidate.type.kind == type.kind
+                && (type.kind != Kind.REF || candidate.type.className.equals(type.className)));
+
+        if (variable != null && random.nextInt(3) > 0) {
+            return new IdentifierExpr(variable.name);
+        }
+
+        switch (type.kind) {
+            case INT: return new IntegerLiteralExpr(random.nextInt(100));
+            case BOOL: return random.nextBoolean() ? new TrueExpr() : new FalseExpr();
+            case INT_ARRAY: return new NewIntArrayExpr(new IntegerLiteralExpr(1 + random.nextInt(10)));
+            default:
+                // An object of the current class is of (a subclass of) every reference type in scope
+                if (currentClass != null && random.nextBoolean()) {
+                    return new ThisExpr();
+                }
+                return new NewObjectExpr(currentClass != null ? currentClass.name : type.className);
+        }
+    }
+}
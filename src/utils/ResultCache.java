@@ -0,0 +1,183 @@
+package utils;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A content addressed on-disk cache of the results of compiler invocations.
+ *
+ * An entry is keyed by the SHA-256 of the compiler version, the input method, the action and the
+ * hash of the bytes of the input file (see hashInput), and holds the output file along with the messages printed to the console.
+ * The compiler version is the hash of the compiler's own classes, so rebuilding the compiler with
+ * any change invalidates all the entries.
+ *
+ * Entries are written to a temporary file and moved in place, so concurrent invocations (e.g. in a
+ * batch) sharing the directory never see a partial entry.
+ */
+public class ResultCache {
+    private static final Set<String> CACHEABLE_INPUT_METHODS = Set.of("parse", "unmarshal", "unmarshal-bin");
+    private static final Set<String> CACHEABLE_ACTIONS = Set.of("semantic", "compile", "marshal", "marshal-bin");
+
+    private static final class VersionHolder {
+        private static final byte[] COMPILER_VERSION = computeCompilerVersion();
+    }
+
+    private final Path entry;
+    private ByteArrayOutputStream messages;
+
+    /** @param inputHash The hash of the bytes of the input file (see hashInput) */
+    public ResultCache(Path directory, String inputMethod, String action, byte[] inputHash) {
+        var digest = newDigest();
+        digest.update(VersionHolder.COMPILER_VERSION);
+        digest.update((inputMethod + "\0" + action + "\0").getBytes(StandardCharsets.UTF_8));
+        digest.update(inputHash);
+
+        var key = toHex(digest.digest());
+        this.entry = directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    /**
+     * The SHA-256 of the bytes of the input file. Computed once per invocation, for the keys of this
+     * cache and of the symbol table snapshots (see SymbolTableSnapshot.entryOf).
+     */
+    public static byte[] hashInput(Path input) throws IOException {
+        return newDigest().digest(Files.readAllBytes(input));
+    }
+
+    /** The hash of the compiler's own classes, which other caches key their entries by as well. */
+    public static byte[] compilerVersion() {
+        return VersionHolder.COMPILER_VERSION.clone();
+    }
+
+    /** Only the invocations whose output depends on nothing but the input file are cached. */
+    public static boolean isCacheable(String inputMethod, String action) {
+        return CACHEABLE_INPUT_METHODS.contains(inputMethod) && CACHEABLE_ACTIONS.contains(action);
+    }
+
+    /**
+     * If there is an entry, write its output file and print its messages.
+     * @return true iff there was an entry
+     */
+    public boolean restore(Path output, PrintStream console) throws IOException {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(entry);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+
+        try (var in = new DataInputStream(new ByteArrayInputStream(content))) {
+            var messageBytes = new byte[in.readInt()];
+            in.readFully(messageBytes);
+
+            if (output.getParent() != null) {
+                Files.createDirectories(output.getParent());
+            }
+            try (var out = Files.newOutputStream(output)) {
+                in.transferTo(out);
+            }
+
+            console.write(messageBytes);
+            console.flush();
+        }
+        return true;
+    }
+
+    /** A console that also records the messages, to be stored in the entry. */
+    public PrintStream recording(PrintStream console) {
+        messages = new ByteArrayOutputStream();
+
+        return new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                console.write(b);
+                messages.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                console.write(b, off, len);
+                messages.write(b, off, len);
+            }
+
+            @Override
+            public void flush() {
+                console.flush();
+            }
+        }, true);
+    }
+
+    /** Store the output file (and the recorded messages) as the entry. */
+    public void store(Path output) throws IOException {
+        Files.createDirectories(entry.getParent());
+        var temp = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), ".tmp");
+
+        try {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                var messageBytes = messages == null ? new byte[0] : messages.toByteArray();
+                out.writeInt(messageBytes.length);
+                out.write(messageBytes);
+                Files.copy(output, out);
+            }
+            Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        var builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    /** The hash of the jar or the class files directory the compiler is loaded from. */
+    private static byte[] computeCompilerVersion() {
+        var digest = newDigest();
+
+        try {
+            var location = Path.of(ResultCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+            if (Files.isDirectory(location)) {
+                List<Path> classFiles;
+                try (Stream<Path> files = Files.walk(location)) {
+                    classFiles = files.filter(file -> file.toString().endsWith(".class"))
+                            .sorted()
+                            .collect(Collectors.toList());
+                }
+
+                for (var classFile : classFiles) {
+                    digest.update(location.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+                    digest.update(Files.readAllBytes(classFile));
+                }
+            } else {
+                digest.update(Files.readAllBytes(location));
+            }
+        } catch (IOException | URISyntaxException | SecurityException e) {
+            throw new RuntimeException("cannot determine the compiler version for the cache", e);
+        }
+
+        return digest.digest();
+    }
+}
@@ -0,0 +1,103 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The identifiers of a program, interned: every distinct name is stored once and numbered densely
+ * from 0 in the order in which it is first seen. The lexer and the AST readers intern the names they
+ * read, the AST nodes hold the ids of their names, and the symbol table keys its maps by id (see IntMap),
+ * so a lookup compares ints instead of hashing and comparing strings.
+ *
+ * A table belongs to a single compilation, and is dropped with it: the static methods use the table
+ * bound to the calling thread (see bind), so the ids of a long-lived process (e.g. in serve and batch
+ * mode) do not pile up. The threads that work for the compilation (the workers of its pool) are bound
+ * to its table as well. A table is safe to use from several threads.
+ */
+public final class Symbols {
+    /** The id of no name (null) or of a name that was never interned, which no declaration has. */
+    public static final int NONE = -1;
+
+    private static final ThreadLocal<Symbols> current = new ThreadLocal<>();
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[1024];
+    private int count = 0;
+
+    /**
+     * Bind the table to the calling thread, or unbind it with null.
+     * @return The table that was bound to the thread before, to bind it back once done
+     */
+    public static Symbols bind(Symbols symbols) {
+        var previous = current.get();
+        if (symbols == null) {
+            current.remove();
+        } else {
+            current.set(symbols);
+        }
+        return previous;
+    }
+
+    /** The table bound to the calling thread. */
+    public static Symbols current() {
+        var symbols = current.get();
+        if (symbols == null) {
+            throw new IllegalStateException("no symbol table is bound to thread " + Thread.currentThread().getName());
+        }
+        return symbols;
+    }
+
+    /** @return The id of the name, interning it if it is new, or NONE for null */
+    public static int id(String name) {
+        if (name == null) {
+            return NONE;
+        }
+
+        var symbols = current();
+        Integer id = symbols.ids.get(name);
+        return id != null ? id : symbols.add(name);
+    }
+
+    /** @return The id of the name if it was interned, NONE otherwise (a lookup that never adds a name) */
+    public static int find(String name) {
+        if (name == null) {
+            return NONE;
+        }
+
+        Integer id = current().ids.get(name);
+        return id != null ? id : NONE;
+    }
+
+    /** @return The single instance of the name (null for null) */
+    public static String intern(String name) {
+        return name == null ? null : name(id(name));
+    }
+
+    /** @return The name with the given id, which was returned by id(String) */
+    public static String name(int id) {
+        return current().names[id];
+    }
+
+    /** The number of names interned so far. */
+    public static int size() {
+        var symbols = current();
+        synchronized (symbols) {
+            return symbols.count;
+        }
+    }
+
+    private synchronized int add(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        if (count == names.length) {
+            names = Arrays.copyOf(names, count * 2);
+        }
+        names[count] = name;
+        // Published after the name is stored, so whoever gets the id from the map can read its name
+        ids.put(name, count);
+        return count++;
+    }
+}
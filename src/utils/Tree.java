@@ -1,44 +1,165 @@
 package utils;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 
+/**
+ * A tree of identified nodes. Nodes attached to the tree (through TreeNode.addChild) are indexed:
+ * by identifier, for findNode, and by an id given in attachment order, with the ids of their parents
+ * and their depths kept in arrays. The nodes are also numbered in pre-order (see number), so that
+ * whether a node is in the subtree of another takes two comparisons.
+ */
 public class Tree<T> {
+    private static final int NO_PARENT = -1;
+
     private TreeNode<T> root = null;
+    private final HashMap<String, TreeNode<T>> nodesByIdentifier = new HashMap<>();
+    private final ArrayList<TreeNode<T>> nodes = new ArrayList<>();
+    private int[] parents = new int[16];
+    private int[] depths = new int[16];
+
+    // By id: the pre-order number of the node (-1 if it is not under the root) and the size of its subtree.
+    // Valid while numbered is true, i.e. until a node is attached or detached.
+    private int[] preorderNumbers = new int[0];
+    private int[] subtreeSizes = new int[0];
+    private boolean numbered = false;
 
     public Tree(String identifier, T data) {
-        this.root = new TreeNode<T>(identifier, data);
+        this(new TreeNode<T>(identifier, data));
     }
 
     public Tree(TreeNode<T> root) {
         this.root = root;
+        attach(root, null);
     }
 
     public TreeNode<T> getRoot() {
         return root;
     }
 
+    /**
+     * @return The node with the given identifier (the first one attached, if there are several), or null
+     */
     public TreeNode<T> findNode(String identifier) {
-        return findNode(this.root, identifier);
+        return nodesByIdentifier.get(identifier);
     }
 
-    private TreeNode<T> findNode(TreeNode<T> node,String identifier) {
-        if (node == null) {
-            return null;
-        }
+    /** The number of nodes attached to the tree. */
+    public int size() {
+        return nodes.size();
+    }
+
+    public TreeNode<T> getNode(int id) {
+        return nodes.get(id);
+    }
+
+    /** @return The id of the parent of the node with the given id, or -1 for the root */
+    public int getParentId(int id) {
+        return parents[id];
+    }
 
-        if (node.getIdentifier().equals(identifier)) {
-            return node;
+    /** @return The depth of the node with the given id, 0 for the root */
+    public int getDepth(int id) {
+        return depths[id];
+    }
+
+    /**
+     * The nodes of the subtree of the given node in pre-order (a node before its children, the
+     * children in the order in which they were added).
+     */
+    public List<TreeNode<T>> preorder(TreeNode<T> node) {
+        var result = new ArrayList<TreeNode<T>>();
+        var stack = new ArrayDeque<TreeNode<T>>();
+        stack.push(node);
+
+        while (!stack.isEmpty()) {
+            var current = stack.pop();
+            result.add(current);
+
+            var children = current.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
         }
+        return result;
+    }
 
-        for (TreeNode<T> child : node.getChildren()
-        ) {
-            TreeNode<T> result = findNode(child, identifier);
-            if (result != null) {
-                return result;
+    /**
+     * Number the nodes under the root in pre-order, along with the size of their subtrees. Done by the
+     * first isInSubtree after the tree changes, or explicitly once the tree is complete, so that the
+     * tree can then be queried from several threads.
+     */
+    public void number() {
+        var order = preorder(root);
+        preorderNumbers = new int[nodes.size()];
+        subtreeSizes = new int[nodes.size()];
+        Arrays.fill(preorderNumbers, -1);
+
+        for (int i = 0; i < order.size(); i++) {
+            preorderNumbers[order.get(i).getId()] = i;
+        }
+        // A node comes after its parent in pre-order, so its subtree size is complete when added to the parent's
+        for (int i = order.size() - 1; i >= 0; i--) {
+            int id = order.get(i).getId();
+            subtreeSizes[id] += 1;
+            if (parents[id] != NO_PARENT) {
+                subtreeSizes[parents[id]] += subtreeSizes[id];
             }
         }
+        numbered = true;
+    }
+
+    /**
+     * @return true iff the node is the given subtree root or one of its descendants, both being under the root
+     */
+    public boolean isInSubtree(TreeNode<T> node, TreeNode<T> subtreeRoot) {
+        if (node.getTree() != this || subtreeRoot.getTree() != this) {
+            return false;
+        }
+        if (!numbered) {
+            number();
+        }
+
+        int number = preorderNumbers[node.getId()];
+        int first = preorderNumbers[subtreeRoot.getId()];
+        return number >= 0 && first >= 0 && first <= number && number < first + subtreeSizes[subtreeRoot.getId()];
+    }
+
+    /** Index the node, and the subtree it may already have, under the given parent. */
+    void attach(TreeNode<T> node, TreeNode<T> parent) {
+        numbered = false;
+        int id = nodes.size();
+        if (id == parents.length) {
+            parents = Arrays.copyOf(parents, id * 2);
+            depths = Arrays.copyOf(depths, id * 2);
+        }
+
+        nodes.add(node);
+        parents[id] = parent == null ? NO_PARENT : parent.getId();
+        depths[id] = parent == null ? 0 : depths[parent.getId()] + 1;
+        nodesByIdentifier.putIfAbsent(node.getIdentifier(), node);
+        node.setTree(this, id);
+
+        for (TreeNode<T> child : node.getChildren()) {
+            attach(child, node);
+        }
+    }
+
+    /** Remove the subtree of the node from the identifier index (its ids are not reused). */
+    void detach(TreeNode<T> node) {
+        numbered = false;
+        for (TreeNode<T> descendant : preorder(node)) {
+            nodesByIdentifier.remove(descendant.getIdentifier(), descendant);
+            parents[descendant.getId()] = NO_PARENT;
+            descendant.setTree(null, TreeNode.NO_ID);
+        }
+    }
 
-        return null;
+    void rename(TreeNode<T> node, String oldIdentifier) {
+        nodesByIdentifier.remove(oldIdentifier, node);
+        nodesByIdentifier.putIfAbsent(node.getIdentifier(), node);
     }
 }
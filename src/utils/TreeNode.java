@@ -4,10 +4,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class TreeNode<T> {
+    static final int NO_ID = -1;
+
     private T data = null;
     private String identifier;
     private List<TreeNode<T>> children = new ArrayList<>();
     private TreeNode<T> parent = null;
+    private Tree<T> tree = null;
+    private int id = NO_ID;
 
     public TreeNode(String identifier, T data) {
         this.data = data;
@@ -17,14 +21,19 @@ public class TreeNode<T> {
     public void addChild(TreeNode<T> child) {
         child.setParent(this);
         this.children.add(child);
+        if (this.tree != null) {
+            this.tree.attach(child, this);
+        }
     }
 
     public void addChildren(List<TreeNode<T>> children) {
-        children.forEach(each -> each.setParent(this));
-        this.children.addAll(children);
+        children.forEach(this::addChild);
     }
 
     public void clearChildren(){
+        if (this.tree != null) {
+            this.children.forEach(this.tree::detach);
+        }
         this.children.clear();
     }
 
@@ -45,7 +54,11 @@ public class TreeNode<T> {
     }
 
     public void setIdentifier(String identifier) {
+        var oldIdentifier = this.identifier;
         this.identifier = identifier;
+        if (this.tree != null) {
+            this.tree.rename(this, oldIdentifier);
+        }
     }
 
     private void setParent(TreeNode<T> parent) {
@@ -56,5 +69,23 @@ public class TreeNode<T> {
         return parent;
     }
 
-}
+    /** The id of the node in its tree (see Tree), or -1 if it is not attached to one. */
+    public int getId() {
+        return id;
+    }
+
+    /** The depth of the node in its tree, 0 for the root. */
+    public int getDepth() {
+        return tree == null ? 0 : tree.getDepth(id);
+    }
 
+    Tree<T> getTree() {
+        return tree;
+    }
+
+    void setTree(Tree<T> tree, int id) {
+        this.tree = tree;
+        this.id = id;
+    }
+
+}
@@ -0,0 +1,273 @@
+package visitor;
+
+import ast.*;
+
+/**
+ * Counts the nodes of an AST, and among them the classes (including the main class) and methods.
+ */
+public class AstCountVisitor implements Visitor {
+    private int nodes = 0;
+    private int classes = 0;
+    private int methods = 0;
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    public int getClasses() {
+        return classes;
+    }
+
+    public int getMethods() {
+        return methods;
+    }
+
+    private void visitBinaryExpr(BinaryExpr e) {
+        nodes++;
+        e.e1().accept(this);
+        e.e2().accept(this);
+    }
+
+    private void visitVariableIntroduction(VariableIntroduction variableIntroduction) {
+        nodes++;
+        variableIntroduction.type().accept(this);
+    }
+
+    @Override
+    public String visit(Program program) {
+        nodes++;
+        program.mainClass().accept(this);
+        for (var classDecl : program.classDecls()) {
+            classDecl.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public String visit(ClassDecl classDecl) {
+        nodes++;
+        classes++;
+        for (var fieldDecl : classDecl.fields()) {
+            fieldDecl.accept(this);
+        }
+        for (var methodDecl : classDecl.methoddecls()) {
+            methodDecl.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public String visit(MainClass mainClass) {
+        nodes++;
+        classes++;
+        mainClass.mainStatement().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(MethodDecl methodDecl) {
+        nodes++;
+        methods++;
+        methodDecl.returnType().accept(this);
+        for (var formal : methodDecl.formals()) {
+            formal.accept(this);
+        }
+        for (var varDecl : methodDecl.vardecls()) {
+            varDecl.accept(this);
+        }
+        for (var statement : methodDecl.body()) {
+            statement.accept(this);
+        }
+        methodDecl.ret().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(FormalArg formalArg) {
+        visitVariableIntroduction(formalArg);
+        return null;
+    }
+
+    @Override
+    public String visit(VarDecl varDecl) {
+        visitVariableIntroduction(varDecl);
+        return null;
+    }
+
+    @Override
+    public String visit(BlockStatement blockStatement) {
+        nodes++;
+        for (var statement : blockStatement.statements()) {
+            statement.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public String visit(IfStatement ifStatement) {
+        nodes++;
+        ifStatement.cond().accept(this);
+        ifStatement.thencase().accept(this);
+        ifStatement.elsecase().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(WhileStatement whileStatement) {
+        nodes++;
+        whileStatement.cond().accept(this);
+        whileStatement.body().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(SysoutStatement sysoutStatement) {
+        nodes++;
+        sysoutStatement.arg().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(AssignStatement assignStatement) {
+        nodes++;
+        assignStatement.rv().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(AssignArrayStatement assignArrayStatement) {
+        nodes++;
+        assignArrayStatement.index().accept(this);
+        assignArrayStatement.rv().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(AndExpr e) {
+        visitBinaryExpr(e);
+        return null;
+    }
+
+    @Override
+    public String visit(LtExpr e) {
+        visitBinaryExpr(e);
+        return null;
+    }
+
+    @Override
+    public String visit(AddExpr e) {
+        visitBinaryExpr(e);
+        return null;
+    }
+
+    @Override
+    public String visit(SubtractExpr e) {
+        visitBinaryExpr(e);
+        return null;
+    }
+
+    @Override
+    public String visit(MultExpr e) {
+        visitBinaryExpr(e);
+        return null;
+    }
+
+    @Override
+    public String visit(ArrayAccessExpr e) {
+        nodes++;
+        e.arrayExpr().accept(this);
+        e.indexExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(ArrayLengthExpr e) {
+        nodes++;
+        e.arrayExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(MethodCallExpr e) {
+        nodes++;
+        e.ownerExpr().accept(this);
+        for (var actual : e.actuals()) {
+            actual.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public String visit(IntegerLiteralExpr e) {
+        nodes++;
+        return null;
+    }
+
+    @Override
+    public String visit(TrueExpr e) {
+        nodes++;
+        return null;
+    }
+
+    @Override
+    public String visit(FalseExpr e) {
+        nodes++;
+        return null;
+    }
+
+    @Override
+    public String visit(IdentifierExpr e) {
+        nodes++;
+        return null;
+    }
+
+    @Override
+    public String visit(ThisExpr e) {
+        nodes++;
+        return null;
+    }
+
+    @Override
+    public String visit(NewIntArrayExpr e) {
+        nodes++;
+        e.lengthExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(NewObjectExpr e) {
+        nodes++;
+        return null;
+    }
+
+    @Override
+    public String visit(NotExpr e) {
+        nodes++;
+        e.e().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(IntAstType t) {
+        nodes++;
+        return null;
+    }
+
+    @Override
+    public String visit(BoolAstType t) {
+        nodes++;
+        return null;
+    }
+
+    @Override
+    public String visit(IntArrayAstType t) {
+        nodes++;
+        return null;
+    }
+
+    @Override
+    public String visit(RefType t) {
+        nodes++;
+        return null;
+    }
+}
@@ -2,38 +2,64 @@ package visitor;
 
 import ast.*;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+
 public class AstPrintVisitor implements Visitor {
-    private StringBuilder builder = new StringBuilder();
+    private final PrintWriter out;
+    private final StringWriter buffer;
 
     private int indent = 0;
 
+    public AstPrintVisitor() {
+        this.buffer = new StringWriter();
+        this.out = new PrintWriter(buffer);
+    }
+
+    /**
+     * Print to the given writer as the tree is visited, rather than keeping the text in memory.
+     * The writer is flushed, but not closed, by the caller.
+     */
+    public AstPrintVisitor(Writer writer) {
+        this.buffer = null;
+        this.out = writer instanceof PrintWriter ? (PrintWriter) writer : new PrintWriter(writer);
+    }
+
+    /** The printed text, if it is kept in memory (i.e. no writer was given). */
     public String getString() {
-        return builder.toString();
+        if (buffer == null) {
+            throw new IllegalStateException("the text was printed to a stream");
+        }
+        out.flush();
+        return buffer.toString();
     }
 
     private void appendWithIndent(String str) {
-        builder.append("\t".repeat(indent));
-        builder.append(str);
+        for (int i = 0; i < indent; i++) {
+            out.append('\t');
+        }
+        out.append(str);
     }
 
     private void visitBinaryExpr(BinaryExpr e, String infixSymbol) {
-        builder.append("(");
+        out.append("(");
         e.e1().accept(this);
-        builder.append(")");
-        builder.append(" " + infixSymbol + " ");
-        builder.append("(");
+        out.append(")");
+        out.append(" " + infixSymbol + " ");
+        out.append("(");
         e.e2().accept(this);
-        builder.append(")");
+        out.append(")");
     }
 
 
     @Override
     public String visit(Program program) {
         program.mainClass().accept(this);
-        builder.append("\n");
+        out.append("\n");
         for (ClassDecl classdecl : program.classDecls()) {
             classdecl.accept(this);
-            builder.append("\n");
+            out.append("\n");
         }
         return null;
     }
@@ -41,21 +67,21 @@ public class AstPrintVisitor implements Visitor {
     @Override
     public String visit(ClassDecl classDecl) {
         appendWithIndent("class ");
-        builder.append(classDecl.name());
+        out.append(classDecl.name());
         if (classDecl.superName() != null) {
-            builder.append(" extends ");
-            builder.append(classDecl.superName());
+            out.append(" extends ");
+            out.append(classDecl.superName());
         }
-        builder.append(" {\n");
+        out.append(" {\n");
 
         indent++;
         for (var fieldDecl : classDecl.fields()) {
             fieldDecl.accept(this);
-            builder.append("\n");
+            out.append("\n");
         }
         for (var methodDecl : classDecl.methoddecls()) {
             methodDecl.accept(this);
-            builder.append("\n");
+            out.append("\n");
         }
         indent--;
         appendWithIndent("}\n");
@@ -65,13 +91,13 @@ public class AstPrintVisitor implements Visitor {
     @Override
     public String visit(MainClass mainClass) {
         appendWithIndent("class ");
-        builder.append(mainClass.name());
-        builder.append(" {\n");
+        out.append(mainClass.name());
+        out.append(" {\n");
         indent++;
         appendWithIndent("public static void main(String[] ");
-        builder.append(mainClass.argsName());
-        builder.append(") {");
-        builder.append("\n");
+        out.append(mainClass.argsName());
+        out.append(") {");
+        out.append("\n");
         indent++;
         mainClass.mainStatement().accept(this);
         indent--;
@@ -85,17 +111,17 @@ public class AstPrintVisitor implements Visitor {
     public String visit(MethodDecl methodDecl) {
         appendWithIndent("public ");
         methodDecl.returnType().accept(this);
-        builder.append(" ");
-        builder.append(methodDecl.name());
-        builder.append("(");
+        out.append(" ");
+        out.append(methodDecl.name());
+        out.append("(");
 
         String delim = "";
         for (var formal : methodDecl.formals()) {
-            builder.append(delim);
+            out.append(delim);
             formal.accept(this);
             delim = ", ";
         }
-        builder.append(") {\n");
+        out.append(") {\n");
 
         indent++;
 
@@ -109,8 +135,8 @@ public class AstPrintVisitor implements Visitor {
 
         appendWithIndent("return ");
         methodDecl.ret().accept(this);
-        builder.append(";");
-        builder.append("\n");
+        out.append(";");
+        out.append("\n");
 
         indent--;
         appendWithIndent("}\n");
@@ -120,8 +146,8 @@ public class AstPrintVisitor implements Visitor {
     @Override
     public String visit(FormalArg formalArg) {
         formalArg.type().accept(this);
-        builder.append(" ");
-        builder.append(formalArg.name());
+        out.append(" ");
+        out.append(formalArg.name());
         return null;
     }
 
@@ -129,9 +155,9 @@ public class AstPrintVisitor implements Visitor {
     public String visit(VarDecl varDecl) {
         appendWithIndent("");
         varDecl.type().accept(this);
-        builder.append(" ");
-        builder.append(varDecl.name());
-        builder.append(";\n");
+        out.append(" ");
+        out.append(varDecl.name());
+        out.append(";\n");
         return null;
     }
 
@@ -140,11 +166,11 @@ public class AstPrintVisitor implements Visitor {
         appendWithIndent("{");
         indent++;
         for (var s : blockStatement.statements()) {
-            builder.append("\n");
+            out.append("\n");
             s.accept(this);
         }
         indent--;
-        builder.append("\n");
+        out.append("\n");
         appendWithIndent("}\n");
         return null;
     }
@@ -153,7 +179,7 @@ public class AstPrintVisitor implements Visitor {
     public String visit(IfStatement ifStatement) {
         appendWithIndent("if (");
         ifStatement.cond().accept(this);
-        builder.append(")\n");
+        out.append(")\n");
         indent++;
         ifStatement.thencase().accept(this);
         indent--;
@@ -168,11 +194,11 @@ public class AstPrintVisitor implements Visitor {
     public String visit(WhileStatement whileStatement) {
         appendWithIndent("while (");
         whileStatement.cond().accept(this);
-        builder.append(")");
+        out.append(")");
         indent++;
         whileStatement.body().accept(this);
         indent--;
-        builder.append("\n");
+        out.append("\n");
         appendWithIndent("\n");
         return null;
     }
@@ -181,30 +207,30 @@ public class AstPrintVisitor implements Visitor {
     public String visit(SysoutStatement sysoutStatement) {
         appendWithIndent("System.out.println(");
         sysoutStatement.arg().accept(this);
-        builder.append(");\n");
+        out.append(");\n");
         return null;
     }
 
     @Override
     public String visit(AssignStatement assignStatement) {
         appendWithIndent("");
-        builder.append(assignStatement.lv());
-        builder.append(" = ");
+        out.append(assignStatement.lv());
+        out.append(" = ");
         assignStatement.rv().accept(this);
-        builder.append(";\n");
+        out.append(";\n");
         return null;
     }
 
     @Override
     public String visit(AssignArrayStatement assignArrayStatement) {
         appendWithIndent("");
-        builder.append(assignArrayStatement.lv());
-        builder.append("[");
+        out.append(assignArrayStatement.lv());
+        out.append("[");
         assignArrayStatement.index().accept(this);
-        builder.append("]");
-        builder.append(" = ");
+        out.append("]");
+        out.append(" = ");
         assignArrayStatement.rv().accept(this);
-        builder.append(";\n");
+        out.append(";\n");
         return null;
     }
 
@@ -240,117 +266,117 @@ public class AstPrintVisitor implements Visitor {
 
     @Override
     public String visit(ArrayAccessExpr e) {
-        builder.append("(");
+        out.append("(");
         e.arrayExpr().accept(this);
-        builder.append(")");
-        builder.append("[");
+        out.append(")");
+        out.append("[");
         e.indexExpr().accept(this);
-        builder.append("]");
+        out.append("]");
         return null;
     }
 
     @Override
     public String visit(ArrayLengthExpr e) {
-        builder.append("(");
+        out.append("(");
         e.arrayExpr().accept(this);
-        builder.append(")");
-        builder.append(".length");
+        out.append(")");
+        out.append(".length");
         return null;
     }
 
     @Override
     public String visit(MethodCallExpr e) {
-        builder.append("(");
+        out.append("(");
         e.ownerExpr().accept(this);
-        builder.append(")");
-        builder.append(".");
-        builder.append(e.methodId());
-        builder.append("(");
+        out.append(")");
+        out.append(".");
+        out.append(e.methodId());
+        out.append("(");
 
         String delim = "";
         for (Expr arg : e.actuals()) {
-            builder.append(delim);
+            out.append(delim);
             arg.accept(this);
             delim = ", ";
         }
-        builder.append(")");
+        out.append(")");
         return delim;
     }
 
     @Override
     public String visit(IntegerLiteralExpr e) {
-        builder.append(e.num());
+        out.print(e.num());
         return null;
     }
 
     @Override
     public String visit(TrueExpr e) {
-        builder.append("true");
+        out.append("true");
         return null;
     }
 
     @Override
     public String visit(FalseExpr e) {
-        builder.append("false");
+        out.append("false");
         return null;
     }
 
     @Override
     public String visit(IdentifierExpr e) {
-        builder.append(e.id());
+        out.append(e.id());
         return null;
     }
 
     public String visit(ThisExpr e) {
-        builder.append("this");
+        out.append("this");
         return null;
     }
 
     @Override
     public String visit(NewIntArrayExpr e) {
-        builder.append("new int[");
+        out.append("new int[");
         e.lengthExpr().accept(this);
-        builder.append("]");
+        out.append("]");
         return null;
     }
 
     @Override
     public String visit(NewObjectExpr e) {
-        builder.append("new ");
-        builder.append(e.classId());
-        builder.append("()");
+        out.append("new ");
+        out.append(e.classId());
+        out.append("()");
         return null;
     }
 
     @Override
     public String visit(NotExpr e) {
-        builder.append("!(");
+        out.append("!(");
         e.e().accept(this);
-        builder.append(")");
+        out.append(")");
         return null;
     }
 
     @Override
     public String visit(IntAstType t) {
-        builder.append("int");
+        out.append("int");
         return null;
     }
 
     @Override
     public String visit(BoolAstType t) {
-        builder.append("boolean");
+        out.append("boolean");
         return null;
     }
 
     @Override
     public String visit(IntArrayAstType t) {
-        builder.append("int[]");
+        out.append("int[]");
         return null;
     }
 
     @Override
     public String visit(RefType t) {
-        builder.append(t.id());
+        out.append(t.id());
         return null;
     }
 }
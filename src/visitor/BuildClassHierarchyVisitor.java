@@ -8,19 +8,62 @@ import symboltable.SymbolTable;
 import symboltable.Variable;
 import symboltable.Class;
 
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Builds the symbol table of a program, and binds the uses of variables to their declarations.
+ *
+ * The build is done in phases, so that the work of each class can be done on its own:
+ * - declaration: the classes are registered, along with the hierarchy, in order (a class must be
+ *   declared after its parent);
+ * - members: each class declares its fields and methods (with their params and locals), checked only
+ *   against those of the class itself;
+ * - linking: in order, the fields of each class are checked against the inherited ones, its methods are
+ *   linked to those they override, and the class is frozen (see Class.freeze);
+ * - binding: the uses in the methods of each class are bound (this visitor's traversal).
+ * With a pool, the member and binding phases run on it (see PoolTasks). Whatever the phases, the error
+ * that is thrown is the first one in the order of the declarations, as for a single pass.
+ */
 public class BuildClassHierarchyVisitor implements Visitor {
     private Class currentClass;
     private Method currentMethod;
     private final SymbolTable symbolTable;
+    private final ForkJoinPool pool;
+
+    /** The first error in the members of a class, at the given index among its fields then its methods. */
+    private record MemberError(int position, SemanticException exception) {}
 
     public SymbolTable getSymbolTable() {
         return symbolTable;
     }
 
     public BuildClassHierarchyVisitor() {
+        this(null);
+    }
+
+    /** @param pool The pool to build the classes on, or null to build them on the calling thread */
+    public BuildClassHierarchyVisitor(ForkJoinPool pool) {
+        this(new SymbolTable(), pool);
+    }
+
+    private BuildClassHierarchyVisitor(SymbolTable symbolTable, ForkJoinPool pool) {
         this.currentMethod = null;
-        this.symbolTable = new SymbolTable();
+        this.symbolTable = symbolTable;
         this.currentClass = null;
+        this.pool = pool;
+    }
+
+    /**
+     * Bind a use of a variable to its declaration. Everything a use can refer to is declared before it:
+     * the fields of the class before its methods, the formals and locals of a method before its body,
+     * and a class after its parent. So the binding is the same as a lookup once the table is complete.
+     */
+    private Variable resolve(int symbol) {
+        if (this.currentMethod == null) {
+            return this.symbolTable.getVar(this.currentClass, symbol);
+        }
+        return this.symbolTable.getVar(this.currentMethod, symbol);
     }
 
     private void visitBinaryExpr(BinaryExpr e, String infixSymbol) {
@@ -32,14 +75,40 @@ public class BuildClassHierarchyVisitor implements Visitor {
     public String visit(Program program) {
         program.mainClass().accept(this);
 
+        // Declaration phase - stop at the first error, which is thrown after those of the classes before it
+        var classes = new ArrayList<Class>();
+        SemanticException declarationError = null;
         for (ClassDecl classdecl : program.classDecls()) {
-            classdecl.accept(this);
+            try {
+                classes.add(declareClass(classdecl));
+            } catch (SemanticException e) {
+                declarationError = e;
+                break;
+            }
+        }
+
+        // Member phase
+        var memberErrors = new MemberError[classes.size()];
+        PoolTasks.forEach(this.pool, classes.size(), index -> memberErrors[index] = declareMembers(classes.get(index)));
+
+        // Linking phase - a class after its parent
+        for (int index = 0; index < classes.size(); index++) {
+            link(classes.get(index), memberErrors[index]);
         }
+        if (declarationError != null) {
+            throw declarationError;
+        }
+
+        this.symbolTable.indexDeclarations();
+        this.symbolTable.numberClassHierarchy();
+
+        // Binding phase
+        PoolTasks.forEach(this.pool, classes.size(), index -> classes.get(index).getClassDecl().accept(
+                new BuildClassHierarchyVisitor(this.symbolTable, null)));
         return null;
     }
 
-    @Override
-    public String visit(ClassDecl classDecl) {
+    private Class declareClass(ClassDecl classDecl) {
         // Verify that a class with the name was not declared before
         if (!this.symbolTable.addClass(classDecl.name(), classDecl.superName(), classDecl, false)) {
             // Class name is already in use - SEMANTIC ERROR #3
@@ -49,11 +118,105 @@ public class BuildClassHierarchyVisitor implements Visitor {
             );
         }
 
-        this.currentClass = this.symbolTable.getClass(classDecl.name());
+        return this.symbolTable.getClass(classDecl.nameSymbol());
+    }
+
+    /**
+     * Declare the fields and methods of the class, checking them against those of the class only.
+     * Touches nothing but the class, so the classes can be done concurrently.
+     * @return The first error, or null if there is none
+     */
+    private static MemberError declareMembers(Class cls) {
+        var classDecl = cls.getClassDecl();
+        int position = 0;
+
+        try {
+            for (var fieldDecl : classDecl.fields()) {
+                if (!cls.addVar(new Variable(fieldDecl.name(), fieldDecl.type(), fieldDecl.lineNumber, true, false, false), false)) {
+                    throw fieldAlreadyDeclared(fieldDecl);
+                }
+                position++;
+            }
+
+            for (var methodDecl : classDecl.methoddecls()) {
+                declareMethod(cls, methodDecl);
+                position++;
+            }
+        } catch (SemanticException e) {
+            return new MemberError(position, e);
+        }
+        return null;
+    }
+
+    private static void declareMethod(Class cls, MethodDecl methodDecl) {
+        // Add method to its class
+        var method = new Method(methodDecl.name(), methodDecl.lineNumber, cls, methodDecl);
+
+        if (!cls.addMethod(method, false)) {
+            // A method with the same name already exists in the current class (overloading) - SEMANTIC ERROR #5
+            throw new SemanticException(
+                    SemanticError.OVERLOADING_NOT_SUPPORTED,
+                    new String[]{methodDecl.name()}
+            );
+        }
+
+        for (var formal : methodDecl.formals()) {
+            if (!method.addParam(new Variable(formal.name(), formal.type(), formal.lineNumber, false, false, true))) {
+                // Formal with the same name already exists in method declaration - SEMANTIC ERROR #24
+                throw new SemanticException(
+                        String.format("Formal with symbol %s was already declared.", formal.name()),
+                        SemanticError.NAME_ALREADY_EXISTS
+                );
+            }
+        }
+
+        for (var varDecl : methodDecl.vardecls()) {
+            if (!method.addVar(new Variable(varDecl.name(), varDecl.type(), varDecl.lineNumber, false, true, false))) {
+                // A variable or formal with the same name was already declared  - SEMANTIC ERROR #24
+                throw new SemanticException(
+                        String.format("Variable or formal with symbol %s was already declared.", varDecl.name()),
+                        SemanticError.NAME_ALREADY_EXISTS
+                );
+            }
+        }
+    }
+
+    /**
+     * Complete the class, its parent being frozen: check its fields against the inherited ones, then
+     * throw the first error of the class if any, link its methods to those they override and freeze it.
+     */
+    private static void link(Class cls, MemberError memberError) {
+        var fieldDecls = cls.getClassDecl().fields();
+        var parent = cls.getNode().getParent().getData();
+        int checked = memberError == null ? fieldDecls.size() : Math.min(memberError.position(), fieldDecls.size());
 
-        for (var fieldDecl : classDecl.fields()) {
-            fieldDecl.accept(this);
+        // Only the fields before the first error of the class were declared in a single pass
+        for (var fieldDecl : fieldDecls.subList(0, checked)) {
+            if (parent.getVar(fieldDecl.nameSymbol(), true) != null) {
+                throw fieldAlreadyDeclared(fieldDecl);
+            }
+        }
+        if (memberError != null) {
+            throw memberError.exception();
         }
+
+        cls.resolveOverrides();
+        // The class is complete - the classes that extend it (declared after it) use its layout
+        cls.freeze();
+    }
+
+    private static SemanticException fieldAlreadyDeclared(VarDecl fieldDecl) {
+        // A field with the same name already exists - SEMANTIC ERROR #4
+        return new SemanticException(
+                String.format("Field with symbol %s was already declared.", fieldDecl.name()),
+                SemanticError.NAME_ALREADY_EXISTS
+        );
+    }
+
+    @Override
+    public String visit(ClassDecl classDecl) {
+        this.currentClass = this.symbolTable.getClass(classDecl.nameSymbol());
+
         for (var methodDecl : classDecl.methoddecls()) {
             methodDecl.accept(this);
         }
@@ -73,11 +236,12 @@ public class BuildClassHierarchyVisitor implements Visitor {
             );
         }
 
-        this.currentClass = this.symbolTable.getClass(mainClass.name());
+        this.currentClass = this.symbolTable.getClass(mainClass.nameSymbol());
         this.currentMethod = new Method("main", null, this.symbolTable.classHierarchy.getRoot().getData());
         this.currentClass.addMethod(this.currentMethod);
         this.currentMethod.addParam(new Variable(mainClass.argsName(), new IntArrayAstType(), null, false, false, true));
         mainClass.mainStatement().accept(this);
+        this.currentClass.freeze();
         this.currentMethod = null;
         this.currentClass = null;
         return null;
@@ -85,28 +249,7 @@ public class BuildClassHierarchyVisitor implements Visitor {
 
     @Override
     public String visit(MethodDecl methodDecl) {
-        if (this.currentClass == null) {
-            throw new SemanticException(SemanticError.METHOD_OUTSIDE_CLASS);
-        }
-
-        // Add method to its class
-        this.currentMethod = new Method(methodDecl.name(), methodDecl.lineNumber, this.currentClass, methodDecl);
-
-        if (!this.currentClass.addMethod(this.currentMethod)) {
-            // A method with the same name already exists in the current class (overloading) - SEMANTIC ERROR #5
-            throw new SemanticException(
-                    SemanticError.OVERLOADING_NOT_SUPPORTED,
-                    new String[]{methodDecl.name()}
-            );
-        }
-
-        for (var formal : methodDecl.formals()) {
-            formal.accept(this);
-        }
-
-        for (var varDecl : methodDecl.vardecls()) {
-            varDecl.accept(this);
-        }
+        this.currentMethod = this.currentClass.getMethod(methodDecl.nameSymbol());
 
         for (var stmt : methodDecl.body()) {
             stmt.accept(this);
@@ -121,45 +264,11 @@ public class BuildClassHierarchyVisitor implements Visitor {
 
     @Override
     public String visit(FormalArg formalArg) {
-        if (this.currentMethod == null) {
-            throw new SemanticException(SemanticError.FORMAL_OUTSIDE_METHOD);
-        }
-
-        if (!this.currentMethod.addParam(new Variable(formalArg.name(), formalArg.type(), formalArg.lineNumber, false, false, true))) {
-            // Formal with the same name already exists in method declaration - SEMANTIC ERROR #24
-            throw new SemanticException(
-                    String.format("Formal with symbol %s was already declared.", formalArg.name()),
-                    SemanticError.NAME_ALREADY_EXISTS
-            );
-        }
-
-        formalArg.type().accept(this);
         return null;
     }
 
     @Override
     public String visit(VarDecl varDecl) {
-        if (this.currentMethod != null) {
-            // Local scope - inside a method
-            if (!this.currentMethod.addVar(new Variable(varDecl.name(), varDecl.type(), varDecl.lineNumber, false, true, false))) {
-                // A variable or formal with the same name was already declared  - SEMANTIC ERROR #24
-                throw new SemanticException(
-                        String.format("Variable or formal with symbol %s was already declared.", varDecl.name()),
-                        SemanticError.NAME_ALREADY_EXISTS
-                );
-            }
-        } else {
-            // Global scope - inside a class (a field)
-            if (!this.currentClass.addVar(new Variable(varDecl.name(), varDecl.type(), varDecl.lineNumber, true, false, false))) {
-                // A field with the same name already exists - SEMANTIC ERROR #4
-                throw new SemanticException(
-                        String.format("Field with symbol %s was already declared.", varDecl.name()),
-                        SemanticError.NAME_ALREADY_EXISTS
-                );
-            }
-        }
-
-        varDecl.type().accept(this);
         return null;
     }
 
@@ -197,12 +306,14 @@ public class BuildClassHierarchyVisitor implements Visitor {
 
     @Override
     public String visit(AssignStatement assignStatement) {
+        assignStatement.setVariable(resolve(assignStatement.lvSymbol()));
         assignStatement.rv().accept(this);
         return null;
     }
 
     @Override
     public String visit(AssignArrayStatement assignArrayStatement) {
+        assignArrayStatement.setVariable(resolve(assignArrayStatement.lvSymbol()));
         assignArrayStatement.index().accept(this);
         assignArrayStatement.rv().accept(this);
         return null;
@@ -277,6 +388,7 @@ public class BuildClassHierarchyVisitor implements Visitor {
 
     @Override
     public String visit(IdentifierExpr e) {
+        e.setVariable(resolve(e.idSymbol()));
         return null;
     }
 
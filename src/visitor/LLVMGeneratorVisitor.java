@@ -11,14 +11,21 @@ import symboltable.SymbolTable;
 import symboltable.Variable;
 import codegen.vtable.VTables;
 
-import java.util.List;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 public class LLVMGeneratorVisitor implements Visitor {
-    private StringBuilder builder = new StringBuilder();
+    private final PrintWriter out;
+    private final StringWriter buffer;
+    private final ForkJoinPool pool;
     private final SymbolTable symbolTable;
     private final VTables vTables;
     private Class currentClass;
@@ -29,12 +36,40 @@ public class LLVMGeneratorVisitor implements Visitor {
     private int andLabel;
     private int arrayAllocLabel;
 
+    /** The generated code, if it is kept in memory (i.e. no writer was given). */
     public String getString() {
-        return builder.toString();
+        if (buffer == null) {
+            throw new IllegalStateException("the generated code was written to a stream");
+        }
+        out.flush();
+        return buffer.toString();
     }
 
     public LLVMGeneratorVisitor(VTables vTables,
                                 SymbolTable symbolTable) {
+        this(vTables, symbolTable, null, null);
+    }
+
+    public LLVMGeneratorVisitor(VTables vTables,
+                                SymbolTable symbolTable,
+                                Writer writer) {
+        this(vTables, symbolTable, writer, null);
+    }
+
+    /**
+     * Write the generated code to the given writer as each method is generated, rather than
+     * keeping it all in memory. The writer is flushed, but not closed, by the caller.
+     *
+     * If a pool is given, the methods are generated on it, each by its own visitor (see generateMethods),
+     * and written in the same order, so the generated code is the same.
+     */
+    public LLVMGeneratorVisitor(VTables vTables,
+                                SymbolTable symbolTable,
+                                Writer writer,
+                                ForkJoinPool pool) {
+        this.pool = pool;
+        this.buffer = writer == null ? new StringWriter() : null;
+        this.out = asPrintWriter(writer == null ? buffer : writer);
         this.vTables = vTables;
         this.symbolTable = symbolTable;
         this.register = 0;
@@ -44,6 +79,10 @@ public class LLVMGeneratorVisitor implements Visitor {
         this.arrayAllocLabel = 0;
     }
 
+    private static PrintWriter asPrintWriter(Writer writer) {
+        return writer instanceof PrintWriter ? (PrintWriter) writer : new PrintWriter(writer);
+    }
+
     String getRegister() {
         int retVal = this.register;
         this.register++;
@@ -77,11 +116,16 @@ public class LLVMGeneratorVisitor implements Visitor {
     @Override
     public String visit(Program program) {
         // Create VTables;
-        this.builder.append(this.vTables.generate());
+        this.out.append(this.vTables.generate());
 
         // Declare the helper methods
         var declare = Declare.getInstance();
-        this.builder.append(declare.generate());
+        this.out.append(declare.generate());
+
+        if (this.pool != null) {
+            generateMethods(program);
+            return null;
+        }
 
         // Visit main class
         program.mainClass().accept(this);
@@ -94,9 +138,66 @@ public class LLVMGeneratorVisitor implements Visitor {
         return null;
     }
 
+    /**
+     * Generate the methods of the program on the pool. Each method is generated by a visitor of its own,
+     * which holds the registers, labels and current class/method, into a buffer of its own. The buffers
+     * are written in the order of the sequential generation; at most a few per thread are pending at a
+     * time, so the whole output is never held in memory.
+     */
+    private void generateMethods(Program program) {
+        var tasks = new ArrayList<Supplier<String>>();
+        tasks.add(methodTask(null, program.mainClass()));
+        for (var classDecl : program.classDecls()) {
+            var classSymbol = this.symbolTable.getClass(classDecl.nameSymbol());
+            for (var methodDecl : classDecl.methoddecls()) {
+                tasks.add(methodTask(classSymbol, methodDecl));
+            }
+        }
+
+        int window = this.pool.getParallelism() * 4;
+        var pending = new ArrayDeque<CompletableFuture<String>>();
+        for (var task : tasks) {
+            if (pending.size() == window) {
+                this.out.append(join(pending.removeFirst()));
+            }
+            pending.addLast(CompletableFuture.supplyAsync(task, this.pool));
+        }
+        while (!pending.isEmpty()) {
+            this.out.append(join(pending.removeFirst()));
+        }
+    }
+
+    /**
+     * A task that generates the given method (or main class) in a new visitor. The registers and labels
+     * are numbered from 0 in each method, so the new visitor numbers them as the sequential generation would.
+     */
+    private Supplier<String> methodTask(Class classSymbol, AstNode method) {
+        return () -> {
+            var visitor = new LLVMGeneratorVisitor(this.vTables, this.symbolTable);
+            visitor.currentClass = classSymbol;
+            method.accept(visitor);
+            return visitor.getString();
+        };
+    }
+
+    private static String join(CompletableFuture<String> task) {
+        try {
+            return task.join();
+        } catch (CompletionException e) {
+            // Rethrow what the method's generation threw, as the sequential generation would
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
     @Override
     public String visit(ClassDecl classDecl) {
-        this.currentClass = this.symbolTable.getClass(classDecl.name());
+        this.currentClass = this.symbolTable.getClass(classDecl.nameSymbol());
 
         // We only need to visit the methods, not the fields
         for (var methodDecl : classDecl.methoddecls()) {
@@ -109,19 +210,20 @@ public class LLVMGeneratorVisitor implements Visitor {
 
     @Override
     public String visit(MainClass mainClass) {
-        this.currentClass = this.symbolTable.getClass(mainClass.name());
+        this.currentClass = this.symbolTable.getClass(mainClass.nameSymbol());
         this.currentMethod = this.currentClass.getMethod("main");
 
-        this.builder.append("\ndefine i32 @main() {\n");
+        this.out.append("\ndefine i32 @main() {\n");
 
         mainClass.mainStatement().accept(this);
 
-        this.builder.append("\tret i32 0\n}\n");
+        this.out.append("\tret i32 0\n}\n");
 
         this.register = 0;
         this.loopLabel = 0;
         this.ifLabel = 0;
         this.andLabel = 0;
+        this.arrayAllocLabel = 0;
 
         this.currentMethod = null;
         this.currentClass = null;
@@ -131,17 +233,17 @@ public class LLVMGeneratorVisitor implements Visitor {
 
     @Override
     public String visit(MethodDecl methodDecl) {
-        this.currentMethod = this.currentClass.getMethod(methodDecl.name());
+        this.currentMethod = this.currentClass.getMethod(methodDecl.nameSymbol());
 
-        this.builder.append("\ndefine " + JavaTypeToLLVMType.getLLVMType(methodDecl.returnType()) + " @" + this.currentClass.getName()
+        this.out.append("\ndefine " + JavaTypeToLLVMType.getLLVMType(methodDecl.returnType()) + " @" + this.currentClass.getName()
                 + "." + methodDecl.name() + "(i8* %this");
 
         for (var formal : methodDecl.formals()) {
-            this.builder.append(", ");
-            this.builder.append(JavaTypeToLLVMType.getLLVMType(formal.type()) + " %." + formal.name());
+            this.out.append(", ");
+            this.out.append(JavaTypeToLLVMType.getLLVMType(formal.type()) + " %." + formal.name());
         }
 
-        this.builder.append(") {\n");
+        this.out.append(") {\n");
 
         // Handle formals allocations to stack
         for (var formal : methodDecl.formals()) {
@@ -157,12 +259,13 @@ public class LLVMGeneratorVisitor implements Visitor {
         }
 
         String retRegister = methodDecl.ret().accept(this);
-        this.builder.append("\tret " + JavaTypeToLLVMType.getLLVMType(methodDecl.returnType()) + " " + retRegister + "\n}\n");
+        this.out.append("\tret " + JavaTypeToLLVMType.getLLVMType(methodDecl.returnType()) + " " + retRegister + "\n}\n");
 
         this.register = 0;
         this.loopLabel = 0;
         this.ifLabel = 0;
         this.andLabel = 0;
+        this.arrayAllocLabel = 0;
         this.currentMethod = null;
 
         return null;
@@ -173,22 +276,22 @@ public class LLVMGeneratorVisitor implements Visitor {
         Alloca alloca = Alloca.getInstance();
         String variableSymbol = formalArg.name();
         LLVMType llvmType = JavaTypeToLLVMType.getLLVMType(formalArg.type());
-        alloca.setVariable(symbolTable.getVar(this.currentMethod, formalArg.name()));
-        this.builder.append(alloca.generate());
-        this.builder.append("\tstore " + llvmType + " %." + variableSymbol + ", " + llvmType + "* %" + variableSymbol + "\n");
+        alloca.setVariable(symbolTable.getVar(this.currentMethod, formalArg.nameSymbol()));
+        this.out.append(alloca.generate());
+        this.out.append("\tstore " + llvmType + " %." + variableSymbol + ", " + llvmType + "* %" + variableSymbol + "\n");
         return null;
     }
 
     @Override
     public String visit(VarDecl varDecl) {
-        Variable var = symbolTable.getVar(this.currentMethod, varDecl.name());
+        Variable var = symbolTable.getVar(this.currentMethod, varDecl.nameSymbol());
 
         // todo: Is it possible that this is not a local variable?
         if (var.isLocalVariable()) {
             // Method scope
             Alloca alloca = Alloca.getInstance();
             alloca.setVariable(var);
-            this.builder.append(alloca.generate());
+            this.out.append(alloca.generate());
         }
         return null;
     }
@@ -208,17 +311,17 @@ public class LLVMGeneratorVisitor implements Visitor {
         String exitLabel = getIfLabel();
 
         String retRegister = ifStatement.cond().accept(this);
-        this.builder.append("\tbr i1 " + retRegister + ", label %" + ifLabel + ", label %" + elseLabel + "\n");
+        this.out.append("\tbr i1 " + retRegister + ", label %" + ifLabel + ", label %" + elseLabel + "\n");
 
-        this.builder.append(ifLabel + ":\n");
+        this.out.append(ifLabel + ":\n");
         ifStatement.thencase().accept(this);
-        this.builder.append("\n\tbr label %" + exitLabel + "\n");
+        this.out.append("\n\tbr label %" + exitLabel + "\n");
 
-        this.builder.append(elseLabel + ":\n");
+        this.out.append(elseLabel + ":\n");
         ifStatement.elsecase().accept(this);
-        this.builder.append("\n\tbr label %" + exitLabel + "\n");
+        this.out.append("\n\tbr label %" + exitLabel + "\n");
 
-        this.builder.append(exitLabel + ":\n");
+        this.out.append(exitLabel + ":\n");
         return null;
     }
 
@@ -228,39 +331,29 @@ public class LLVMGeneratorVisitor implements Visitor {
         String loopLabel = getLoopLabel();
         String exitLabel = getLoopLabel();
 
-        this.builder.append("\n\tbr label %" + condLabel + "\n");
-        this.builder.append(condLabel + ":\n");
+        this.out.append("\n\tbr label %" + condLabel + "\n");
+        this.out.append(condLabel + ":\n");
         String condResRegister = whileStatement.cond().accept(this);
 
-        this.builder.append("\tbr i1 " + condResRegister + ", label %" + loopLabel + ", label %" + exitLabel + "\n");
-        this.builder.append(loopLabel + ":\n");
+        this.out.append("\tbr i1 " + condResRegister + ", label %" + loopLabel + ", label %" + exitLabel + "\n");
+        this.out.append(loopLabel + ":\n");
         whileStatement.body().accept(this);
-        this.builder.append("\n\tbr label %" + condLabel + "\n");
+        this.out.append("\n\tbr label %" + condLabel + "\n");
 
-        this.builder.append(exitLabel + ":\n");
+        this.out.append(exitLabel + ":\n");
         return null;
     }
 
     @Override
     public String visit(SysoutStatement sysoutStatement) {
         String retRegister = sysoutStatement.arg().accept(this);
-        this.builder.append("\tcall void (i32) @print_int(i32 " + retRegister + ")\n");
+        this.out.append("\tcall void (i32) @print_int(i32 " + retRegister + ")\n");
         return null;
     }
 
     @Override
     public String visit(AssignStatement assignStatement) {
-        Variable var;
-
-        if (this.currentMethod != null) {
-            // Method scope - assigning a local var or a param
-            var = symbolTable.getVar(this.currentMethod, assignStatement.lv());
-        }
-        else {
-            // Class scope - assigning a field
-            var = symbolTable.getVar(this.currentClass, assignStatement.lv());
-
-        }
+        Variable var = assignStatement.variable();
 
         if (var == null) {
             throw new RuntimeException(String.format("Variable %s was not found!", assignStatement.lv()));
@@ -270,7 +363,7 @@ public class LLVMGeneratorVisitor implements Visitor {
         LLVMType type = JavaTypeToLLVMType.getLLVMType(var.getType());
 
         if (var.isParam() || var.isLocalVariable()) {
-            this.builder.append(
+            this.out.append(
                     "\tstore " + type + " " + rvReg + ", " + type + "* %" + assignStatement.lv() + "\n"
             );
         }
@@ -280,9 +373,9 @@ public class LLVMGeneratorVisitor implements Visitor {
             String reg1 = getRegister();
             String reg2 = getRegister();
             VTables.ClassVTable classVTable = this.vTables.classesTables.get(this.currentClass.getName());
-            this.builder.append("\t" + reg1 + " = getelementptr i8, i8* %this, i32 " + classVTable.getVarOffset(var.getSymbol()) + "\n");
-            this.builder.append("\t" + reg2 + " = bitcast i8* " + reg1 + " to " + type + "*" + "\n");
-            this.builder.append(
+            this.out.append("\t" + reg1 + " = getelementptr i8, i8* %this, i32 " + classVTable.getVarOffset(var) + "\n");
+            this.out.append("\t" + reg2 + " = bitcast i8* " + reg1 + " to " + type + "*" + "\n");
+            this.out.append(
                     "\tstore " + type + " " + rvReg + ", " + type + "* " + reg2 + "\n"
             );
         }
@@ -293,15 +386,7 @@ public class LLVMGeneratorVisitor implements Visitor {
     //lv[index]=rv
     @Override
     public String visit(AssignArrayStatement assignArrayStatement) {
-        Variable var;
-
-        if (this.currentMethod != null) {
-            // Method scope - assigning a local var or a param
-            var = symbolTable.getVar(this.currentMethod, assignArrayStatement.lv());
-        } else {
-            // Class scope - assigning a field
-            var = symbolTable.getVar(this.currentClass, assignArrayStatement.lv());
-        }
+        Variable var = assignArrayStatement.variable();
 
         if (var == null) {
             throw new RuntimeException(String.format("Variable %s was not found!", assignArrayStatement.lv()));
@@ -310,7 +395,7 @@ public class LLVMGeneratorVisitor implements Visitor {
 
         if (var.isParam() || var.isLocalVariable()) {
             array_reg = getRegister();
-            this.builder.append("\t" + array_reg + " = load i32*, i32** %" + assignArrayStatement.lv() + "\n");
+            this.out.append("\t" + array_reg + " = load i32*, i32** %" + assignArrayStatement.lv() + "\n");
         }
 
         else {
@@ -319,39 +404,39 @@ public class LLVMGeneratorVisitor implements Visitor {
             String array_reg_temp2 = getRegister();
             array_reg = getRegister();
             VTables.ClassVTable classVTable = this.vTables.classesTables.get(this.currentClass.getName());
-            this.builder.append("\t" + array_reg_temp1 + " = getelementptr i8, i8* %this, i32 " + classVTable.getVarOffset(var.getSymbol()) + "\n");
-            this.builder.append("\t" + array_reg_temp2 + " = bitcast i8* " + array_reg_temp1 + " to i32**" + "\n");
-            this.builder.append("\t" + array_reg + " = load i32*, i32** " + array_reg_temp2 + "\n");
+            this.out.append("\t" + array_reg_temp1 + " = getelementptr i8, i8* %this, i32 " + classVTable.getVarOffset(var) + "\n");
+            this.out.append("\t" + array_reg_temp2 + " = bitcast i8* " + array_reg_temp1 + " to i32**" + "\n");
+            this.out.append("\t" + array_reg + " = load i32*, i32** " + array_reg_temp2 + "\n");
         }
         String index_reg = assignArrayStatement.index().accept(this);
         String rv_reg = assignArrayStatement.rv().accept(this);
         String cmp_with_zero_reg = getRegister();
-        builder.append("\t" + cmp_with_zero_reg + " = icmp slt i32 " + index_reg + ", 0" + "\n");
+        out.append("\t" + cmp_with_zero_reg + " = icmp slt i32 " + index_reg + ", 0" + "\n");
         String oob_0_bad_label = getArrayAllocLabel();
         String oob_0_good_label = getArrayAllocLabel();
-        builder.append("\tbr i1 " + cmp_with_zero_reg + ", label %" + oob_0_bad_label + ", label %" + oob_0_good_label + "\n");
-        builder.append(oob_0_bad_label + ":" + "\n");
-        builder.append("\tcall void @throw_oob()\n");
-        builder.append("\tbr label %" + oob_0_good_label + "\n");
-        builder.append(oob_0_good_label + ":" + "\n");
+        out.append("\tbr i1 " + cmp_with_zero_reg + ", label %" + oob_0_bad_label + ", label %" + oob_0_good_label + "\n");
+        out.append(oob_0_bad_label + ":" + "\n");
+        out.append("\tcall void @throw_oob()\n");
+        out.append("\tbr label %" + oob_0_good_label + "\n");
+        out.append(oob_0_good_label + ":" + "\n");
         String oob_max_bad_label = getArrayAllocLabel();
         String oob_max_good_label = getArrayAllocLabel();
         String arr_length_reg = getRegister();
-        builder.append("\t" + arr_length_reg + " = getelementptr i32, i32* " + array_reg + ", i32 0\n");
+        out.append("\t" + arr_length_reg + " = getelementptr i32, i32* " + array_reg + ", i32 0\n");
         String loaded_arr_length_reg = getRegister();
-        builder.append("\t" + loaded_arr_length_reg + " = load i32, i32* " + arr_length_reg + "\n");
+        out.append("\t" + loaded_arr_length_reg + " = load i32, i32* " + arr_length_reg + "\n");
         String cmp_with_max_reg = getRegister();
-        builder.append("\t" + cmp_with_max_reg + " = icmp sle i32 " + loaded_arr_length_reg + ", " + index_reg + "\n");
-        builder.append("\tbr i1 " + cmp_with_max_reg + ", label %" + oob_max_bad_label + ", label %" + oob_max_good_label + "\n");
-        builder.append(oob_max_bad_label + ":" + "\n");
-        builder.append("\tcall void @throw_oob()\n");
-        builder.append("\tbr label %" + oob_max_good_label + "\n");
-        builder.append(oob_max_good_label + ":" + "\n");
+        out.append("\t" + cmp_with_max_reg + " = icmp sle i32 " + loaded_arr_length_reg + ", " + index_reg + "\n");
+        out.append("\tbr i1 " + cmp_with_max_reg + ", label %" + oob_max_bad_label + ", label %" + oob_max_good_label + "\n");
+        out.append(oob_max_bad_label + ":" + "\n");
+        out.append("\tcall void @throw_oob()\n");
+        out.append("\tbr label %" + oob_max_good_label + "\n");
+        out.append(oob_max_good_label + ":" + "\n");
         String physical_index_reg = getRegister();
-        builder.append("\t" + physical_index_reg + " = add i32 " + index_reg + ", 1\n");
+        out.append("\t" + physical_index_reg + " = add i32 " + index_reg + ", 1\n");
         String ptr_to_arr_element_reg = getRegister();
-        builder.append("\t" + ptr_to_arr_element_reg + " = getelementptr i32, i32* " + array_reg + ", i32 " + physical_index_reg + "\n");
-        builder.append("\tstore i32 " + rv_reg + ", i32* " + ptr_to_arr_element_reg + "\n");
+        out.append("\t" + ptr_to_arr_element_reg + " = getelementptr i32, i32* " + array_reg + ", i32 " + physical_index_reg + "\n");
+        out.append("\tstore i32 " + rv_reg + ", i32* " + ptr_to_arr_element_reg + "\n");
         return null;
     }
 
@@ -363,20 +448,20 @@ public class LLVMGeneratorVisitor implements Visitor {
         String label4 = getAndLabel();
 
         String cond1Reg = e.e1().accept(this);
-        this.builder.append("\tbr label %" + label1 + "\n");
-        this.builder.append(label1 + ":\n");
-        this.builder.append("\tbr i1 " + cond1Reg + ", label %" + label2 + ", label %" + label4 + "\n");
+        this.out.append("\tbr label %" + label1 + "\n");
+        this.out.append(label1 + ":\n");
+        this.out.append("\tbr i1 " + cond1Reg + ", label %" + label2 + ", label %" + label4 + "\n");
 
-        this.builder.append(label2 + ":\n");
+        this.out.append(label2 + ":\n");
         String cond2Reg = e.e2().accept(this);
-        this.builder.append("\tbr label %" + label3 + "\n");
+        this.out.append("\tbr label %" + label3 + "\n");
 
-        this.builder.append(label3 + ":\n");
-        this.builder.append("\tbr label %" + label4 + "\n");
+        this.out.append(label3 + ":\n");
+        this.out.append("\tbr label %" + label4 + "\n");
 
         String phi = getRegister();
-        this.builder.append(label4 + ":\n");
-        this.builder.append("\t" + phi + " = phi i1 [ 0, %" + label1 + " ], [ " + cond2Reg + ", %" + label3 + " ]\n");
+        this.out.append(label4 + ":\n");
+        this.out.append("\t" + phi + " = phi i1 [ 0, %" + label1 + " ], [ " + cond2Reg + ", %" + label3 + " ]\n");
 
         return phi;
     }
@@ -387,7 +472,7 @@ public class LLVMGeneratorVisitor implements Visitor {
         String reg2 =  e.e2().accept(this);
 
         String resReg = getRegister();
-        this.builder.append("\t" + resReg + " = icmp slt i32 " + reg1 + ", " + reg2 + "\n");
+        this.out.append("\t" + resReg + " = icmp slt i32 " + reg1 + ", " + reg2 + "\n");
         return resReg;
     }
 
@@ -397,7 +482,7 @@ public class LLVMGeneratorVisitor implements Visitor {
         String reg2 =  e.e2().accept(this);
 
         String resReg = getRegister();
-        this.builder.append("\t" + resReg + " = add i32 " + reg1 + ", " + reg2 + "\n");
+        this.out.append("\t" + resReg + " = add i32 " + reg1 + ", " + reg2 + "\n");
         return resReg;
     }
 
@@ -407,7 +492,7 @@ public class LLVMGeneratorVisitor implements Visitor {
         String reg2 =  e.e2().accept(this);
 
         String resReg = getRegister();
-        this.builder.append("\t" + resReg + " = sub i32 " + reg1 + ", " + reg2 + "\n");
+        this.out.append("\t" + resReg + " = sub i32 " + reg1 + ", " + reg2 + "\n");
         return resReg;
     }
 
@@ -417,7 +502,7 @@ public class LLVMGeneratorVisitor implements Visitor {
         String reg2 =  e.e2().accept(this);
 
         String resReg = getRegister();
-        this.builder.append("\t" + resReg + " = mul i32 " + reg1 + ", " + reg2 + "\n");
+        this.out.append("\t" + resReg + " = mul i32 " + reg1 + ", " + reg2 + "\n");
         return resReg;
     }
 
@@ -428,33 +513,33 @@ public class LLVMGeneratorVisitor implements Visitor {
         String arr_ptr_reg = e.arrayExpr().accept(this);
         String reg1 = e.indexExpr().accept(this);
         String cmp_with_zero_reg = getRegister();
-        builder.append("\t" + cmp_with_zero_reg + " = icmp slt i32 " + reg1 + ", 0" + "\n");
+        out.append("\t" + cmp_with_zero_reg + " = icmp slt i32 " + reg1 + ", 0" + "\n");
         String oob_0_bad_label = getArrayAllocLabel();
         String oob_0_good_label = getArrayAllocLabel();
-        builder.append("\tbr i1 " + cmp_with_zero_reg + ", label %" + oob_0_bad_label + ", label %" + oob_0_good_label + "\n");
-        builder.append(oob_0_bad_label + ":" + "\n");
-        builder.append("\tcall void @throw_oob()\n");
-        builder.append("\tbr label %" + oob_0_good_label + "\n");
-        builder.append(oob_0_good_label + ":" + "\n");
+        out.append("\tbr i1 " + cmp_with_zero_reg + ", label %" + oob_0_bad_label + ", label %" + oob_0_good_label + "\n");
+        out.append(oob_0_bad_label + ":" + "\n");
+        out.append("\tcall void @throw_oob()\n");
+        out.append("\tbr label %" + oob_0_good_label + "\n");
+        out.append(oob_0_good_label + ":" + "\n");
         String oob_max_bad_label = getArrayAllocLabel();
         String oob_max_good_label = getArrayAllocLabel();
         String arr_length_reg = getRegister();
-        builder.append("\t" + arr_length_reg + " = getelementptr i32, i32* " + arr_ptr_reg + ", i32 0\n");
+        out.append("\t" + arr_length_reg + " = getelementptr i32, i32* " + arr_ptr_reg + ", i32 0\n");
         String loaded_arr_length_reg = getRegister();
-        builder.append("\t" + loaded_arr_length_reg + " = load i32, i32* " + arr_length_reg + "\n");
+        out.append("\t" + loaded_arr_length_reg + " = load i32, i32* " + arr_length_reg + "\n");
         String cmp_with_max_reg = getRegister();
-        builder.append("\t" + cmp_with_max_reg + " = icmp sle i32 " + loaded_arr_length_reg + ", " + reg1 + "\n");
-        builder.append("\tbr i1 " + cmp_with_max_reg + ", label %" + oob_max_bad_label + ", label %" + oob_max_good_label + "\n");
-        builder.append(oob_max_bad_label + ":" + "\n");
-        builder.append("\tcall void @throw_oob()\n");
-        builder.append("\tbr label %" + oob_max_good_label + "\n");
-        builder.append(oob_max_good_label + ":" + "\n");
+        out.append("\t" + cmp_with_max_reg + " = icmp sle i32 " + loaded_arr_length_reg + ", " + reg1 + "\n");
+        out.append("\tbr i1 " + cmp_with_max_reg + ", label %" + oob_max_bad_label + ", label %" + oob_max_good_label + "\n");
+        out.append(oob_max_bad_label + ":" + "\n");
+        out.append("\tcall void @throw_oob()\n");
+        out.append("\tbr label %" + oob_max_good_label + "\n");
+        out.append(oob_max_good_label + ":" + "\n");
         String physical_index_reg = getRegister();
-        builder.append("\t" + physical_index_reg + " = add i32 " + reg1 + ", 1\n");
+        out.append("\t" + physical_index_reg + " = add i32 " + reg1 + ", 1\n");
         String ptr_to_arr_element_reg = getRegister();
         String retReg = getRegister();
-        builder.append("\t" + ptr_to_arr_element_reg + " = getelementptr i32, i32* " + arr_ptr_reg + ", i32 " + physical_index_reg + "\n");
-        builder.append("\t" + retReg + " = load i32, i32* " + ptr_to_arr_element_reg + "\n");
+        out.append("\t" + ptr_to_arr_element_reg + " = getelementptr i32, i32* " + arr_ptr_reg + ", i32 " + physical_index_reg + "\n");
+        out.append("\t" + retReg + " = load i32, i32* " + ptr_to_arr_element_reg + "\n");
         return retReg;
     }
 
@@ -463,7 +548,7 @@ public class LLVMGeneratorVisitor implements Visitor {
     public String visit(ArrayLengthExpr e) {
         String resReg = e.arrayExpr().accept(this);
         String tempReg = getRegister();
-        builder.append("\t" + tempReg + " = load i32, i32* " + resReg + "\n");
+        out.append("\t" + tempReg + " = load i32, i32* " + resReg + "\n");
         return tempReg;
     }
 
@@ -474,106 +559,52 @@ public class LLVMGeneratorVisitor implements Visitor {
         // Bitcast owner register
         var ownerRegister = e.ownerExpr().accept(this);
         var castVtable = getRegister();
-        builder.append("\t" + castVtable + " = bitcast i8* " + ownerRegister + " to i8*** \n");
+        out.append("\t" + castVtable + " = bitcast i8* " + ownerRegister + " to i8*** \n");
 
         // Get actual register to vtable
         var actualVtableReg = getRegister();
-        builder.append("\t" + actualVtableReg + " = load i8**, i8*** " + castVtable + "\n");
+        out.append("\t" + actualVtableReg + " = load i8**, i8*** " + castVtable + "\n");
 
         // Read into vtable to get function pointer
         var functionPointerRegister = getRegister();
         var lineNumber = e.lineNumber;
         var methodName = e.methodId();
 
-        // TODO: Move this out as a util method (determining the class of an object)
-        String className;
-
-        // Case this.foo()
-        if (e.ownerExpr() instanceof ThisExpr) {
-            className = this.currentClass.getName();
+        // The class of the owner, from the static type that ValidateTypeVisitor stored on it
+        var ownerType = e.ownerExpr().staticType();
+        if (ownerType == null) {
+            throw new RuntimeException(String.format("The owner of the call to method %s has no static type (the program was not type checked)!", methodName));
         }
-
-        // Case x.foo()
-        else if (e.ownerExpr() instanceof IdentifierExpr) {
-            String symbol = ((IdentifierExpr) e.ownerExpr()).id();
-
-            Variable variable;
-
-            // Search for symbol upwards in symbol table to get type of the variable
-            if (this.currentMethod == null) {
-                // Global scope
-                variable = this.symbolTable.getVar(this.currentClass, symbol);
-            }
-            else {
-                // Local scope (method scope)
-                variable = this.symbolTable.getVar(this.currentMethod, symbol);
-            }
-
-            if (variable == null) {
-                throw new RuntimeException(String.format("Variable with name %s was not declared in current scope!", symbol));
-            }
-
-            var varType = variable.getType();
-
-            if (varType instanceof RefType) {
-                className = ((RefType) varType).id();
-            }
-
-            else {
-                throw new RuntimeException(String.format("Cannot invoke method on variable %s (not an object)!", symbol));
-            }
-        }
-
-        // Case New X().foo()
-        else {
-            className = ((NewObjectExpr) e.ownerExpr()).classId();
+        if (!(ownerType instanceof RefType)) {
+            throw new RuntimeException(String.format("Cannot invoke method %s on a value of type %s (not an object)!", methodName, ownerType.getClass().getSimpleName()));
         }
+        String className = ((RefType) ownerType).id();
 
         var classVTable = this.vTables.classesTables.get(className);
-        var offset = classVTable.getMethodOffset(e.methodId());
-        builder.append("\t" + functionPointerRegister + " = getelementptr i8*, i8** " + actualVtableReg + ", i32 " + offset + "\n");
+        var offset = classVTable.getMethodOffset(e.methodIdSymbol());
+        out.append("\t" + functionPointerRegister + " = getelementptr i8*, i8** " + actualVtableReg + ", i32 " + offset + "\n");
 
         var functionRegister = getRegister();
-        builder.append("\t" + functionRegister + " = load i8*, i8** " + functionPointerRegister + "\n");
+        out.append("\t" + functionRegister + " = load i8*, i8** " + functionPointerRegister + "\n");
         // Cast the function pointer from i8* to correct type
         var castFunctionRegister = getRegister();
-        var functionSignature = "";
 
         // Get the actual method from the class vtable
-        var method = classVTable.methodsTable.get(methodName);
-
-        if (method == null) {
-            // Shouldn't happen, but lets handle anyway
-            throw new RuntimeException(String.format("Method %s is not accessible from class %s!", methodName, className));
-        }
-        var returnType = JavaTypeToLLVMType.getLLVMType(method.getMethodDecl().returnType());
-        functionSignature += "i8* " + functionRegister + " to " + returnType + " ";
-
-        var args = Stream.of("(i8*", method.getParamsArray().stream()
-                .map(arg -> JavaTypeToLLVMType.getLLVMType(arg.getType()).toString())
-                .collect(Collectors.joining(", ")))
-                .filter(s -> s != null && !s.isEmpty())
-                .collect(Collectors.joining(", "));
-
-        args += ")*";
-
-        functionSignature += args;
-        builder.append("\t" + castFunctionRegister + " = bitcast " + functionSignature + "\n");
+        var method = classVTable.getMethodAt(offset);
+        var signature = this.vTables.getSignature(method);
+        var returnType = signature.returnType;
+        out.append("\t" + castFunctionRegister + " = bitcast i8* " + functionRegister + " to " + signature.functionType + "\n");
 
         // Perform the call on the function register
-        List<Variable> paramsArray = method.getParamsArray();
-
-        args = Stream.of("(i8* " + ownerRegister, IntStream
-                .range(0, e.actuals().size())
-                .mapToObj(i -> JavaTypeToLLVMType.getLLVMType(paramsArray.get(i).getType()).toString() + " " + e.actuals().get(i).accept(this))
-                .collect(Collectors.joining(", ")))
-                .filter(s -> s != null && !s.isEmpty())
-                .collect(Collectors.joining(", "));
-
-        args += ")";
+        var args = new StringBuilder("(i8* " + ownerRegister);
+        for (int i = 0; i < e.actuals().size(); i++) {
+            var paramType = signature.paramTypes.get(i);
+            args.append(", ").append(paramType).append(" ").append(e.actuals().get(i).accept(this));
+        }
+        args.append(")");
 
         var callRegister = getRegister();
-        builder.append("\t" + callRegister + " = call " + returnType + " " + castFunctionRegister + args + "\n");
+        out.append("\t" + callRegister + " = call " + returnType + " " + castFunctionRegister + args + "\n");
         return callRegister;
     }
 
@@ -594,17 +625,7 @@ public class LLVMGeneratorVisitor implements Visitor {
 
     @Override
     public String visit(IdentifierExpr e) {
-        Variable variable;
-
-        // Search for symbol upwards in symbol table to get type of the variable
-        if (this.currentMethod == null) {
-            // Global scope
-            variable = this.symbolTable.getVar(this.currentClass, e.id());
-        }
-        else {
-            // Local scope (method scope)
-            variable = this.symbolTable.getVar(this.currentMethod, e.id());
-        }
+        Variable variable = e.variable();
 
         if (variable == null) {
             throw new RuntimeException(String.format("Variable with name %s was not declared in current scope!", e.id()));
@@ -614,7 +635,7 @@ public class LLVMGeneratorVisitor implements Visitor {
 
         if (variable.isParam() || variable.isLocalVariable()) {
             String reg = getRegister();
-            this.builder.append("\t" + reg + " = load " + type + ", " + type + "* %" + e.id() + "\n");
+            this.out.append("\t" + reg + " = load " + type + ", " + type + "* %" + e.id() + "\n");
             return reg;
         }
 
@@ -624,9 +645,9 @@ public class LLVMGeneratorVisitor implements Visitor {
             String reg2 = getRegister();
             String reg3 = getRegister();
             VTables.ClassVTable classVTable = this.vTables.classesTables.get(this.currentClass.getName());
-            this.builder.append("\t" + reg1 + " = getelementptr i8, i8* %this, i32 " + classVTable.getVarOffset(variable.getSymbol()) + "\n");
-            this.builder.append("\t" + reg2 + " = bitcast i8* " + reg1 + " to " + type + "*" + "\n");
-            this.builder.append("\t" + reg3 + " = load " + type + ", " + type + "* " + reg2 + "\n");
+            this.out.append("\t" + reg1 + " = getelementptr i8, i8* %this, i32 " + classVTable.getVarOffset(variable) + "\n");
+            this.out.append("\t" + reg2 + " = bitcast i8* " + reg1 + " to " + type + "*" + "\n");
+            this.out.append("\t" + reg3 + " = load " + type + ", " + type + "* " + reg2 + "\n");
             return reg3;
         }
 
@@ -643,21 +664,21 @@ public class LLVMGeneratorVisitor implements Visitor {
     public String visit(NewIntArrayExpr e) {
         String arr_length_reg = e.lengthExpr().accept(this);
         String cmp_with_zero_reg = getRegister();
-        builder.append("\t" + cmp_with_zero_reg + " = icmp slt i32 " + arr_length_reg + ", 0" + "\n");
+        out.append("\t" + cmp_with_zero_reg + " = icmp slt i32 " + arr_length_reg + ", 0" + "\n");
         String arr_alloc_bad = getArrayAllocLabel();
         String arr_alloc_good = getArrayAllocLabel();
-        builder.append("\tbr i1 " + cmp_with_zero_reg + ", label %" + arr_alloc_bad + ", label %" + arr_alloc_good + "\n");
-        builder.append(arr_alloc_bad + ":" + "\n");
-        builder.append("\tcall void @throw_oob()\n");
-        builder.append("\tbr label %" + arr_alloc_good + "\n");
-        builder.append(arr_alloc_good + ":" + "\n");
+        out.append("\tbr i1 " + cmp_with_zero_reg + ", label %" + arr_alloc_bad + ", label %" + arr_alloc_good + "\n");
+        out.append(arr_alloc_bad + ":" + "\n");
+        out.append("\tcall void @throw_oob()\n");
+        out.append("\tbr label %" + arr_alloc_good + "\n");
+        out.append(arr_alloc_good + ":" + "\n");
         String arr_physical_length_reg = getRegister();
-        builder.append("\t" + arr_physical_length_reg + " = add i32 " + arr_length_reg + ", 1\n");
+        out.append("\t" + arr_physical_length_reg + " = add i32 " + arr_length_reg + ", 1\n");
         String ptr_to_array_reg = getRegister();
-        builder.append("\t" + ptr_to_array_reg + " = call i8* @calloc(i32 4, i32 " + arr_physical_length_reg + ")\n");
+        out.append("\t" + ptr_to_array_reg + " = call i8* @calloc(i32 4, i32 " + arr_physical_length_reg + ")\n");
         String ptr_to_array_reg_after_bitcast = getRegister();
-        builder.append("\t" + ptr_to_array_reg_after_bitcast + " = bitcast i8* " + ptr_to_array_reg + " to i32*\n");
-        builder.append("\tstore i32 " + arr_length_reg + ", i32* " + ptr_to_array_reg_after_bitcast + "\n");
+        out.append("\t" + ptr_to_array_reg_after_bitcast + " = bitcast i8* " + ptr_to_array_reg + " to i32*\n");
+        out.append("\tstore i32 " + arr_length_reg + ", i32* " + ptr_to_array_reg_after_bitcast + "\n");
         return ptr_to_array_reg_after_bitcast;
     }
 
@@ -668,11 +689,14 @@ public class LLVMGeneratorVisitor implements Visitor {
         String reg3 = getRegister();
 
         VTables.ClassVTable classVTable = this.vTables.classesTables.get(e.classId());
+        if (classVTable == null) {
+            throw new RuntimeException(String.format("Class %s was not declared!", e.classId()));
+        }
 
-        this.builder.append("\t" + reg1 + " = call i8* @calloc(i32 1, i32 " + classVTable.getClassSize() +")\n");
-        this.builder.append("\t" + reg2 + " = bitcast i8* " + reg1 + " to i8***\n");
-        this.builder.append("\t" + reg3 + " = getelementptr [" + classVTable.methodsTable.size() + " x i8*], [" + classVTable.methodsTable.size() + " x i8*]* @." + e.classId() + "_vtable, i32 0, i32 0\n");
-        this.builder.append("\tstore i8** " + reg3 + ", i8*** " + reg2 + "\n");
+        this.out.append("\t" + reg1 + " = call i8* @calloc(i32 1, i32 " + classVTable.getClassSize() +")\n");
+        this.out.append("\t" + reg2 + " = bitcast i8* " + reg1 + " to i8***\n");
+        this.out.append("\t" + reg3 + " = getelementptr [" + classVTable.methodsTable.size() + " x i8*], [" + classVTable.methodsTable.size() + " x i8*]* @." + e.classId() + "_vtable, i32 0, i32 0\n");
+        this.out.append("\tstore i8** " + reg3 + ", i8*** " + reg2 + "\n");
         return reg1;
     }
 
@@ -680,10 +704,10 @@ public class LLVMGeneratorVisitor implements Visitor {
     public String visit(NotExpr e) {
         String reg1 = e.e().accept(this);
 //        String xorReg = getRegister();
-//        this.builder.append("\t" + xorReg + " = xor i1 1, " + reg1 + "\n");
+//        this.out.append("\t" + xorReg + " = xor i1 1, " + reg1 + "\n");
 //        return xorReg;
         String reg2 = getRegister();
-        this.builder.append("\t" + reg2 + " = sub i1 1, " + reg1 + "\n");
+        this.out.append("\t" + reg2 + " = sub i1 1, " + reg1 + "\n");
         return reg2;
     }
 
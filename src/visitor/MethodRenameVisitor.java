@@ -5,15 +5,17 @@ import symboltable.Class;
 import symboltable.Method;
 import symboltable.SymbolTable;
 import symboltable.Variable;
+import utils.Symbols;
 
-import java.util.ArrayList;
+import java.util.Set;
 
 public class MethodRenameVisitor implements Visitor {
     private final String newName;
     private final String oldName;
     private final SymbolTable symbolTable;
-    private final ArrayList<Class> relevantClasses; // todo optimize to set somewhen
-    private final ArrayList<MethodDecl> relevantMethodDeclarations; // todo make this method not methoddecl
+    private final int oldSymbol;
+    // The override family of the renamed method (see SymbolTable.getOverrideFamily)
+    private final Set<Method> renamedMethods;
     private Class currentClass;
     private Method currentMethod;
 
@@ -29,8 +31,25 @@ public class MethodRenameVisitor implements Visitor {
         this.newName = newName;
         this.oldName = oldName;
         this.symbolTable = symbolTable;
-        this.relevantMethodDeclarations = symbolTable.getAllMethodsDeclarations(oldName, oldMethodLine);
-        this.relevantClasses = symbolTable.getAllRelevantClasses(oldName, oldMethodLine);
+        this.oldSymbol = Symbols.find(oldName);
+
+        var method = symbolTable.getMethod(oldName, oldMethodLine);
+        if (method == null) {
+            throw new RuntimeException(
+                    String.format("Method with name %s and line number %d was not found!",
+                            oldName, oldMethodLine
+                    )
+            );
+        }
+        this.renamedMethods = symbolTable.getOverrideFamily(method);
+    }
+
+    /**
+     * Whether a call of the method by name on an object of the class calls one of the renamed methods,
+     * i.e. whether the class is in the subtree of the class of the oldest one.
+     */
+    private boolean isRelevant(Class cls) {
+        return cls != null && this.renamedMethods.contains(cls.getMethod(this.oldSymbol, true));
     }
 
     @Override
@@ -47,7 +66,7 @@ public class MethodRenameVisitor implements Visitor {
 
     @Override
     public String visit(ClassDecl classDecl) {
-        this.currentClass = this.symbolTable.getClass(classDecl.name());
+        this.currentClass = this.symbolTable.getClass(classDecl.nameSymbol());
         for (var methodDecl : classDecl.methoddecls()) {
             methodDecl.accept(this);
         }
@@ -57,7 +76,7 @@ public class MethodRenameVisitor implements Visitor {
 
     @Override
     public String visit(MainClass mainClass) {
-        this.currentClass = this.symbolTable.getClass(mainClass.name());
+        this.currentClass = this.symbolTable.getClass(mainClass.nameSymbol());
         this.currentMethod = this.currentClass.getMethod("main");
         mainClass.mainStatement().accept(this);
         this.currentMethod = null;
@@ -67,9 +86,9 @@ public class MethodRenameVisitor implements Visitor {
 
     @Override
     public String visit(MethodDecl methodDecl) {
-        this.currentMethod = this.currentClass.getMethod(methodDecl.name());
+        this.currentMethod = this.currentClass.getMethod(methodDecl.nameSymbol());
 
-        if (relevantMethodDeclarations.contains(methodDecl)) {
+        if (this.renamedMethods.contains(this.currentMethod)) {
             methodDecl.setName(this.newName);
         }
         for (var formal : methodDecl.formals()) {
@@ -194,7 +213,7 @@ public class MethodRenameVisitor implements Visitor {
         if (!e.methodId().equals(this.oldName)) return null;
 
         // Case this.foo()
-        if (e.ownerExpr() instanceof ThisExpr && relevantClasses.contains(currentClass)) {
+        if (e.ownerExpr() instanceof ThisExpr && isRelevant(currentClass)) {
             e.setMethodId(this.newName);
         }
 
@@ -202,17 +221,7 @@ public class MethodRenameVisitor implements Visitor {
         if (owner instanceof IdentifierExpr) {
             String symbol = ((IdentifierExpr) owner).id();
 
-            Variable variable;
-
-            // Search for symbol upwards in symbol table to get type of the variable
-            if (this.currentMethod == null) {
-                // Global scope
-                variable = this.symbolTable.getVar(this.currentClass, symbol);
-            }
-            else {
-                // Local scope (method scope)
-                variable = this.symbolTable.getVar(this.currentMethod, symbol);
-            }
+            Variable variable = ((IdentifierExpr) owner).variable();
 
             if (variable == null) {
                 throw new RuntimeException(String.format("Variable with name %s was not declared in current scope!", symbol));
@@ -223,7 +232,7 @@ public class MethodRenameVisitor implements Visitor {
             if (varType instanceof RefType) {
                 String className = ((RefType) varType).id();
                 var staticType = symbolTable.getClass(className);
-                if (staticType != null && relevantClasses.contains(staticType)) e.setMethodId(this.newName);
+                if (isRelevant(staticType)) e.setMethodId(this.newName);
             }
         }
 
@@ -231,7 +240,7 @@ public class MethodRenameVisitor implements Visitor {
         if (owner instanceof NewObjectExpr) {
             String className = ((NewObjectExpr) owner).classId();
             var staticType = symbolTable.getClass(className);
-            if (staticType != null && relevantClasses.contains(staticType)) e.setMethodId(this.newName);
+            if (isRelevant(staticType)) e.setMethodId(this.newName);
         }
         return null;
     }
@@ -0,0 +1,58 @@
+package visitor;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs an action for each index of a range of small, independent items (e.g. the classes of a
+ * program) on a pool. The items are split into a few groups per thread, each a task.
+ */
+final class PoolTasks {
+    private static final int GROUPS_PER_THREAD = 4;
+
+    private PoolTasks() {
+    }
+
+    /**
+     * Run the action for each index from 0 to count, on the pool if there is one, otherwise in order
+     * on the calling thread. Returns once all are done; rethrows what an action threw.
+     */
+    static void forEach(ForkJoinPool pool, int count, IntConsumer action) {
+        if (pool == null) {
+            for (int index = 0; index < count; index++) {
+                action.accept(index);
+            }
+            return;
+        }
+
+        int groupSize = Math.max(1, count / (pool.getParallelism() * GROUPS_PER_THREAD));
+        var tasks = new ArrayList<CompletableFuture<Void>>();
+        for (int start = 0; start < count; start += groupSize) {
+            int first = start;
+            int last = Math.min(start + groupSize, count);
+            tasks.add(CompletableFuture.runAsync(() -> {
+                for (int index = first; index < last; index++) {
+                    action.accept(index);
+                }
+            }, pool));
+        }
+
+        for (var task : tasks) {
+            try {
+                task.join();
+            } catch (CompletionException e) {
+                // Rethrow what the action threw, as on the calling thread
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package visitor;
 
 import ast.*;
+import semanticanalysis.Diagnostics;
 import semanticanalysis.SemanticError;
 import semanticanalysis.SemanticException;
 import symboltable.Class;
 import symboltable.Method;
 import symboltable.SymbolTable;
+import symboltable.Variable;
 import utils.InitMap;
 
 public class ValidateInitVisitor implements Visitor {
@@ -14,10 +16,60 @@ public class ValidateInitVisitor implements Visitor {
     private final SymbolTable symbolTable;
     private InitMap currentInitMap;
 
+    // When collecting diagnostics, each use of a variable that is not initialized is recorded there,
+    // otherwise the first one is thrown. The line of the current method or main class, for the uses that
+    // have no line of their own (see AstNode.line).
+    private final Diagnostics diagnostics;
+    private Integer currentLine;
+
     public ValidateInitVisitor(SymbolTable symbolTable) {
+        this(symbolTable, null);
+    }
+
+    /**
+     * @param diagnostics Where to collect all the errors, or null to throw the first one. The variables
+     *                    may then be unbound (see ValidateTypeVisitor), and are skipped.
+     */
+    public ValidateInitVisitor(SymbolTable symbolTable, Diagnostics diagnostics) {
         this.currentMethod = null;
         this.symbolTable = symbolTable;
         this.currentClass = null;
+        this.diagnostics = diagnostics;
+    }
+
+    private void checkInitialized(String name, Variable variable, AstNode at) {
+        if (variable == null || !variable.isLocalVariable() || currentInitMap.isInit(variable.getSlot())) {
+            return;
+        }
+
+        // Obj is not definitely initialized - SEMANTIC ERROR #15
+        var e = new SemanticException(
+                SemanticError.OBJ_NOT_INITIALIZED,
+                new String[] {
+                        name,
+                        this.currentClass != null ? this.currentClass.getName() : "",
+                        this.currentMethod != null ? this.currentMethod.getName() : ""
+                }
+        );
+        if (this.diagnostics == null) {
+            throw e;
+        }
+        this.diagnostics.report(e, this.currentClass.getName(), this.currentMethod.getName(),
+                at.line() != null ? at.line() : this.currentLine);
+    }
+
+    private void visitBranch(Statement branch) {
+        // When collecting diagnostics, the program may not type check: a branch can be missing from an AST
+        // read from XML (e.g. an empty elsecase), where an error in the condition used to hide it
+        if (branch != null || this.diagnostics == null) {
+            branch.accept(this);
+        }
+    }
+
+    private void initialize(Variable variable) {
+        if (variable != null && variable.isLocalVariable()) {
+            currentInitMap.init(variable.getSlot());
+        }
     }
 
     private void visitBinaryExpr(BinaryExpr e, String infixSymbol) {
@@ -37,20 +89,21 @@ public class ValidateInitVisitor implements Visitor {
 
     @Override
     public String visit(MainClass mainClass) {
-        this.currentInitMap = new InitMap();
-        this.currentClass = this.symbolTable.getClass(mainClass.name());
-        this.currentMethod = this.symbolTable.getMethod("main", null);
+        this.currentClass = this.symbolTable.getClass(mainClass.nameSymbol());
+        this.currentMethod = this.currentClass.getMethod("main");
+        this.currentInitMap = new InitMap(this.currentMethod.getSlotCount());
+        this.currentLine = mainClass.lineNumber;
         mainClass.mainStatement().accept(this);
         this.currentMethod = null;
         this.currentClass = null;
         this.currentInitMap = null;
+        this.currentLine = null;
         return null;
     }
 
     @Override
     public String visit(ClassDecl classDecl) {
-        this.currentClass = this.symbolTable.getClass(classDecl.name());
-        this.currentInitMap = new InitMap();
+        this.currentClass = this.symbolTable.getClass(classDecl.nameSymbol());
 
         for (var fieldDecl : classDecl.fields()) {
             fieldDecl.accept(this);
@@ -62,16 +115,15 @@ public class ValidateInitVisitor implements Visitor {
 
         // Backtrack - exit class
         this.currentClass = null;
-        this.currentInitMap = null;
         return null;
     }
 
     @Override
     public String visit(MethodDecl methodDecl) {
-        this.currentMethod = symbolTable.getMethod(methodDecl.name(), methodDecl.lineNumber);
-        InitMap classMap = new InitMap(currentInitMap);
-        InitMap methodMap = new InitMap(currentInitMap);
-        this.currentInitMap = methodMap;
+        this.currentMethod = this.currentClass.getMethod(methodDecl.nameSymbol());
+        // No local variable is initialized at the start (the fields and the formals are not checked)
+        this.currentInitMap = new InitMap(this.currentMethod.getSlotCount());
+        this.currentLine = methodDecl.lineNumber;
 
         for (var formal : methodDecl.formals()) {
             formal.accept(this);
@@ -89,7 +141,8 @@ public class ValidateInitVisitor implements Visitor {
 
         // Backtrack - exit method
         this.currentMethod = null;
-        this.currentInitMap = classMap;
+        this.currentInitMap = null;
+        this.currentLine = null;
         return null;
     }
 
@@ -100,7 +153,6 @@ public class ValidateInitVisitor implements Visitor {
 
     @Override
     public String visit(VarDecl varDecl) {
-        this.currentInitMap.addVariable(varDecl.name());
         return null;
     }
 
@@ -115,12 +167,12 @@ public class ValidateInitVisitor implements Visitor {
     @Override
     public String visit(IfStatement ifStatement) {
         ifStatement.cond().accept(this);
-        InitMap beforeMap = new InitMap(currentInitMap); //copy
-        ifStatement.thencase().accept(this); // construct map of then clause
-        InitMap thenMap = new InitMap(currentInitMap);
-        currentInitMap = beforeMap; // reset map to state before if
-        ifStatement.elsecase().accept(this); // construct map of else clause
-        currentInitMap = InitMap.merge(thenMap, currentInitMap);
+        InitMap elseMap = new InitMap(currentInitMap); //copy of the state before if
+        visitBranch(ifStatement.thencase()); // construct map of then clause
+        InitMap thenMap = currentInitMap;
+        currentInitMap = elseMap;
+        visitBranch(ifStatement.elsecase()); // construct map of else clause
+        currentInitMap.intersect(thenMap);
         return null;
     }
 
@@ -128,8 +180,8 @@ public class ValidateInitVisitor implements Visitor {
     public String visit(WhileStatement whileStatement) {
         whileStatement.cond().accept(this);
         InitMap noEnterMap = new InitMap(currentInitMap); //copy
-        whileStatement.body().accept(this); // construct map of inside while
-        currentInitMap = InitMap.merge(noEnterMap, currentInitMap);
+        visitBranch(whileStatement.body()); // construct map of inside while
+        currentInitMap.intersect(noEnterMap);
         return null;
     }
 
@@ -142,35 +194,18 @@ public class ValidateInitVisitor implements Visitor {
     @Override
     public String visit(AssignStatement assignStatement) {
         assignStatement.rv().accept(this);
-        if(this.symbolTable.getVar(currentMethod, assignStatement.lv()).isLocalVariable()) { //lv is a local variable
-            currentInitMap.init(assignStatement.lv());
-        }
+        initialize(assignStatement.variable());
         return null;
     }
 
     @Override
     public String visit(AssignArrayStatement assignArrayStatement) {
-        var variable = this.symbolTable.getVar(currentMethod, assignArrayStatement.lv());
-        if(variable != null && variable.isLocalVariable()) { // lv is a local variable
-            if (!currentInitMap.isInit(assignArrayStatement.lv())) {
-                // if lv is not init here the validation fails
-                // Obj is not definitely initialized - SEMANTIC ERROR #15
-                throw new SemanticException(
-                        SemanticError.OBJ_NOT_INITIALIZED,
-                        new String[] {
-                                assignArrayStatement.lv(),
-                                this.currentClass != null ? this.currentClass.getName() : "",
-                                this.currentMethod != null ? this.currentMethod.getName() : ""
-                        }
-                );
-            }
-        }
+        // if lv is not init here the validation fails
+        checkInitialized(assignArrayStatement.lv(), assignArrayStatement.variable(), assignArrayStatement);
 
         assignArrayStatement.index().accept(this);
         assignArrayStatement.rv().accept(this);
-        if(this.symbolTable.getVar(currentMethod, assignArrayStatement.lv()).isLocalVariable()) { //lv is a local variable
-            currentInitMap.init(assignArrayStatement.lv());
-        }
+        initialize(assignArrayStatement.variable());
         return null;
     }
 
@@ -243,21 +278,8 @@ public class ValidateInitVisitor implements Visitor {
 
     @Override
     public String visit(IdentifierExpr e) {
-        var variable = this.symbolTable.getVar(currentMethod, e.id());
-        if(variable != null && variable.isLocalVariable()) { //e is a local variable
-            if (!currentInitMap.isInit(e.id())) {
-                // if e is not init here the validation fails
-                // Obj is not definitely initialized - SEMANTIC ERROR #15
-                throw new SemanticException(
-                        SemanticError.OBJ_NOT_INITIALIZED,
-                        new String[] {
-                                e.id(),
-                                this.currentClass != null ? this.currentClass.getName() : "",
-                                this.currentMethod != null ? this.currentMethod.getName() : ""
-                        }
-                );
-            }
-        }
+        // if e is not init here the validation fails
+        checkInitialized(e.id(), e.variable(), e);
         return null;
     }
 
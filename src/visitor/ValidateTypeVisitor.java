@@ -1,40 +1,165 @@
 package visitor;
 
 import ast.*;
+import semanticanalysis.Diagnostics;
 import semanticanalysis.SemanticError;
 import semanticanalysis.SemanticException;
 import symboltable.Class;
 import symboltable.Method;
 import symboltable.SymbolTable;
 import symboltable.Variable;
+import utils.InitMap;
 import utils.VarType;
 
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 public class ValidateTypeVisitor implements Visitor{
     private Class currentClass;
     private Method currentMethod;
     private final SymbolTable symbolTable;
 
+    // With checkInit, the checks of ValidateInitVisitor are done in the same traversal: the variables
+    // that are definitely initialized at the current point, and the first initialization error in the
+    // order in which ValidateInitVisitor finds them. That one is only thrown once the whole program
+    // type checks, as the type checks run first when the two are separate.
+    private final boolean checkInit;
+    private InitMap currentInitMap;
+    private SemanticException initError;
+
+    private final ForkJoinPool pool;
+
+    // When collecting diagnostics, an error is recorded there and the check goes on, otherwise it is thrown.
+    // It goes on within the expression if the type of what holds the error is known all the same (e.g. the
+    // operands of + do not change the type of the sum, and a call has the return type of its method whatever
+    // its arguments or the shape of its owner), so that the errors after it in the same expression are found
+    // too. Otherwise (e.g. an unknown variable or method) it goes on with the next statement or declaration.
+    // The line of the current statement, or declaration, as the AST numbers it (see AstNode.line).
+    private final Diagnostics diagnostics;
+    private Integer currentLine;
+
+    /**
+     * The outcome of checking a class on its own: what the check threw, the initialization error,
+     * and the errors collected.
+     */
+    private record ClassResult(RuntimeException error, SemanticException initError, Diagnostics diagnostics) {}
+
     public ValidateTypeVisitor(SymbolTable symbolTable) {
+        this(symbolTable, false);
+    }
+
+    /** @param checkInit Whether to check the initialization of the local variables too (see ValidateInitVisitor) */
+    public ValidateTypeVisitor(SymbolTable symbolTable, boolean checkInit) {
+        this(symbolTable, checkInit, null);
+    }
+
+    /**
+     * If a pool is given, the classes are checked on it, each by its own visitor (see checkClasses).
+     * The symbol table must be complete, as it is then read from several threads.
+     */
+    public ValidateTypeVisitor(SymbolTable symbolTable, boolean checkInit, ForkJoinPool pool) {
+        this(symbolTable, checkInit, pool, null);
+    }
+
+    /**
+     * @param diagnostics Where to collect all the errors, or null to throw the first one. The initialization
+     *                    is then checked by ValidateInitVisitor, which goes on through the statements that
+     *                    the type check gives up on.
+     */
+    public ValidateTypeVisitor(SymbolTable symbolTable, boolean checkInit, ForkJoinPool pool, Diagnostics diagnostics) {
+        if (checkInit && diagnostics != null) {
+            throw new IllegalArgumentException("the initialization cannot be checked while collecting diagnostics");
+        }
         this.currentMethod = null;
         this.symbolTable = symbolTable;
         this.currentClass = null;
+        this.checkInit = checkInit;
+        this.pool = pool;
+        this.diagnostics = diagnostics;
+    }
+
+    /** Throw the error, or when collecting diagnostics, record it so that the check can go on. */
+    private void recover(SemanticException e) {
+        recover(e, null);
+    }
+
+    /** Like recover(e), for an error in the given expression, whose line is reported if it is known. */
+    private void recover(SemanticException e, Expr at) {
+        if (this.diagnostics == null) {
+            throw e;
+        }
+        this.diagnostics.report(e,
+                this.currentClass != null ? this.currentClass.getName() : null,
+                this.currentMethod != null ? this.currentMethod.getName() : null,
+                at != null && at.line() != null ? at.line() : this.currentLine);
+    }
+
+    /** Check a statement or a declaration, recovering from its error (see recover). */
+    private void check(AstNode node) {
+        if (node == null && this.diagnostics != null) {
+            // A part missing from an AST read from XML (e.g. an empty elsecase), which the error before it
+            // used to hide: there is nothing to check
+            return;
+        }
+        Integer line = this.currentLine;
+        try {
+            if (node.line() != null) {
+                this.currentLine = node.line();
+            }
+            node.accept(this);
+        } catch (SemanticException e) {
+            recover(e);
+        } finally {
+            this.currentLine = line;
+        }
+    }
+
+    /** Record an error if the local variable is not definitely initialized and no error was recorded before. */
+    private void checkInitialized(String name, Variable variable) {
+        if (!this.checkInit || this.initError != null || variable == null || !variable.isLocalVariable()) {
+            return;
+        }
+
+        if (!this.currentInitMap.isInit(variable.getSlot())) {
+            // Obj is not definitely initialized - SEMANTIC ERROR #15
+            this.initError = new SemanticException(
+                    SemanticError.OBJ_NOT_INITIALIZED,
+                    new String[] {
+                            name,
+                            this.currentClass != null ? this.currentClass.getName() : "",
+                            this.currentMethod != null ? this.currentMethod.getName() : ""
+                    }
+            );
+        }
     }
 
-    private AstType getVarType(String type) {
-        if (type.equals(VarType.INT.getType()))
-            return new IntAstType();
-        else if (type.equals(VarType.BOOL.getType()))
-            return new BoolAstType();
-        else if (type.equals(VarType.INT_ARRAY.getType()))
-            return new IntArrayAstType();
-        else {
-            RefType refType = new RefType();
-            refType.setId(type);
-            return refType;
+    private void initialize(Variable variable) {
+        if (this.checkInit && variable.isLocalVariable()) {
+            this.currentInitMap.init(variable.getSlot());
         }
     }
 
+    /** The name of the type in the error messages: int, boolean, int[] or the name of the class. */
+    private static String typeName(AstType type) {
+        if (type instanceof IntAstType)
+            return VarType.INT.getType();
+        else if (type instanceof BoolAstType)
+            return VarType.BOOL.getType();
+        else if (type instanceof IntArrayAstType)
+            return VarType.INT_ARRAY.getType();
+        else if (type instanceof RefType)
+            return ((RefType) type).id();
+
+        // The type doesn't conform to any of the types MiniJava handles, probably should never happen
+        throw new SemanticException("Type " + type + " could not be inferred or is illegal in MiniJava!", SemanticError.UNKNOWN_ERROR);
+    }
+
+    /** Check the expression, and return its static type (a canonical instance, see Expr.staticType). */
+    private AstType typeOf(Expr e) {
+        e.accept(this);
+        return e.staticType();
+    }
+
     private void validateMethodOverriding(Method currentMethod, Method overridenMethod) {
         // Validate same number of parameters (formals)
         if (this.currentMethod.getParamsArray().size() != overridenMethod.getParamsArray().size())
@@ -100,12 +225,10 @@ public class ValidateTypeVisitor implements Visitor{
 
     }
 
-    private boolean validateTypeExists(String type) {
-        AstType varType = getVarType(type);
-
-        if (varType instanceof RefType) {
+    private boolean validateTypeExists(AstType type) {
+        if (type instanceof RefType) {
             // Validate that the class of the variable exists in hierarchy
-            return this.symbolTable.getClass(((RefType) varType).id()) != null;
+            return this.symbolTable.getClass(((RefType) type).idSymbol()) != null;
         }
 
         return true;
@@ -113,30 +236,84 @@ public class ValidateTypeVisitor implements Visitor{
 
     @Override
     public String visit(Program program) {
+        if (this.pool != null) {
+            checkClasses(program);
+            return null;
+        }
+
         program.mainClass().accept(this);
 
         for (ClassDecl classdecl : program.classDecls()) {
             classdecl.accept(this);
         }
+
+        if (this.initError != null) {
+            throw this.initError;
+        }
         return null;
     }
 
+    /**
+     * Check the classes of the program on the pool, each by a visitor of its own, which holds the current
+     * class and method. The checks of a class only read the symbol table, so they are independent.
+     * The error that is thrown is the one that the sequential check would throw: the first that a class
+     * threw, in the order of the classes, otherwise the first initialization error.
+     */
+    private void checkClasses(Program program) {
+        var classes = new ArrayList<AstNode>();
+        classes.add(program.mainClass());
+        classes.addAll(program.classDecls());
+
+        var results = new ClassResult[classes.size()];
+        PoolTasks.forEach(this.pool, classes.size(), index -> {
+            var classDiagnostics = this.diagnostics != null ? new Diagnostics() : null;
+            var visitor = new ValidateTypeVisitor(this.symbolTable, this.checkInit, null, classDiagnostics);
+            RuntimeException error = null;
+            try {
+                classes.get(index).accept(visitor);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            results[index] = new ClassResult(error, visitor.initError, classDiagnostics);
+        });
+
+        if (this.diagnostics != null) {
+            for (var result : results) {
+                this.diagnostics.addAll(result.diagnostics());
+            }
+        }
+        for (var result : results) {
+            if (result.error() != null) {
+                throw result.error();
+            }
+        }
+        for (var result : results) {
+            if (result.initError() != null) {
+                throw result.initError();
+            }
+        }
+    }
+
     @Override
     public String visit(MainClass mainClass) {
-        this.currentClass = this.symbolTable.getClass(mainClass.name());
+        this.currentClass = this.symbolTable.getClass(mainClass.nameSymbol());
         this.currentMethod = this.currentClass.getMethod("main", true);
-        mainClass.mainStatement().accept(this);
+        this.currentInitMap = this.checkInit ? new InitMap(this.currentMethod.getSlotCount()) : null;
+        this.currentLine = mainClass.lineNumber;
+        check(mainClass.mainStatement());
         this.currentMethod = null;
         this.currentClass = null;
+        this.currentInitMap = null;
+        this.currentLine = null;
         return null;
     }
 
     @Override
     public String visit(ClassDecl classDecl) {
-        this.currentClass = this.symbolTable.getClass(classDecl.name());
+        this.currentClass = this.symbolTable.getClass(classDecl.nameSymbol());
 
         for (var fieldDecl : classDecl.fields()) {
-            fieldDecl.accept(this);
+            check(fieldDecl);
         }
 
         for (var methodDecl : classDecl.methoddecls()) {
@@ -150,31 +327,53 @@ public class ValidateTypeVisitor implements Visitor{
 
     @Override
     public String visit(MethodDecl methodDecl) {
-        this.currentMethod = this.currentClass.getMethod(methodDecl.name(), true);
+        this.currentMethod = this.currentClass.getMethod(methodDecl.nameSymbol(), true);
+        this.currentLine = methodDecl.lineNumber;
         Method overriddenMethod = symbolTable.getOverridenMethod(currentMethod);
 
         if (overriddenMethod != null) {
             // Validate overriding
-            validateMethodOverriding(currentMethod, overriddenMethod);
+            try {
+                validateMethodOverriding(currentMethod, overriddenMethod);
+            } catch (SemanticException e) {
+                recover(e);
+            }
         }
 
+        // No local variable is initialized at the start (the fields and the formals are not checked)
+        this.currentInitMap = this.checkInit ? new InitMap(this.currentMethod.getSlotCount()) : null;
+
         for (var formal : methodDecl.formals()) {
-            formal.accept(this);
+            check(formal);
         }
 
         for (var varDecl : methodDecl.vardecls()) {
-            varDecl.accept(this);
+            check(varDecl);
         }
 
         for (var stmt : methodDecl.body()) {
-            stmt.accept(this);
+            check(stmt);
         }
 
+        try {
+            validateReturn(methodDecl);
+        } catch (SemanticException e) {
+            recover(e);
+        }
+
+        // Backtrack - exit method
+        this.currentMethod = null;
+        this.currentInitMap = null;
+        this.currentLine = null;
+        return null;
+    }
+
+    private void validateReturn(MethodDecl methodDecl) {
         // Validate return type is subclass of the declared return type
-        AstType actualReturnType = getVarType(methodDecl.ret().accept(this));
+        AstType actualReturnType = typeOf(methodDecl.ret());
         AstType expectedReturnType = currentMethod.getMethodDecl().returnType();
 
-        if (expectedReturnType instanceof RefType && symbolTable.getClass(((RefType) expectedReturnType).id()) == null) {
+        if (expectedReturnType instanceof RefType && symbolTable.getClass(((RefType) expectedReturnType).idSymbol()) == null) {
             // Return type class doesn't exist
             throw new SemanticException(
                     String.format("Invalid return type (class: %s, method: %s). Class %s doesn't exist.",
@@ -198,15 +397,11 @@ public class ValidateTypeVisitor implements Visitor{
 
             );
         }
-
-        // Backtrack - exit method
-        this.currentMethod = null;
-        return null;
     }
 
     @Override
     public String visit(FormalArg formalArg) {
-        String formalType = formalArg.type().accept(this);
+        AstType formalType = formalArg.type();
 
         if (!validateTypeExists(formalType)) {
             // Class of formal is not declared - SEMANTIC ERROR #8
@@ -215,7 +410,7 @@ public class ValidateTypeVisitor implements Visitor{
                             formalArg.name(),
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            formalType),
+                            typeName(formalType)),
                     SemanticError.OBJ_DOESNT_EXIST
             );
         }
@@ -225,12 +420,7 @@ public class ValidateTypeVisitor implements Visitor{
 
     @Override
     public String visit(VarDecl varDecl) {
-        String varType = varDecl.type().accept(this);
-
-        if (varType.equals(VarType.REF.getType())) {
-            // If var is reference type, its real type is the class
-            varType = ((RefType) varDecl.type()).id();
-        }
+        AstType varType = varDecl.type();
 
         if (!validateTypeExists(varType)) {
             // Class of var is not declared - SEMANTIC ERROR #8
@@ -239,7 +429,7 @@ public class ValidateTypeVisitor implements Visitor{
                             varDecl.name(),
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            varType),
+                            typeName(varType)),
                     SemanticError.OBJ_DOESNT_EXIST
             );
         }
@@ -250,50 +440,74 @@ public class ValidateTypeVisitor implements Visitor{
     @Override
     public String visit(BlockStatement blockStatement) {
         for (var s : blockStatement.statements()) {
-            s.accept(this);
+            check(s);
         }
         return null;
     }
 
     @Override
     public String visit(IfStatement ifStatement) {
-        if (!ifStatement.cond().accept(this).equals(VarType.BOOL.getType())){
-            // If condition is not a boolean - SEMANTIC ERROR #17
-            throw new SemanticException(
-                    SemanticError.IF_COND_NOT_BOOL
-            );
+        try {
+            if (typeOf(ifStatement.cond()) != BoolAstType.INSTANCE) {
+                // If condition is not a boolean - SEMANTIC ERROR #17
+                throw new SemanticException(
+                        SemanticError.IF_COND_NOT_BOOL
+                );
+            }
+        } catch (SemanticException e) {
+            recover(e);
         }
-        ifStatement.thencase().accept(this);
-        ifStatement.elsecase().accept(this);
+        if (!this.checkInit) {
+            check(ifStatement.thencase());
+            check(ifStatement.elsecase());
+            return null;
+        }
+
+        InitMap elseMap = new InitMap(currentInitMap); //copy of the state before if
+        ifStatement.thencase().accept(this); // construct map of then clause
+        InitMap thenMap = currentInitMap;
+        currentInitMap = elseMap;
+        ifStatement.elsecase().accept(this); // construct map of else clause
+        currentInitMap.intersect(thenMap);
         return null;
     }
 
     @Override
     public String visit(WhileStatement whileStatement) {
-        if (!whileStatement.cond().accept(this).equals(VarType.BOOL.getType())){
-            // While condition is not a boolean - SEMANTIC ERROR #17
-            throw new SemanticException(
-                    SemanticError.WHILE_COND_NOT_BOOL
-            );
+        try {
+            if (typeOf(whileStatement.cond()) != BoolAstType.INSTANCE) {
+                // While condition is not a boolean - SEMANTIC ERROR #17
+                throw new SemanticException(
+                        SemanticError.WHILE_COND_NOT_BOOL
+                );
+            }
+        } catch (SemanticException e) {
+            recover(e);
         }
-        whileStatement.cond().accept(this);
-        whileStatement.body().accept(this);
+        if (!this.checkInit) {
+            check(whileStatement.body());
+            return null;
+        }
+
+        InitMap noEnterMap = new InitMap(currentInitMap); //copy
+        whileStatement.body().accept(this); // construct map of inside while
+        currentInitMap.intersect(noEnterMap);
         return null;
     }
 
     @Override
     public String visit(SysoutStatement sysoutStatement) {
-        String argType = sysoutStatement.arg().accept(this);
+        AstType argType = typeOf(sysoutStatement.arg());
 
-        if (!argType.equals(VarType.INT.getType())){
+        if (argType != IntAstType.INSTANCE) {
             // Argument to print function is not an int - SEMANTIC ERROR #20
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch in print argument (class: %s, method: %s). Type of arg: %s, expected: int.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            argType),
+                            typeName(argType)),
                     SemanticError.INVALID_TYPE
-            );
+            ));
         }
         return null;
     }
@@ -302,7 +516,7 @@ public class ValidateTypeVisitor implements Visitor{
     public String visit(AssignStatement assignStatement) {
         AstType lv_type;
         AstType rv_type;
-        Variable lv = symbolTable.getVar(currentMethod, assignStatement.lv());
+        Variable lv = assignStatement.variable();
 
         if (lv == null) {
             // Variable is not found in current scope - SEMANTIC ERROR #12
@@ -317,11 +531,11 @@ public class ValidateTypeVisitor implements Visitor{
         }
 
         lv_type = lv.getType();
-        rv_type = getVarType(assignStatement.rv().accept(this));
+        rv_type = typeOf(assignStatement.rv());
 
         if (!symbolTable.isSubtype(rv_type, lv_type)) {
             // Type mismatch in assignment - SEMANTIC ERROR #16
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Assignment of var %s is invalid (class: %s, method %s). LV type: %s, RV type: %s.",
                             lv.getSymbol(),
                             this.currentClass != null ? this.currentClass.getName() : "",
@@ -330,8 +544,10 @@ public class ValidateTypeVisitor implements Visitor{
                             (rv_type instanceof RefType) ? ((RefType) rv_type).id() : rv_type.getClass().getName()
                     ),
                     SemanticError.INVALID_ASSIGNMENT
-            );
+            ));
         }
+
+        initialize(lv);
         return null;
     }
 
@@ -340,7 +556,7 @@ public class ValidateTypeVisitor implements Visitor{
         AstType lv_type;
         AstType rv_type;
 
-        Variable lv = symbolTable.getVar(currentMethod, assignArrayStatement.lv());
+        Variable lv = assignArrayStatement.variable();
 
         if (lv == null) {
             // Variable is not found in current scope - SEMANTIC ERROR #12
@@ -354,13 +570,20 @@ public class ValidateTypeVisitor implements Visitor{
             );
         }
 
+        // ValidateInitVisitor checks the LV, then the index, then the RV, while the RV is type checked first:
+        // the first error in the RV is only kept if there is none before it in that order
+        checkInitialized(assignArrayStatement.lv(), lv);
+        SemanticException initErrorBefore = this.initError;
+
         lv_type = lv.getType();
-        rv_type = getVarType(assignArrayStatement.rv().accept(this));
+        rv_type = typeOf(assignArrayStatement.rv());
+        SemanticException rvInitError = this.initError;
+        this.initError = initErrorBefore;
 
         // Validate LV is an int[]
         if (!(lv_type instanceof IntArrayAstType)){
             // LV is not an int[] - SEMANTIC ERROR #23
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Invalid array assignment (class: %s, method: %s). Type of %s: %s, expected: IntArrayAstType.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
@@ -368,252 +591,263 @@ public class ValidateTypeVisitor implements Visitor{
                             (lv_type instanceof RefType) ? ((RefType) lv_type).id() : lv_type.getClass().getName()
                     ),
                     SemanticError.INVALID_ASSIGNMENT
-            );
+            ));
         }
 
-        String index_type = assignArrayStatement.index().accept(this);
+        AstType index_type = typeOf(assignArrayStatement.index());
 
-        if (!(index_type.equals(VarType.INT.getType()))) {
+        if (index_type != IntAstType.INSTANCE) {
             // Index is not an int - SEMANTIC ERROR #23
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Invalid index type (class: %s, method: %s).Got: %s, expected: int.",
                     this.currentClass != null ? this.currentClass.getName() : "",
                     this.currentMethod != null ? this.currentMethod.getName() : "",
-                    index_type),
+                    typeName(index_type)),
                     SemanticError.INVALID_ARRAY_INDEX
-            );
+            ));
         }
 
         if (!(rv_type instanceof IntAstType)) {
             // Index is not an int - SEMANTIC ERROR #23
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Invalid array assignment (class: %s, method: %s). Type of RV: %s, expected: int.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
                             (rv_type instanceof RefType) ? ((RefType) rv_type).id() : lv_type.getClass().getName()),
                     SemanticError.INVALID_ASSIGNMENT
-            );
+            ));
         }
 
+        if (this.initError == null) {
+            this.initError = rvInitError;
+        }
+        initialize(lv);
         return null;
     }
 
     @Override
     public String visit(AndExpr e) {
-        String e1_type = e.e1().accept(this);
+        AstType e1_type = typeOf(e.e1());
 
         // Validate first argument of the operation
-        if (!(e1_type.equals(VarType.BOOL.getType()))) {
+        if (e1_type != BoolAstType.INSTANCE) {
             // e1 is not a boolean - SEMANTIC ERROR #21
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch in AND operator (class: %s, method: %s). Type of e1: %s, expected: boolean.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            e1_type),
+                            typeName(e1_type)),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
-        String e2_type =e.e2().accept(this);
+        AstType e2_type = typeOf(e.e2());
 
         // Validate second argument type
-        if (!(e2_type.equals(VarType.BOOL.getType()))){
+        if (e2_type != BoolAstType.INSTANCE) {
             // e1 is not a boolean - SEMANTIC ERROR #21
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch in AND operator (class: %s, method: %s). Type of e2: %s, expected: boolean.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            e2_type),
+                            typeName(e2_type)),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
         // && op returns a boolean
-        return VarType.BOOL.getType();
+        e.setStaticType(BoolAstType.INSTANCE);
+        return null;
     }
 
     @Override
     public String visit(LtExpr e) {
-        String e1_type = e.e1().accept(this);
+        AstType e1_type = typeOf(e.e1());
 
         // Validate first argument of the operation
-        if (!(e1_type.equals(VarType.INT.getType()))) {
+        if (e1_type != IntAstType.INSTANCE) {
             // e1 is not a int - SEMANTIC ERROR #21
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch in < operator (class: %s, method: %s). Type of e1: %s, expected: int.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            e1_type),
+                            typeName(e1_type)),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
-        String e2_type =e.e2().accept(this);
+        AstType e2_type = typeOf(e.e2());
 
-        if (!(e2_type.equals(VarType.INT.getType()))){
+        if (e2_type != IntAstType.INSTANCE) {
             // e1 is not a int - SEMANTIC ERROR #21
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch in < operator (class: %s, method: %s). Type of e2: %s, expected: int.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            e2_type),
+                            typeName(e2_type)),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
         // < op returns a boolean
-        return VarType.BOOL.getType();
+        e.setStaticType(BoolAstType.INSTANCE);
+        return null;
     }
 
     @Override
     public String visit(AddExpr e) {
-        String e1_type = e.e1().accept(this);
+        AstType e1_type = typeOf(e.e1());
 
         // Validate first argument of the operation
-        if (!(e1_type.equals(VarType.INT.getType()))) {
+        if (e1_type != IntAstType.INSTANCE) {
             // e1 is not a int - SEMANTIC ERROR #21
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch in + operator (class: %s, method: %s). Type of e1: %s, expected: int.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            e1_type),
+                            typeName(e1_type)),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
-        String e2_type =e.e2().accept(this);
+        AstType e2_type = typeOf(e.e2());
 
         // Validate second argument type
-        if (!(e2_type.equals(VarType.INT.getType()))){
+        if (e2_type != IntAstType.INSTANCE) {
             // e1 is not a int - SEMANTIC ERROR #21
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch in + operator (class: %s, method: %s). Type of e2: %s, expected: int.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            e2_type),
+                            typeName(e2_type)),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
         // + op returns int
-        return VarType.INT.getType();
+        e.setStaticType(IntAstType.INSTANCE);
+        return null;
     }
 
     @Override
     public String visit(SubtractExpr e) {
-        String e1_type = e.e1().accept(this);
+        AstType e1_type = typeOf(e.e1());
 
         // Validate first argument of the operation
-        if (!(e1_type.equals(VarType.INT.getType()))) {
+        if (e1_type != IntAstType.INSTANCE) {
             // e1 is not a int - SEMANTIC ERROR #21
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch in - operator (class: %s, method: %s). Type of e1: %s, expected: int.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            e1_type),
+                            typeName(e1_type)),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
-        String e2_type =e.e2().accept(this);
+        AstType e2_type = typeOf(e.e2());
 
         // Validate second argument type
-        if (!(e2_type.equals(VarType.INT.getType()))){
+        if (e2_type != IntAstType.INSTANCE) {
             // e1 is not a int - SEMANTIC ERROR #21
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch in - operator (class: %s, method: %s). Type of e2: %s, expected: int.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            e2_type),
+                            typeName(e2_type)),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
         // - op returns int
-        return VarType.INT.getType();
+        e.setStaticType(IntAstType.INSTANCE);
+        return null;
 
     }
 
     @Override
     public String visit(MultExpr e) {
-        String e1_type = e.e1().accept(this);
+        AstType e1_type = typeOf(e.e1());
 
         // Validate first argument of the operation
-        if (!(e1_type.equals(VarType.INT.getType()))) {
+        if (e1_type != IntAstType.INSTANCE) {
             // e1 is not a int - SEMANTIC ERROR #21
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch in * operator (class: %s, method: %s). Type of e1: %s, expected: int.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            e1_type),
+                            typeName(e1_type)),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
-        String e2_type =e.e2().accept(this);
+        AstType e2_type = typeOf(e.e2());
 
         // Validate second argument type
-        if (!(e2_type.equals(VarType.INT.getType()))){
+        if (e2_type != IntAstType.INSTANCE) {
             // e1 is not a int - SEMANTIC ERROR #21
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch in * operator (class: %s, method: %s). Type of e2: %s, expected: int.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            e2_type),
+                            typeName(e2_type)),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
         // * op returns int
-        return VarType.INT.getType();
+        e.setStaticType(IntAstType.INSTANCE);
+        return null;
     }
 
     @Override
     public String visit(ArrayAccessExpr e) {
-        String array_type = e.arrayExpr().accept(this);
+        AstType array_type = typeOf(e.arrayExpr());
 
-        if (!(array_type.equals(VarType.INT_ARRAY.getType()))){
+        if (array_type != IntArrayAstType.INSTANCE) {
             // object is not an array - SEMANTIC ERROR #22
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch (class: %s, method: %s). Got: %s, expected: int[].",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            array_type
+                            typeName(array_type)
                             ),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
-        String index_type = e.indexExpr().accept(this);
+        AstType index_type = typeOf(e.indexExpr());
 
-        if (!(index_type.equals("int"))) {
+        if (index_type != IntAstType.INSTANCE) {
             // index is not an int - SEMANTIC ERROR #22
-            throw new SemanticException(
+            recover(new SemanticException(
                     SemanticError.INVALID_ARRAY_INDEX,
-                    new String[]{index_type}
-                        );
+                    new String[]{typeName(index_type)}
+                        ), e);
         }
 
-        return VarType.INT.getType();
+        e.setStaticType(IntAstType.INSTANCE);
+        return null;
     }
 
     @Override
     public String visit(ArrayLengthExpr e) {
-        String array_type = e.arrayExpr().accept(this);
+        AstType array_type = typeOf(e.arrayExpr());
 
-        if (!(array_type.equals(VarType.INT_ARRAY.getType()))){
+        if (array_type != IntArrayAstType.INSTANCE) {
             // object is not an array - SEMANTIC ERROR #13
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch, cannot run method .length on non arrays (class: %s, method: %s). Got: %s, expected: int[].",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            array_type
+                            typeName(array_type)
                     ),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
-        return VarType.INT.getType();
+        e.setStaticType(IntAstType.INSTANCE);
+        return null;
     }
 
     @Override
@@ -623,29 +857,20 @@ public class ValidateTypeVisitor implements Visitor{
         !(e.ownerExpr() instanceof IdentifierExpr) &&
         !(e.ownerExpr() instanceof ThisExpr)){
             // owner is not this / new / identifier - SEMANTIC ERROR #10
-            throw new SemanticException(
+            // When collecting diagnostics, the call is checked all the same: its owner's type is known
+            recover(new SemanticException(
                     String.format("Type mismatch (class: %s, method: %s). Method call owner type: %s, expected: this / new / reference.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
                             e.ownerExpr().getClass().getName()
                     ),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
         if (e.ownerExpr() instanceof IdentifierExpr) {
             String symbol = ((IdentifierExpr) e.ownerExpr()).id();
-            Variable variable;
-
-            // Search for symbol upwards in symbol table to get type of the variable
-            if (this.currentMethod == null) {
-                // Global scope
-                variable = this.symbolTable.getVar(this.currentClass, symbol);
-            }
-            else {
-                // Local scope (method scope)
-                variable = this.symbolTable.getVar(this.currentMethod, symbol);
-            }
+            Variable variable = ((IdentifierExpr) e.ownerExpr()).variable();
 
             if (variable == null) {
                 // Variable is not found in current scope - SEMANTIC ERROR #12
@@ -661,8 +886,8 @@ public class ValidateTypeVisitor implements Visitor{
         }
 
         //11
-        String owner_type = e.ownerExpr().accept(this);
-        Class owner_class = symbolTable.getClass(owner_type);
+        AstType owner_type = typeOf(e.ownerExpr());
+        Class owner_class = owner_type instanceof RefType ? symbolTable.getClass(((RefType) owner_type).idSymbol()) : null;
 
         if(owner_class == null){
             // owner type is not of a declared class - SEMANTIC ERROR #11
@@ -671,13 +896,13 @@ public class ValidateTypeVisitor implements Visitor{
                             e.methodId(),
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            owner_type
+                            typeName(owner_type)
                     ),
                     SemanticError.INVALID_METHOD_CALL
             );
         }
 
-        Method method = owner_class.getMethod(e.methodId(), true);
+        Method method = owner_class.getMethod(e.methodIdSymbol(), true);
 
         if(method == null){
             // Invalid call to method - SEMANTIC ERROR #11
@@ -686,7 +911,7 @@ public class ValidateTypeVisitor implements Visitor{
                             e.methodId(),
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            owner_type
+                            typeName(owner_type)
                     ),
                     SemanticError.INVALID_METHOD_CALL
             );
@@ -710,13 +935,13 @@ public class ValidateTypeVisitor implements Visitor{
 
         // Validate same static types (exactly) for each argument
         for (int i = 0;  i < e.actuals().size(); i++) {
-            var actualType = getVarType(actuals.get(i).accept(this));
+            var actualType = typeOf(actuals.get(i));
             var paramType = method.getParamsArray().get(i).getType();
 
             // Validate that params are instances of the same AstType class
             if (!(actualType.getClass().equals(paramType.getClass()))){
                 // Invalid call to method - SEMANTIC ERROR #11
-                throw new SemanticException(
+                recover(new SemanticException(
                         String.format("Invalid call to method %s (class %s, method %s): parameter type mismatch at argument %d. Got %s, expected %s.",
                                 e.methodId(),
                                 currentMethod.getParentClass().getName(),
@@ -726,14 +951,15 @@ public class ValidateTypeVisitor implements Visitor{
                                 paramType.getClass().getName()
                         ),
                         SemanticError.INVALID_METHOD_CALL
-                );
+                ), e);
+                continue;
             }
 
             if (actualType instanceof RefType){
                 // Validate that the actual class of the refType of both params are equal or sybtype
                 if (!symbolTable.isSubtype(actualType, paramType)) {
                     // Invalid call to method - SEMANTIC ERROR #11
-                    throw new SemanticException(
+                    recover(new SemanticException(
                             String.format("Invalid call to method %s (class %s, method %s): parameter type mismatch at argument %d. Got %s, expected %s.",
                                     e.methodId(),
                                     currentMethod.getParentClass().getName(),
@@ -743,65 +969,47 @@ public class ValidateTypeVisitor implements Visitor{
                                     ((RefType) paramType).id()
                             ),
                             SemanticError.INVALID_METHOD_CALL
-                    );
+                    ), e);
                 }
             }
         }
 
         var returnType = method.getMethodDecl().returnType();
-        if (returnType instanceof IntAstType) return VarType.INT.getType();
-        else if (returnType instanceof IntArrayAstType) return VarType.INT_ARRAY.getType();
-        else if (returnType instanceof BoolAstType) return VarType.BOOL.getType();
-        else if (returnType instanceof RefType) {
-            var id = ((RefType) returnType).id();
-
-            if (id == null) {
-                // Doesn't suppose to happen
-                var err = "Type for return is null and is illegal in MiniJava!";
-                throw new SemanticException(err, SemanticError.UNKNOWN_ERROR);
-            }
-
-            else return id;
+        if (returnType instanceof RefType && ((RefType) returnType).id() == null) {
+            // Doesn't suppose to happen
+            var err = "Type for return is null and is illegal in MiniJava!";
+            throw new SemanticException(err, SemanticError.UNKNOWN_ERROR);
         }
 
-        // Variable doesn't conform to any of the types MiniJava handles, probably should never happen
-        var err = "Type for return " + returnType + " could not be inferred or is illegal in MiniJava!";
-        throw new SemanticException(err, SemanticError.UNKNOWN_ERROR);
+        e.setStaticType(this.symbolTable.canonicalType(returnType));
+        return null;
     }
 
     @Override
     public String visit(IntegerLiteralExpr e) {
-        return VarType.INT.getType();
+        e.setStaticType(IntAstType.INSTANCE);
+        return null;
     }
 
     @Override
     public String visit(TrueExpr e) {
-        return VarType.BOOL.getType();
+        e.setStaticType(BoolAstType.INSTANCE);
+        return null;
     }
 
     @Override
     public String visit(FalseExpr e) {
-        return VarType.BOOL.getType();
+        e.setStaticType(BoolAstType.INSTANCE);
+        return null;
     }
 
     @Override
     public String visit(IdentifierExpr e) {
         var varName = e.id();
         AstType varType;
-        Variable var = currentClass.getVar(varName);
 
         var symbol = e.id();
-        Variable variable;
-
-        // Search for symbol upwards in symbol table to get type of the variable
-        if (this.currentMethod == null) {
-            // Global scope
-            variable = this.symbolTable.getVar(this.currentClass, symbol);
-        }
-        else {
-            // Local scope (method scope)
-            variable = this.symbolTable.getVar(this.currentMethod, symbol);
-        }
+        Variable variable = e.variable();
 
         if (variable == null) {
             // Variable is not found in current scope - SEMANTIC ERROR #12
@@ -815,44 +1023,41 @@ public class ValidateTypeVisitor implements Visitor{
             );
         }
 
+        checkInitialized(varName, variable);
         varType = variable.getType();
-
-        if (varType instanceof IntAstType) return VarType.INT.getType();
-        else if (varType instanceof IntArrayAstType) return VarType.INT_ARRAY.getType();
-        else if (varType instanceof BoolAstType) return VarType.BOOL.getType();
-        else if (varType instanceof RefType) return ((RefType) varType).id();
-
-        // Variable doesn't conform to any of the types MiniJava handles, probably should never happen
-        var err = "Type for variable " + varName + " could not be inferred or is illegal in MiniJava!";
-        throw new SemanticException(err, SemanticError.UNKNOWN_ERROR);
+        e.setStaticType(this.symbolTable.canonicalType(varType));
+        return null;
     }
 
     public String visit(ThisExpr e) {
-        return this.currentClass.getName();
+        e.setStaticType(this.currentClass.getType());
+        return null;
     }
 
     @Override
     public String visit(NewIntArrayExpr e) {
-        String lengthType = e.lengthExpr().accept(this);
-        if (!lengthType.equals(VarType.INT.getType())) {
+        AstType lengthType = typeOf(e.lengthExpr());
+        if (lengthType != IntAstType.INSTANCE) {
             // length is not an int - SEMANTIC ERROR #25
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch in array initialization (class: %s, method: %s). Got: %s, expected: int.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            lengthType
+                            typeName(lengthType)
                         ),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
 
-        return VarType.INT_ARRAY.getType();
+        e.setStaticType(IntArrayAstType.INSTANCE);
+        return null;
     }
 
     @Override
     public String visit(NewObjectExpr e) {
+        Class cls = symbolTable.getClass(e.classIdSymbol());
 
-        if(symbolTable.getClass(e.classId()) == null){
+        if(cls == null){
             // Creating new instance of not declared type - SEMANTIC ERROR #9
             throw new SemanticException(
                     String.format("Invalid initialization of instance (class: %s, method: %s). Class %s was not declared.",
@@ -864,44 +1069,46 @@ public class ValidateTypeVisitor implements Visitor{
             );
         }
 
-        return e.classId();
+        e.setStaticType(cls.getType());
+        return null;
     }
 
     @Override
     public String visit(NotExpr e) {
-        String exprType = e.e().accept(this);
+        AstType exprType = typeOf(e.e());
 
-        if (!exprType.equals(VarType.BOOL.getType())){
+        if (exprType != BoolAstType.INSTANCE) {
             // expression is not a boolean - SEMANTIC ERROR #21
-            throw new SemanticException(
+            recover(new SemanticException(
                     String.format("Type mismatch in ! operation (class: %s, method: %s). Got: %s, expected: int.",
                             this.currentClass != null ? this.currentClass.getName() : "",
                             this.currentMethod != null ? this.currentMethod.getName() : "",
-                            exprType
+                            typeName(exprType)
                     ),
                     SemanticError.INVALID_TYPE
-            );
+            ), e);
         }
-        return VarType.BOOL.getType();
+        e.setStaticType(BoolAstType.INSTANCE);
+        return null;
     }
 
     @Override
     public String visit(IntAstType t) {
-        return VarType.INT.getType();
+        return null;
     }
 
     @Override
     public String visit(BoolAstType t) {
-        return VarType.BOOL.getType();
+        return null;
     }
 
     @Override
     public String visit(IntArrayAstType t) {
-        return VarType.INT_ARRAY.getType();
+        return null;
     }
 
     @Override
     public String visit(RefType t) {
-        return t.id();
+        return null;
     }
 }
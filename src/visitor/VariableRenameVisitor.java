@@ -45,7 +45,7 @@ public class VariableRenameVisitor implements Visitor {
 
     @Override
     public String visit(ClassDecl classDecl) {
-        this.currentClass = this.symbolTable.getClass(classDecl.name());
+        this.currentClass = this.symbolTable.getClass(classDecl.nameSymbol());
 
         for (var fieldDecl : classDecl.fields()) {
             fieldDecl.accept(this);
@@ -60,7 +60,7 @@ public class VariableRenameVisitor implements Visitor {
 
     @Override
     public String visit(MainClass mainClass) {
-        this.currentClass = this.symbolTable.getClass(mainClass.name());
+        this.currentClass = this.symbolTable.getClass(mainClass.nameSymbol());
         this.currentMethod = this.currentClass.getMethod("main");
         mainClass.mainStatement().accept(this);
         this.currentMethod = null;
@@ -70,7 +70,7 @@ public class VariableRenameVisitor implements Visitor {
 
     @Override
     public String visit(MethodDecl methodDecl) {
-        this.currentMethod = this.currentClass.getMethod(methodDecl.name());
+        this.currentMethod = this.currentClass.getMethod(methodDecl.nameSymbol());
 
         for (var formal : methodDecl.formals()) {
             formal.accept(this);
@@ -99,11 +99,11 @@ public class VariableRenameVisitor implements Visitor {
         // Search for symbol upwards in symbol table to get type of the variable
         if (this.currentMethod == null) {
             // Global scope
-            variable = this.symbolTable.getVar(this.currentClass, formalArg.name());
+            variable = this.symbolTable.getVar(this.currentClass, formalArg.nameSymbol());
         }
         else {
             // Local scope (method scope)
-            variable = this.symbolTable.getVar(this.currentMethod, formalArg.name());
+            variable = this.symbolTable.getVar(this.currentMethod, formalArg.nameSymbol());
         }
 
         if (variable == null) {
@@ -127,11 +127,11 @@ public class VariableRenameVisitor implements Visitor {
         // Search for symbol upwards in symbol table to get type of the variable
         if (this.currentMethod == null) {
             // Global scope
-            variable = this.symbolTable.getVar(this.currentClass, varDecl.name());
+            variable = this.symbolTable.getVar(this.currentClass, varDecl.nameSymbol());
         }
         else {
             // Local scope (method scope)
-            variable = this.symbolTable.getVar(this.currentMethod, varDecl.name());
+            variable = this.symbolTable.getVar(this.currentMethod, varDecl.nameSymbol());
         }
 
         if (variable == null) {
@@ -175,17 +175,7 @@ public class VariableRenameVisitor implements Visitor {
 
     @Override
     public String visit(AssignStatement assignStatement) {
-        Variable variable;
-
-        // Search for symbol upwards in symbol table to get type of the variable
-        if (this.currentMethod == null) {
-            // Global scope
-            variable = this.symbolTable.getVar(this.currentClass, assignStatement.lv());
-        }
-        else {
-            // Local scope (method scope)
-            variable = this.symbolTable.getVar(this.currentMethod, assignStatement.lv());
-        }
+        Variable variable = assignStatement.variable();
 
         if (variable == null) {
             throw new RuntimeException(String.format("Variable with name %s was not declared in current scope!", assignStatement.lv()));
@@ -201,17 +191,7 @@ public class VariableRenameVisitor implements Visitor {
 
     @Override
     public String visit(AssignArrayStatement assignArrayStatement) {
-        Variable variable;
-
-        // Search for symbol upwards in symbol table to get type of the variable
-        if (this.currentMethod == null) {
-            // Global scope
-            variable = this.symbolTable.getVar(this.currentClass, assignArrayStatement.lv());
-        }
-        else {
-            // Local scope (method scope)
-            variable = this.symbolTable.getVar(this.currentMethod, assignArrayStatement.lv());
-        }
+        Variable variable = assignArrayStatement.variable();
 
         if (variable == null) {
             throw new RuntimeException(String.format("Variable with name %s was not declared in current scope!", assignArrayStatement.lv()));
@@ -299,17 +279,7 @@ public class VariableRenameVisitor implements Visitor {
 
     @Override
     public String visit(IdentifierExpr e) {
-        Variable variable;
-
-        // Search for symbol upwards in symbol table to get type of the variable
-        if (this.currentMethod == null) {
-            // Global scope
-            variable = this.symbolTable.getVar(this.currentClass, e.id());
-        }
-        else {
-            // Local scope (method scope)
-            variable = this.symbolTable.getVar(this.currentMethod, e.id());
-        }
+        Variable variable = e.variable();
 
         if (variable == null) {
             throw new RuntimeException(String.format("Variable with name %s was not declared in current scope!", e.id()));
@@ -0,0 +1,237 @@
+package visitor;
+
+import ast.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the uses of variables that BuildClassHierarchyVisitor binds (identifiers, and the left hand
+ * sides of assignments), in the order of a traversal of the program. Two programs with the same AST
+ * give the same order, which is what SymbolTableSnapshot indexes the bindings by.
+ */
+public class VariableUseVisitor implements Visitor {
+    private final List<AstNode> uses = new ArrayList<>();
+
+    public List<AstNode> getUses() {
+        return uses;
+    }
+
+    private void visitBinaryExpr(BinaryExpr e) {
+        e.e1().accept(this);
+        e.e2().accept(this);
+    }
+
+    @Override
+    public String visit(Program program) {
+        program.mainClass().accept(this);
+        for (var classDecl : program.classDecls()) {
+            classDecl.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public String visit(ClassDecl classDecl) {
+        for (var fieldDecl : classDecl.fields()) {
+            fieldDecl.accept(this);
+        }
+        for (var methodDecl : classDecl.methoddecls()) {
+            methodDecl.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public String visit(MainClass mainClass) {
+        mainClass.mainStatement().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(MethodDecl methodDecl) {
+        methodDecl.returnType().accept(this);
+        for (var formal : methodDecl.formals()) {
+            formal.accept(this);
+        }
+        for (var varDecl : methodDecl.vardecls()) {
+            varDecl.accept(this);
+        }
+        for (var statement : methodDecl.body()) {
+            statement.accept(this);
+        }
+        methodDecl.ret().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(FormalArg formalArg) {
+        return null;
+    }
+
+    @Override
+    public String visit(VarDecl varDecl) {
+        return null;
+    }
+
+    @Override
+    public String visit(BlockStatement blockStatement) {
+        for (var statement : blockStatement.statements()) {
+            statement.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public String visit(IfStatement ifStatement) {
+        ifStatement.cond().accept(this);
+        ifStatement.thencase().accept(this);
+        if (ifStatement.elsecase() != null) {
+            ifStatement.elsecase().accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public String visit(WhileStatement whileStatement) {
+        whileStatement.cond().accept(this);
+        whileStatement.body().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(SysoutStatement sysoutStatement) {
+        sysoutStatement.arg().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(AssignStatement assignStatement) {
+        uses.add(assignStatement);
+        assignStatement.rv().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(AssignArrayStatement assignArrayStatement) {
+        uses.add(assignArrayStatement);
+        assignArrayStatement.index().accept(this);
+        assignArrayStatement.rv().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(AndExpr e) {
+        visitBinaryExpr(e);
+        return null;
+    }
+
+    @Override
+    public String visit(LtExpr e) {
+        visitBinaryExpr(e);
+        return null;
+    }
+
+    @Override
+    public String visit(AddExpr e) {
+        visitBinaryExpr(e);
+        return null;
+    }
+
+    @Override
+    public String visit(SubtractExpr e) {
+        visitBinaryExpr(e);
+        return null;
+    }
+
+    @Override
+    public String visit(MultExpr e) {
+        visitBinaryExpr(e);
+        return null;
+    }
+
+    @Override
+    public String visit(ArrayAccessExpr e) {
+        e.arrayExpr().accept(this);
+        e.indexExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(ArrayLengthExpr e) {
+        e.arrayExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(MethodCallExpr e) {
+        e.ownerExpr().accept(this);
+        for (var actual : e.actuals()) {
+            actual.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public String visit(IntegerLiteralExpr e) {
+        return null;
+    }
+
+    @Override
+    public String visit(TrueExpr e) {
+        return null;
+    }
+
+    @Override
+    public String visit(FalseExpr e) {
+        return null;
+    }
+
+    @Override
+    public String visit(IdentifierExpr e) {
+        uses.add(e);
+        return null;
+    }
+
+    @Override
+    public String visit(ThisExpr e) {
+        return null;
+    }
+
+    @Override
+    public String visit(NewIntArrayExpr e) {
+        e.lengthExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(NewObjectExpr e) {
+        return null;
+    }
+
+    @Override
+    public String visit(NotExpr e) {
+        e.e().accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(IntAstType t) {
+        return null;
+    }
+
+    @Override
+    public String visit(BoolAstType t) {
+        return null;
+    }
+
+    @Override
+    public String visit(IntArrayAstType t) {
+        return null;
+    }
+
+    @Override
+    public String visit(RefType t) {
+        return null;
+    }
+}